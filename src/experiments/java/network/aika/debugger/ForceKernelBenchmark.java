@@ -0,0 +1,114 @@
+package network.aika.debugger;
+
+import org.graphstream.ui.geom.Vector3;
+import org.miv.pherd.geom.Point3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static network.aika.debugger.AbstractLayout.STANDARD_DISTANCE_Y;
+
+/**
+ * Compares the layered attraction on particle objects, as done by ActivationParticle, with the
+ * struct-of-arrays kernels. Build with the profile "vector" and run with
+ * {@code --add-modules jdk.incubator.vector} to include the Vector API kernel.
+ */
+public class ForceKernelBenchmark {
+
+    private static final double K1 = 0.12;
+
+    private static final int ITERATIONS = 200;
+
+    static class Body {
+        Point3 pos = new Point3();
+        Vector3 disp = new Vector3();
+        double attE;
+        List<Spring> neighbours = new ArrayList<>();
+    }
+
+    static class Spring {
+        Body node0;
+        Body node1;
+
+        Body getOpposite(Body b) {
+            return b == node0 ? node1 : node0;
+        }
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int springsPerBody = 3;
+
+        Random r = new Random(42);
+        Body[] bodies = new Body[n];
+        for(int i = 0; i < n; i++) {
+            bodies[i] = new Body();
+            bodies[i].pos.set(r.nextDouble() * 100.0, r.nextDouble(), 0.0);
+        }
+
+        ForceArrays arrays = new ForceArrays();
+        arrays.resize(n);
+        for(int i = 0; i < n; i++)
+            arrays.set(i, bodies[i].pos.x, bodies[i].pos.y, 1.0);
+
+        for(int i = 0; i < n; i++) {
+            for(int j = 0; j < springsPerBody; j++) {
+                int o = r.nextInt(n);
+                if(o == i)
+                    continue;
+
+                Spring s = new Spring();
+                s.node0 = bodies[i];
+                s.node1 = bodies[o];
+                bodies[i].neighbours.add(s);
+                bodies[o].neighbours.add(s);
+                arrays.addSpring(i, o);
+            }
+        }
+
+        System.out.println("Particles: " + n + ", springs: " + arrays.getNumberOfSprings());
+
+        report("objects", run(() -> objectAttraction(bodies)), arrays.getNumberOfSprings());
+        report("arrays scalar", run(() -> new ScalarAttractionKernel().computeLayered(arrays, STANDARD_DISTANCE_Y, K1)), arrays.getNumberOfSprings());
+
+        AttractionKernel kernel = AttractionKernel.createVectorKernel();
+        if(kernel != null)
+            report("arrays vector", run(() -> kernel.computeLayered(arrays, STANDARD_DISTANCE_Y, K1)), arrays.getNumberOfSprings());
+        else
+            System.out.println("Vector API not available, skipping the vector kernel.");
+    }
+
+    private static void objectAttraction(Body[] bodies) {
+        Vector3 delta = new Vector3();
+        for(Body b: bodies) {
+            b.disp.fill(0);
+            for(Spring s: b.neighbours) {
+                Point3 opos = s.getOpposite(b).pos;
+                double dy;
+                if(s.node1 == b) {
+                    dy = Math.max(0.0, (opos.y + STANDARD_DISTANCE_Y) - b.pos.y);
+                } else {
+                    dy = Math.min(0.0, opos.y - (b.pos.y + STANDARD_DISTANCE_Y));
+                }
+                delta.set(0.0, dy * K1, 0.0);
+                b.disp.add(delta);
+                b.attE += K1;
+            }
+        }
+    }
+
+    private static long run(Runnable kernel) {
+        for(int i = 0; i < ITERATIONS / 2; i++)
+            kernel.run();
+
+        long start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++)
+            kernel.run();
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static void report(String name, long nanosPerIteration, int springs) {
+        System.out.printf("%-14s %8.2f ms/step %6.2f ns/spring%n", name, nanosPerIteration / 1e6, (double) nanosPerIteration / springs);
+    }
+}
@@ -20,58 +20,173 @@ package network.aika.debugger;
 import javax.swing.*;
 import javax.swing.text.*;
 import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.util.ArrayDeque;
 import java.util.function.Consumer;
 
 public abstract class AbstractConsole extends JTextPane {
-    public AbstractConsole() {
-        addStylesToDocument(getStyledDocument());
-
-        setDoubleBuffered(false);
-    }
 
-    public void render(Consumer<StyledDocument> content) {
-        setOpaque(false);
-        DefaultStyledDocument sDoc = new DefaultStyledDocument();
-        addStylesToDocument(sDoc);
-        clear();
+    private static final StyleContext STYLES;
 
-        content.accept(sDoc);
-        setStyledDocument(sDoc);
-    }
-
-    public void addStylesToDocument(StyledDocument doc) {
+    static {
+        SharedStyles sc = new SharedStyles();
         Color green = new Color(0, 130, 0);
 
-        Style def = StyleContext.getDefaultStyleContext().
-                getStyle(StyleContext.DEFAULT_STYLE);
+        Style def = sc.getStyle(StyleContext.DEFAULT_STYLE);
         StyleConstants.setFontFamily(def, "SansSerif");
 
-        Style regular = doc.addStyle("regular", def);
+        Style regular = sc.addStyle("regular", def);
         StyleConstants.setFontSize(regular, 10);
 
-        Style regularGreen = doc.addStyle("regularGreen", def);
+        Style regularGreen = sc.addStyle("regularGreen", def);
         StyleConstants.setFontSize(regularGreen, 10);
         StyleConstants.setForeground(regularGreen, green);
 
-        Style s = doc.addStyle("italic", regular);
+        Style s = sc.addStyle("italic", regular);
         StyleConstants.setItalic(s, true);
 
-        s = doc.addStyle("bold", regular);
+        s = sc.addStyle("bold", regular);
         StyleConstants.setBold(s, true);
 
-        s = doc.addStyle("boldGreen", regular);
+        s = sc.addStyle("boldGreen", regular);
         StyleConstants.setBold(s, true);
         StyleConstants.setForeground(s, green);
 
-        s = doc.addStyle("small", regular);
+        s = sc.addStyle("small", regular);
         StyleConstants.setFontSize(s, 10);
 
-        s = doc.addStyle("headline", regular);
+        s = sc.addStyle("headline", regular);
         StyleConstants.setFontSize(s, 14);
+
+        sc.sealed = true;
+        STYLES = sc;
+    }
+
+    /**
+     * The styles are shared by the documents of all consoles, which are filled on several
+     * threads. Hence no styles can be added or removed, also not through a document, once
+     * they are set up.
+     */
+    private static class SharedStyles extends StyleContext {
+
+        private boolean sealed;
+
+        @Override
+        public Style addStyle(String nm, Style parent) {
+            checkNotSealed();
+            return super.addStyle(nm, parent);
+        }
+
+        @Override
+        public void removeStyle(String nm) {
+            checkNotSealed();
+            super.removeStyle(nm);
+        }
+
+        private void checkNotSealed() {
+            if(sealed)
+                throw new UnsupportedOperationException("The console styles are shared and cannot be changed");
+        }
+    }
+
+    private final Object pendingLock = new Object();
+    private Consumer<StyledDocument> pendingContent;
+
+    private static final int MAX_FREE_BUFFERS = 2;
+
+    private final Object renderLock = new Object();
+    // Documents that are neither shown nor about to be shown, hence may be filled by any thread.
+    private final ArrayDeque<DefaultStyledDocument> freeBuffers = new ArrayDeque<>();
+    private DefaultStyledDocument latestBuffer;
+
+    public AbstractConsole() {
+        setStyledDocument(new DefaultStyledDocument(STYLES));
+        freeBuffers.push(new DefaultStyledDocument(STYLES));
+
+        setOpaque(false);
+        setDoubleBuffered(false);
+
+        addHierarchyListener(e -> {
+            if((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing())
+                renderPending();
+        });
+    }
+
+    /**
+     * Only records what should be shown. The content is rendered right away if the console
+     * is currently showing, otherwise as soon as its tab or pane becomes visible.
+     */
+    public void renderLazily(Consumer<StyledDocument> content) {
+        synchronized (pendingLock) {
+            pendingContent = content;
+        }
+
+        if(isShowing())
+            renderPending();
+    }
+
+    public void renderPending() {
+        Consumer<StyledDocument> content;
+        synchronized (pendingLock) {
+            content = pendingContent;
+            pendingContent = null;
+        }
+
+        if(content != null)
+            render(content);
+    }
+
+    /**
+     * Renders into a detached buffer on the calling thread and then shows it on the event
+     * dispatch thread. The replaced document becomes free again, so that neither documents
+     * nor styles are allocated per call.
+     */
+    public void render(Consumer<StyledDocument> content) {
+        DefaultStyledDocument sDoc;
+        synchronized (renderLock) {
+            sDoc = freeBuffers.poll();
+        }
+
+        if(sDoc != null)
+            clear(sDoc);
+        else
+            sDoc = new DefaultStyledDocument(STYLES);
+
+        content.accept(sDoc);
+
+        synchronized (renderLock) {
+            latestBuffer = sDoc;
+        }
+
+        DefaultStyledDocument rendered = sDoc;
+        SwingUtilities.invokeLater(() -> show(rendered));
+    }
+
+    private void show(DefaultStyledDocument sDoc) {
+        DefaultStyledDocument replaced;
+        synchronized (renderLock) {
+            // A newer render is already waiting to be shown.
+            if(sDoc != latestBuffer) {
+                release(sDoc);
+                return;
+            }
+            latestBuffer = null;
+            replaced = (DefaultStyledDocument) getStyledDocument();
+        }
+
+        setStyledDocument(sDoc);
+
+        synchronized (renderLock) {
+            release(replaced);
+        }
+    }
+
+    private void release(DefaultStyledDocument sDoc) {
+        if(freeBuffers.size() < MAX_FREE_BUFFERS)
+            freeBuffers.push(sDoc);
     }
 
-    public void clear() {
-        StyledDocument sDoc = getStyledDocument();
+    private static void clear(StyledDocument sDoc) {
         try {
             sDoc.remove(0, sDoc.getLength());
         } catch (BadLocationException e) {
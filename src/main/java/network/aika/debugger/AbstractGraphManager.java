@@ -19,41 +19,124 @@ package network.aika.debugger;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
+import org.miv.pherd.geom.Point3;
 
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.Arrays;
 import java.util.function.Consumer;
 
+/**
+ * Maps the aika objects to the graph elements and their particles. The graph itself is only
+ * modified by a single thread, but the maps are also read from the Swing and layout threads,
+ * hence they are guarded: the node and edge maps by this manager, the particles by their map.
+ */
 public abstract class AbstractGraphManager<N, L, P extends AbstractParticle> {
 
+    /**
+     * Returned by {@link #parseNodeId(String)} for elements that do not represent an aika object.
+     */
+    public static final long NO_ID = -1;
+
+    /**
+     * Publishes the node positions in an {@link OffHeapNodeStore}, so that the Swing thread can
+     * read them without touching the particles of the layout.
+     */
+    public static boolean OFF_HEAP_STORE = false;
+
+    public interface PositionConsumer {
+        void accept(long keyId, double x, double y);
+    }
+
     private Graph graph;
-    private Map<String, N> nodeIdToAikaNode = new TreeMap<>();
-    private Map<Long, P> keyIdToParticle = new TreeMap<>();
+
+    private final OffHeapNodeStore nodeStore = OFF_HEAP_STORE ? new OffHeapNodeStore() : null;
+
+    // Positions of the current layout step, only touched by the layout thread.
+    private long[] movedIds = new long[0];
+    private double[] movedPositions = new double[0];
+    private int numMoved;
+
+    // Last position per node moved since the last drain, only collected while tracked.
+    private volatile boolean trackMoves;
+    private final LongObjectMap<double[]> movedSinceDrain = new LongObjectMap<>();
+
+    private final LongObjectMap<N> aikaNodes = new LongObjectMap<>();
+    private final LongObjectMap<Node> nodes = new LongObjectMap<>();
+    private final LongPairObjectMap<Edge> edges = new LongPairObjectMap<>();
+    private final LongObjectMap<P> particles = new LongObjectMap<>();
+
+    private final LabelIndex labelIndex = new LabelIndex();
 
     public AbstractGraphManager(Graph graph) {
         this.graph = graph;
     }
 
+    public Graph getGraph() {
+        return graph;
+    }
+
+    public LabelIndex getLabelIndex() {
+        return labelIndex;
+    }
+
+    /**
+     * The nodes are named by the decimal id of their aika object. Other elements, like sprites
+     * or the super-nodes of the level of detail, yield {@link #NO_ID}.
+     */
+    public static long parseNodeId(String nodeId) {
+        int length = nodeId.length();
+        if(length == 0)
+            return NO_ID;
+
+        for(int i = 0; i < length; i++) {
+            char c = nodeId.charAt(i);
+            if(c < '0' || c > '9')
+                return NO_ID;
+        }
+
+        if(length < 19) {
+            long id = 0;
+            for(int i = 0; i < length; i++)
+                id = id * 10 + (nodeId.charAt(i) - '0');
+            return id;
+        }
+
+        try {
+            return Long.parseLong(nodeId);
+        } catch (NumberFormatException e) {
+            return NO_ID;
+        }
+    }
+
     public N getAikaNode(Node n) {
-        return nodeIdToAikaNode.get(n.getId());
+        return getAikaNode(n.getId());
     }
 
     public N getAikaNode(String nodeId) {
-        return nodeIdToAikaNode.get(nodeId);
+        return getAikaNode(parseNodeId(nodeId));
+    }
+
+    public synchronized N getAikaNode(long keyId) {
+        return aikaNodes.get(keyId);
     }
 
     public N getInputKey(Edge e) {
-        return nodeIdToAikaNode.get(e.getId().substring(0, e.getId().indexOf("-")));
+        return getAikaNode(e.getSourceNode());
     }
 
     public N getOutputKey(Edge e) {
-        return nodeIdToAikaNode.get(e.getId().substring(e.getId().indexOf("-") + 1));
+        return getAikaNode(e.getTargetNode());
     }
 
-    protected abstract Long getAikaNodeId(N key);
+    protected abstract long getAikaNodeId(N key);
+
+    protected abstract String getLabel(N key);
 
     public P getParticle(Node n) {
-        return getParticle(Long.valueOf(n.getId()));
+        return getParticle(n.getId());
+    }
+
+    public P getParticle(String nodeId) {
+        return getParticle(parseNodeId(nodeId));
     }
 
     public P getParticle(N key) {
@@ -61,11 +144,19 @@ public abstract class AbstractGraphManager<N, L, P extends AbstractParticle> {
     }
 
     public P getParticle(long keyId) {
-        return keyIdToParticle.get(keyId);
+        synchronized (particles) {
+            return particles.get(keyId);
+        }
     }
 
     public void setParticle(N key, P particle) {
-        keyIdToParticle.put(getAikaNodeId(key), particle);
+        setParticle(getAikaNodeId(key), particle);
+    }
+
+    public void setParticle(long keyId, P particle) {
+        synchronized (particles) {
+            particles.put(keyId, particle);
+        }
     }
 
     public String getNodeId(N key) {
@@ -77,43 +168,273 @@ public abstract class AbstractGraphManager<N, L, P extends AbstractParticle> {
     }
 
     public Node lookupNode(N key, Consumer<Node> onCreate) {
-        String id = getNodeId(key);
-        Node node = graph.getNode(id);
+        return lookupNode(key, null, onCreate);
+    }
+
+    /**
+     * @param label the label to index a new node by. If null, it is taken from the key, which
+     *              is only safe as long as the aika object does not change concurrently.
+     */
+    public Node lookupNode(N key, String label, Consumer<Node> onCreate) {
+        long keyId = getAikaNodeId(key);
+        if(label == null && getNode(keyId) == null)
+            label = getLabel(key);
+
+        return lookupNode(keyId, key, label, onCreate);
+    }
+
+    /**
+     * Does not access the aika object, it is only kept as the key of the node.
+     */
+    public Node lookupNode(long keyId, N key, String label, Consumer<Node> onCreate) {
+        Node node = getNode(keyId);
 
         if (node == null) {
-            node = graph.addNode(id);
-            onCreate.accept(node);
+            String id = "" + keyId;
+            node = graph.getNode(id);
+
+            if (node == null) {
+                node = graph.addNode(id);
+                onCreate.accept(node);
+            }
+            synchronized (this) {
+                nodes.put(keyId, node);
+            }
+            labelIndex.add(keyId, label);
+
+            if(nodeStore != null) {
+                synchronized (nodeStore) {
+                    nodeStore.add(keyId);
+                }
+            }
         }
 
-        nodeIdToAikaNode.put(node.getId(), key);
+        synchronized (this) {
+            aikaNodes.put(keyId, key);
+        }
 
         return node;
     }
 
     public Node getNode(N key) {
-        String id = getNodeId(key);
-        return graph.getNode(id);
+        return getNode(getAikaNodeId(key));
     }
 
-    public Edge lookupEdge(N iKey, N oKey, Consumer<Node> onCreate) {
-        String edgeId = getEdgeId(iKey, oKey);
-        Edge edge = graph.getEdge(edgeId);
+    public synchronized Node getNode(long keyId) {
+        return nodes.get(keyId);
+    }
+
+    public void removeNode(N key) {
+        long keyId = getAikaNodeId(key);
+        Node node;
+        synchronized (this) {
+            node = nodes.remove(keyId);
+            if (node != null) {
+                node.edges().forEach(e ->
+                        edges.remove(getInputKeyId(e), getOutputKeyId(e))
+                );
+            }
+            aikaNodes.remove(keyId);
+        }
+
+        if (node != null)
+            graph.removeNode(node);
+
+        synchronized (particles) {
+            particles.remove(keyId);
+        }
+        labelIndex.remove(keyId);
+
+        if(nodeStore != null) {
+            synchronized (nodeStore) {
+                nodeStore.remove(keyId);
+            }
+        }
+    }
+
+    /**
+     * Removes all nodes and edges at once, the graph only sends a single event for it. Note that
+     * this also removes the attributes of the graph itself.
+     */
+    public void clear() {
+        if(nodeStore != null) {
+            synchronized (nodeStore) {
+                nodeStore.clear();
+            }
+        }
+
+        synchronized (this) {
+            aikaNodes.clear();
+            nodes.clear();
+            edges.clear();
+        }
+
+        graph.clear();
+
+        synchronized (particles) {
+            particles.clear();
+        }
+        synchronized (movedSinceDrain) {
+            movedSinceDrain.clear();
+        }
+        labelIndex.clear();
+    }
+
+    public OffHeapNodeStore getNodeStore() {
+        return nodeStore;
+    }
+
+    /**
+     * Lets {@link #drainMovedNodes(PositionConsumer)} report the nodes moved by the layout, so
+     * that a consumer does not have to poll the positions of all nodes.
+     */
+    public void setTrackMoves(boolean trackMoves) {
+        this.trackMoves = trackMoves;
+    }
+
+    /**
+     * Queues the position computed by the layout thread, the queued positions are published by
+     * {@link #flushPositions()}. Without a node store the particles are the only copy of the
+     * positions, hence nothing is queued unless the moves are tracked.
+     */
+    public void updatePosition(long keyId, double x, double y) {
+        if(nodeStore == null && !trackMoves)
+            return;
+
+        if(numMoved == movedIds.length) {
+            int capacity = Math.max(64, 2 * numMoved);
+            movedIds = Arrays.copyOf(movedIds, capacity);
+            movedPositions = Arrays.copyOf(movedPositions, 2 * capacity);
+        }
+        movedIds[numMoved] = keyId;
+        movedPositions[2 * numMoved] = x;
+        movedPositions[2 * numMoved + 1] = y;
+        numMoved++;
+    }
+
+    /**
+     * Writes the queued positions into the node store, the store is only locked once per layout
+     * step instead of once per moved node.
+     */
+    public void flushPositions() {
+        if(numMoved == 0)
+            return;
+
+        if(nodeStore != null) {
+            synchronized (nodeStore) {
+                for(int i = 0; i < numMoved; i++) {
+                    int slot = nodeStore.slotOf(movedIds[i]);
+                    if(slot >= 0)
+                        nodeStore.setPosition(slot, movedPositions[2 * i], movedPositions[2 * i + 1]);
+                }
+            }
+        }
+
+        if(trackMoves) {
+            synchronized (movedSinceDrain) {
+                for(int i = 0; i < numMoved; i++) {
+                    double[] pos = movedSinceDrain.get(movedIds[i]);
+                    if(pos == null) {
+                        pos = new double[2];
+                        movedSinceDrain.put(movedIds[i], pos);
+                    }
+                    pos[0] = movedPositions[2 * i];
+                    pos[1] = movedPositions[2 * i + 1];
+                }
+            }
+        }
+        numMoved = 0;
+    }
+
+    /**
+     * Hands the last position of every node moved since the previous call to the consumer.
+     */
+    public void drainMovedNodes(PositionConsumer consumer) {
+        synchronized (movedSinceDrain) {
+            movedSinceDrain.forEachEntry((pos, keyId) -> consumer.accept(keyId, pos[0], pos[1]));
+            movedSinceDrain.clear();
+        }
+    }
+
+    /**
+     * @return false if the layout has not positioned the node yet.
+     */
+    public boolean getPosition(long keyId, double[] pos) {
+        if(nodeStore != null) {
+            synchronized (nodeStore) {
+                int slot = nodeStore.slotOf(keyId);
+                if(slot < 0 || !nodeStore.hasPosition(slot))
+                    return false;
+
+                pos[0] = nodeStore.getX(slot);
+                pos[1] = nodeStore.getY(slot);
+            }
+            return true;
+        }
+
+        P p = getParticle(keyId);
+        if(p == null)
+            return false;
+
+        Point3 position = p.getPosition();
+        pos[0] = position.x;
+        pos[1] = position.y;
+        return true;
+    }
+
+    protected static long getInputKeyId(Edge e) {
+        return parseNodeId(e.getSourceNode().getId());
+    }
+
+    protected static long getOutputKeyId(Edge e) {
+        return parseNodeId(e.getTargetNode().getId());
+    }
+
+    public Edge lookupEdge(N iKey, N oKey, Consumer<Edge> onCreate) {
+        return lookupEdge(getAikaNodeId(iKey), getAikaNodeId(oKey), onCreate);
+    }
+
+    public Edge lookupEdge(long iKeyId, long oKeyId, Consumer<Edge> onCreate) {
+        Edge edge;
+        synchronized (this) {
+            edge = edges.get(iKeyId, oKeyId);
+        }
         if (edge == null) {
-            edge = graph.addEdge(edgeId, getNodeId(iKey), getNodeId(oKey), true);
+            String edgeId = iKeyId + "-" + oKeyId;
+            edge = graph.getEdge(edgeId);
+            if (edge == null) {
+                edge = graph.addEdge(edgeId, "" + iKeyId, "" + oKeyId, true);
+                onCreate.accept(edge);
+            }
+            synchronized (this) {
+                edges.put(iKeyId, oKeyId, edge);
+            }
         }
         return edge;
     }
 
     public Edge getEdge(N iKey, N oKey) {
-        String edgeId = getEdgeId(iKey, oKey);
-        return graph.getEdge(edgeId);
+        return getEdge(getAikaNodeId(iKey), getAikaNodeId(oKey));
+    }
+
+    public synchronized Edge getEdge(long iKeyId, long oKeyId) {
+        return edges.get(iKeyId, oKeyId);
+    }
+
+    public void removeEdge(N iKey, N oKey) {
+        Edge edge;
+        synchronized (this) {
+            edge = edges.remove(getAikaNodeId(iKey), getAikaNodeId(oKey));
+        }
+        if (edge != null)
+            graph.removeEdge(edge);
     }
 
     public Node getNode(String nodeId) {
         return graph.getNode(nodeId);
     }
 
-    public abstract Edge lookupEdge(L l, Consumer<Node> onCreate);
+    public abstract Edge lookupEdge(L l, Consumer<Edge> onCreate);
 
     public abstract Edge getEdge(L l);
 
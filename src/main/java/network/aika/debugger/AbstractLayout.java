@@ -20,8 +20,17 @@ import network.aika.debugger.activations.ActivationGraphManager;
 import network.aika.debugger.activations.ActivationParticle;
 import network.aika.debugger.activations.ActivationViewManager;
 import network.aika.neuron.activation.Activation;
+import org.graphstream.graph.Graph;
+import org.graphstream.stream.Sink;
 import org.graphstream.ui.layout.springbox.NodeParticle;
 import org.graphstream.ui.layout.springbox.implementations.SpringBox;
+import org.miv.pherd.ParticleBox;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 
 public abstract class AbstractLayout<G extends AbstractGraphManager> extends SpringBox {
@@ -35,10 +44,91 @@ public abstract class AbstractLayout<G extends AbstractGraphManager> extends Spr
     public static double STANDARD_DISTANCE_X = 0.2f;
     public static double STANDARD_DISTANCE_Y = 0.2f;
 
+    /**
+     * Computes the particle displacements on the common fork-join pool before each step.
+     */
+    public static boolean PARALLEL_FORCES = false;
+
+    /**
+     * Computes the x-only repulsion with the sorted 1-D kernel instead of the generic n-tree.
+     */
+    public static boolean ONE_D_REPULSION = true;
+
+    /**
+     * Gathers the particle state into {@link ForceArrays} and computes the forces on these
+     * columns, for the layouts that support it (see {@link #getArrayAttraction()}).
+     */
+    public static boolean STRUCT_OF_ARRAYS_FORCES = false;
+
+    public enum ArrayAttraction {
+        /**
+         * Only the repulsion runs on the force arrays, the attraction on the particle objects.
+         */
+        NONE,
+        /**
+         * The layered attraction of the activation layout, see {@link AttractionKernel}.
+         */
+        LAYERED
+    }
+
+    /**
+     * Freezes particles whose displacement stayed below FREEZE_DISPLACEMENT * k for
+     * FREEZE_STEPS steps. A change to the graph only reactivates the particles within
+     * WAKE_HOPS links of it, so that the cost per event does not grow with the graph.
+     */
+    public static boolean INCREMENTAL_LAYOUT = true;
+    public static double FREEZE_DISPLACEMENT = 0.0005;
+    public static int FREEZE_STEPS = 50;
+    public static int WAKE_HOPS = 2;
+
+    public static int PARALLEL_THRESHOLD = 2048;
+    public static int PARALLEL_CHUNK_SIZE = 256;
+
+    /**
+     * The layout counts as stable once no particle moved further than this fraction of k
+     * for CONVERGENCE_STEPS steps and the energies stopped changing.
+     */
+    public static double CONVERGENCE_MOVE = 0.001;
+    public static int CONVERGENCE_STEPS = 20;
+    public static double CONVERGENCE_STABILIZATION = 0.9;
+
+    /**
+     * After a wake up the layout runs at least this long, since the graph events reach the
+     * layout thread only with the next pump of the viewer.
+     */
+    public static long MIN_RUN_MILLIS = 1000;
+
+    /**
+     * Graph events notify an idle layout right away, the wait is only bounded so that the
+     * layout runner notices its release.
+     */
+    public static long IDLE_WAIT_MILLIS = 500;
+
     protected G graphManager;
 
+    private int computeStep;
+
+    private final RepulsionKernel1D repulsionKernel = new RepulsionKernel1D();
+
+    private final ForceArrays forceArrays = new ForceArrays();
+    private final ActiveParticles activeParticles = new ActiveParticles();
+    private AttractionKernel attractionKernel;
+
+    private final Object stateLock = new Object();
+    private volatile LayoutState state = LayoutState.RUNNING;
+    private final List<Consumer<LayoutState>> stateListeners = new CopyOnWriteArrayList<>();
+    private boolean wakeRequested;
+    private volatile boolean eventPending;
+    private boolean suspended;
+    private long runUntil;
+    private int quietSteps;
+    private double maxMove;
+
     public AbstractLayout(G gm) {
         this.graphManager = gm;
+
+        // The layout runner should always call compute, the convergence is checked there.
+        setStabilizationLimit(0.0);
     }
 
     @Override
@@ -46,18 +136,426 @@ public abstract class AbstractLayout<G extends AbstractGraphManager> extends Spr
         return "AikaLayout";
     }
 
+    public int getComputeStep() {
+        return computeStep;
+    }
+
+    ActiveParticles getActiveParticles() {
+        return activeParticles;
+    }
+
+    public int getNumberOfActiveParticles() {
+        return activeParticles.getActive().size();
+    }
+
+    /**
+     * @return how the attraction of this layout is computed on the force arrays, or null if
+     * the layout has to use the particle objects.
+     */
+    protected ArrayAttraction getArrayAttraction() {
+        return null;
+    }
+
+    protected double getAttractionK1() {
+        return 0.0;
+    }
+
+    public LayoutState getState() {
+        return state;
+    }
+
+    public void addStateListener(Consumer<LayoutState> listener) {
+        stateListeners.add(listener);
+    }
+
+    /**
+     * Resumes a stable layout, e.g. after the graph has been changed or a node has been dragged.
+     */
+    public void wake() {
+        synchronized (stateLock) {
+            wakeRequested = true;
+            stateLock.notifyAll();
+        }
+    }
+
+    public void setSuspended(boolean suspended) {
+        synchronized (stateLock) {
+            this.suspended = suspended;
+            if(suspended)
+                setState(LayoutState.SUSPENDED);
+            else
+                wakeRequested = true;
+
+            stateLock.notifyAll();
+        }
+    }
+
+    /**
+     * Wakes the layout whenever nodes or edges are added to or removed from the given graph,
+     * or their layout attributes change. Other events only let an idle layout runner pump
+     * its pipe. Has to be called after the runner has been started, so that its pipe already
+     * holds an event when the runner is notified of it.
+     */
+    public void wakeOnGraphEvents(Graph graph) {
+        graph.addSink(new GraphEventSink());
+    }
+
+    private void signalEvent() {
+        if(eventPending)
+            return;
+
+        synchronized (stateLock) {
+            eventPending = true;
+            stateLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void compute() {
+        if(!awaitWork())
+            return;
+
+        computeStep++;
+        maxMove = 0.0;
+
+        if(PARALLEL_FORCES || ONE_D_REPULSION || STRUCT_OF_ARRAYS_FORCES)
+            precomputeForces();
+
+        super.compute();
+
+        graphManager.flushPositions();
+        checkConvergence();
+    }
+
+    /**
+     * Blocks the layout thread while the layout is stable or suspended. Returns early if graph
+     * events are pending, so that the layout runner pumps them into the layout.
+     */
+    private boolean awaitWork() {
+        synchronized (stateLock) {
+            if(wakeRequested) {
+                wakeRequested = false;
+                quietSteps = 0;
+                runUntil = System.currentTimeMillis() + MIN_RUN_MILLIS;
+                if(!suspended)
+                    setState(LayoutState.RUNNING);
+            }
+
+            if(!suspended && state != LayoutState.STABLE) {
+                setState(LayoutState.RUNNING);
+                return true;
+            }
+
+            if(!eventPending) {
+                try {
+                    stateLock.wait(IDLE_WAIT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            eventPending = false;
+            return false;
+        }
+    }
+
+    private void checkConvergence() {
+        if(maxMove < CONVERGENCE_MOVE * k && getStabilization() >= CONVERGENCE_STABILIZATION)
+            quietSteps++;
+        else
+            quietSteps = 0;
+
+        if(quietSteps < CONVERGENCE_STEPS)
+            return;
+
+        synchronized (stateLock) {
+            if(!wakeRequested && !suspended && System.currentTimeMillis() >= runUntil)
+                setState(LayoutState.STABLE);
+        }
+    }
+
+    private void setState(LayoutState s) {
+        if(state == s)
+            return;
+
+        state = s;
+        stateListeners.forEach(l -> l.accept(s));
+    }
+
+    /**
+     * The displacements only depend on the positions of the previous step, so they can be
+     * computed concurrently. The serial step then just applies them to the particles. Only
+     * the active particles are visited, the dormant ones are just sources of repulsion.
+     */
+    private void precomputeForces() {
+        if(!INCREMENTAL_LAYOUT && activeParticles.getNumberOfDormant() > 0)
+            activeParticles.activateAll();
+
+        List<AbstractParticle> particles = activeParticles.getActive();
+
+        boolean parallel = PARALLEL_FORCES && particles.size() >= PARALLEL_THRESHOLD;
+        ArrayAttraction arrayAttraction = STRUCT_OF_ARRAYS_FORCES ? getArrayAttraction() : null;
+        if(!parallel && !ONE_D_REPULSION && arrayAttraction == null)
+            return;
+
+        ForceArrays arrays = null;
+        if(arrayAttraction != null)
+            arrays = gatherForceArrays(particles, arrayAttraction);
+
+        RepulsionKernel1D kernel = null;
+        if(ONE_D_REPULSION || arrays != null) {
+            // Might move the pending particles into the dormant kernel.
+            RepulsionKernel1D dormantKernel = activeParticles.getDormantKernel();
+            List<AbstractParticle> pending = activeParticles.getPending();
+
+            kernel = repulsionKernel;
+            kernel.resize(particles.size() + pending.size());
+            for(int i = 0; i < particles.size(); i++) {
+                AbstractParticle p = particles.get(i);
+                kernel.set(i, p.getPosition().x, p.getRepulsionWeight(), true);
+            }
+            for(int i = 0; i < pending.size(); i++) {
+                AbstractParticle p = pending.get(i);
+                kernel.set(particles.size() + i, p.getPosition().x, p.getRepulsionWeight(), false);
+            }
+            kernel.compute(k, getBarnesHutTheta(), parallel);
+            kernel.addRepulsionFrom(dormantKernel, k, getBarnesHutTheta(), parallel);
+        }
+
+        ForceArrays attraction = arrayAttraction == ArrayAttraction.LAYERED ? arrays : null;
+        ForceTask task = new ForceTask(particles, 0, particles.size(), computeStep, viewZone < 0, kernel, attraction);
+        if(parallel)
+            ForkJoinPool.commonPool().invoke(task);
+        else
+            task.computeSerially();
+    }
+
+    /**
+     * The active particles take the first indices, followed by the dormant particles they are
+     * connected to.
+     */
+    private ForceArrays gatherForceArrays(List<AbstractParticle> particles, ArrayAttraction arrayAttraction) {
+        ForceArrays arrays = forceArrays;
+        arrays.resize(0);
+        for(AbstractParticle p: particles)
+            p.addToForceArrays(arrays, computeStep);
+
+        if(arrayAttraction == ArrayAttraction.LAYERED) {
+            for(AbstractParticle p: particles)
+                p.collectSprings(arrays, computeStep);
+
+            if(attractionKernel == null)
+                attractionKernel = AttractionKernel.create();
+            attractionKernel.computeLayered(arrays, STANDARD_DISTANCE_Y, getAttractionK1());
+        }
+        return arrays;
+    }
+
+    private static class ForceTask extends RecursiveAction {
+
+        private final List<AbstractParticle> particles;
+        private final int from;
+        private final int to;
+        private final int step;
+        private final boolean repulsionN2;
+        private final RepulsionKernel1D kernel;
+        private final ForceArrays arrays;
+
+        ForceTask(List<AbstractParticle> particles, int from, int to, int step, boolean repulsionN2, RepulsionKernel1D kernel, ForceArrays arrays) {
+            this.particles = particles;
+            this.from = from;
+            this.to = to;
+            this.step = step;
+            this.repulsionN2 = repulsionN2;
+            this.kernel = kernel;
+            this.arrays = arrays;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= PARALLEL_CHUNK_SIZE) {
+                computeSerially();
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(
+                    new ForceTask(particles, from, mid, step, repulsionN2, kernel, arrays),
+                    new ForceTask(particles, mid, to, step, repulsionN2, kernel, arrays)
+            );
+        }
+
+        void computeSerially() {
+            for(int i = from; i < to; i++)
+                particles.get(i).precomputeForces(step, repulsionN2, kernel, arrays, i);
+        }
+    }
+
     @Override
     protected void chooseNodePosition(NodeParticle n0, NodeParticle n1) {
   //      super.chooseNodePosition(n0, n1);
 
     }
 
+    @Override
+    public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId, boolean directed) {
+        super.edgeAdded(sourceId, timeId, edgeId, fromNodeId, toNodeId, directed);
+
+        ParticleBox nodes = getSpatialIndex();
+        AbstractParticle from = (AbstractParticle) nodes.getParticle(fromNodeId);
+        AbstractParticle to = (AbstractParticle) nodes.getParticle(toNodeId);
+
+        // Restored positions already reflect the edges between restored particles.
+        if(from != null && to != null && from.isRestored() && to.isRestored())
+            return;
+
+        activateNeighbourhood(fromNodeId);
+        activateNeighbourhood(toNodeId);
+    }
+
+    @Override
+    public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+        AbstractParticle p = (AbstractParticle) getSpatialIndex().getParticle(nodeId);
+        if(p != null) {
+            p.activateNeighbours(WAKE_HOPS);
+            activeParticles.remove(p);
+        }
+
+        super.nodeRemoved(sourceId, timeId, nodeId);
+    }
+
+    @Override
+    public void graphCleared(String sourceId, long timeId) {
+        super.graphCleared(sourceId, timeId);
+
+        activeParticles.clear();
+    }
+
+    @Override
+    public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+        super.nodeAttributeAdded(sourceId, timeId, nodeId, attribute, value);
+
+        if(isPositionAttribute(attribute))
+            activateNeighbourhood(nodeId);
+    }
+
+    @Override
+    public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute, Object oldValue, Object newValue) {
+        super.nodeAttributeChanged(sourceId, timeId, nodeId, attribute, oldValue, newValue);
+
+        if(isPositionAttribute(attribute))
+            activateNeighbourhood(nodeId);
+    }
+
+    private static boolean isLayoutAttribute(String attribute) {
+        return attribute.startsWith("layout.") || isPositionAttribute(attribute);
+    }
+
+    private static boolean isPositionAttribute(String attribute) {
+        return attribute.equals("xyz") || attribute.equals("xy") || attribute.equals("x") || attribute.equals("y") || attribute.equals("layout.frozen");
+    }
+
+    private void activateNeighbourhood(String nodeId) {
+        AbstractParticle p = (AbstractParticle) getSpatialIndex().getParticle(nodeId);
+        if(p != null)
+            p.activateNeighbourhood(WAKE_HOPS);
+    }
+
     public void particleMoved(Object id, double x, double y, double z) {
         super.particleMoved(id, x, y, z);
 
-        AbstractParticle ap = graphManager.getParticle(graphManager.getAikaNode((String)id));
+        graphManager.updatePosition(AbstractGraphManager.parseNodeId((String) id), x, y);
+    }
+
+    /**
+     * Called by the particles with the displacement of the current step.
+     */
+    void recordMove(double len) {
+        if(len > maxMove)
+            maxMove = len;
+    }
+
+    private class GraphEventSink implements Sink {
+
+        @Override
+        public void nodeAdded(String sourceId, long timeId, String nodeId) {
+            wake();
+        }
+
+        @Override
+        public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+            wake();
+        }
+
+        @Override
+        public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId, boolean directed) {
+            wake();
+        }
+
+        @Override
+        public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+            wake();
+        }
+
+        @Override
+        public void graphCleared(String sourceId, long timeId) {
+            wake();
+        }
+
+        @Override
+        public void stepBegins(String sourceId, long timeId, double step) {
+            signalEvent();
+        }
+
+        @Override
+        public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+            signalEvent();
+        }
+
+        @Override
+        public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue, Object newValue) {
+            signalEvent();
+        }
+
+        @Override
+        public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+            signalEvent();
+        }
+
+        @Override
+        public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+            attributeEvent(attribute);
+        }
+
+        @Override
+        public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute, Object oldValue, Object newValue) {
+            attributeEvent(attribute);
+        }
+
+        @Override
+        public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+            attributeEvent(attribute);
+        }
+
+        @Override
+        public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+            attributeEvent(attribute);
+        }
+
+        @Override
+        public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute, Object oldValue, Object newValue) {
+            attributeEvent(attribute);
+        }
+
+        @Override
+        public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+            attributeEvent(attribute);
+        }
 
-        ap.x = x;
-        ap.y = y;
+        private void attributeEvent(String attribute) {
+            if(isLayoutAttribute(attribute))
+                wake();
+            else
+                signalEvent();
+        }
     }
 }
@@ -34,22 +34,227 @@ public abstract class AbstractParticle extends SpringBoxNodeParticle {
 
     public static double K1Attr = 0.0001;
 
-    public double x;
-    public double y;
-
     /**
      * Default repulsion.
      */
     protected double K2 = 0.000005f; // 0.12 ??
 
+    private final Vector3 precomputedDisp = new Vector3();
+    private final Vector3 precomputeDelta = new Vector3();
+    private double precomputedRepE;
+    private double precomputedAttE;
+    private int precomputedStep = -1;
+
+    private int forceIndex;
+    private int forceStep = -1;
+
+    int activityState = ActiveParticles.NONE;
+    int activityIndex;
+
+    private boolean bufferEnergy;
+    private double energyBuffer;
+
+    private int quietSteps;
+    private boolean restored;
+
 
     public AbstractParticle(AbstractLayout layout, String id, double x, double y, double z) {
         super(layout, id, x, y, z);
+
+        layout.getActiveParticles().add(this);
+    }
+
+
+    /**
+     * Runs the repulsion and attraction of this particle ahead of the serial layout step,
+     * possibly on a worker thread. Only this particle's displacement is written, and the
+     * energy is buffered locally, so that particles can be processed concurrently.
+     */
+    public void precomputeForces(int step, boolean repulsionN2, RepulsionKernel1D kernel, ForceArrays arrays, int index) {
+        Vector3 delta = precomputeDelta;
+
+        disp.fill(0);
+        repE = 0;
+        attE = 0;
+        energyBuffer = 0.0;
+        bufferEnergy = true;
+
+        if(kernel != null) {
+            double factor = K2 * kernel.getEnergy(index);
+            disp.set(
+                    K2 * kernel.getDisplacement(index),
+                    arrays != null ? arrays.getDisplacementY(index) : 0.0,
+                    0.0
+            );
+            repE += factor;
+            energyBuffer += factor;
+        } else if(repulsionN2) {
+            computeRepulsionN2(delta);
+        } else {
+            computeRepulsionNLogN(delta);
+        }
+
+        if(arrays != null) {
+            double e = arrays.getAttractionEnergy(index);
+            attE += e;
+            energyBuffer += e;
+        } else {
+            computeAttraction(delta);
+        }
+
+        bufferEnergy = false;
+
+        precomputedDisp.copy(disp);
+        precomputedRepE = repE;
+        precomputedAttE = attE;
+        precomputedStep = step;
+    }
+
+    /**
+     * A dormant particle is still a source of repulsion for the others, but is not moved
+     * itself until a change in its neighbourhood reactivates it.
+     */
+    public boolean isDormant() {
+        return AbstractLayout.INCREMENTAL_LAYOUT && quietSteps >= AbstractLayout.FREEZE_STEPS;
+    }
+
+    /**
+     * Marks a particle whose position has been restored from an earlier layout. It stays
+     * dormant until a change that does not only involve restored particles reaches it.
+     */
+    public void restore() {
+        restored = true;
+        quietSteps = AbstractLayout.FREEZE_STEPS;
+        if(isDormant())
+            getLayout().getActiveParticles().deactivate(this);
+    }
+
+    public boolean isRestored() {
+        return restored;
+    }
+
+    public void activateNeighbourhood(int hops) {
+        quietSteps = 0;
+        restored = false;
+        getLayout().getActiveParticles().activate(this);
+        activateNeighbours(hops);
+    }
+
+    void activateNeighbours(int hops) {
+        if(hops <= 0)
+            return;
+
+        for (EdgeSpring edge : neighbours)
+            ((AbstractParticle) edge.getOpposite(this)).activateNeighbourhood(hops - 1);
+    }
+
+    @Override
+    public void move(int time) {
+        if(isDormant()) {
+            disp.fill(0);
+            repE = 0;
+            attE = 0;
+            return;
+        }
+
+        super.move(time);
+
+        double len = disp.length();
+        getLayout().recordMove(len);
+
+        if(len < AbstractLayout.FREEZE_DISPLACEMENT * AbstractLayout.k)
+            quietSteps++;
+        else
+            quietSteps = 0;
+
+        if(isDormant())
+            getLayout().getActiveParticles().deactivate(this);
     }
 
+    public double getRepulsionWeight() {
+        return weight;
+    }
+
+    /**
+     * Adds this particle to the force arrays of the given step, unless it is already there.
+     *
+     * @return the index of this particle in the force arrays.
+     */
+    int addToForceArrays(ForceArrays arrays, int step) {
+        if(forceStep != step) {
+            forceStep = step;
+            forceIndex = arrays.add(pos.x, pos.y, getRepulsionWeight());
+        }
+        return forceIndex;
+    }
+
+    /**
+     * Adds the springs of this active particle, so that every spring is added once. Dormant
+     * particles at the other end are added to the arrays behind the active ones.
+     */
+    void collectSprings(ForceArrays arrays, int step) {
+        for (EdgeSpring edge : neighbours) {
+            if(edge.ignored)
+                continue;
+
+            AbstractParticle other = (AbstractParticle) edge.getOpposite(this);
+            if(!other.isDormant() && edge.node0 != this)
+                continue;
+
+            arrays.addSpring(
+                    ((AbstractParticle) edge.node0).addToForceArrays(arrays, step),
+                    ((AbstractParticle) edge.node1).addToForceArrays(arrays, step)
+            );
+        }
+    }
+
+    private AbstractLayout getLayout() {
+        return (AbstractLayout) box;
+    }
+
+    private boolean isPrecomputed() {
+        return precomputedStep == ((AbstractLayout) box).getComputeStep();
+    }
+
+    private boolean applyPrecomputedForces() {
+        if(!isPrecomputed())
+            return false;
+
+        disp.add(precomputedDisp);
+        repE = precomputedRepE;
+        attE = precomputedAttE;
+        ((AbstractLayout) box).getEnergies().accumulateEnergy(energyBuffer);
+        return true;
+    }
+
+    protected void accumulateEnergy(Energies energies, double value) {
+        if(bufferEnergy)
+            energyBuffer += value;
+        else
+            energies.accumulateEnergy(value);
+    }
 
     @Override
     protected void repulsionN2(Vector3 delta) {
+        if(!applyPrecomputedForces())
+            computeRepulsionN2(delta);
+    }
+
+    @Override
+    protected void repulsionNLogN(Vector3 delta) {
+        if(!applyPrecomputedForces())
+            computeRepulsionNLogN(delta);
+    }
+
+    @Override
+    protected void attraction(Vector3 delta) {
+        if(!isPrecomputed())
+            computeAttraction(delta);
+    }
+
+    protected abstract void computeAttraction(Vector3 delta);
+
+    protected void computeRepulsionN2(Vector3 delta) {
         AbstractLayout box = (AbstractLayout) this.box;
         boolean is3D = box.is3D();
         ParticleBox nodes = box.getSpatialIndex();
@@ -72,7 +277,7 @@ public abstract class AbstractParticle extends SpringBoxNodeParticle {
 
                     double factor = ((K2 / (len * len)) * node.weight);
 
-                    energies.accumulateEnergy(factor); // TODO check this
+                    accumulateEnergy(energies, factor); // TODO check this
                     delta.scalarMult(-factor);
                     disp.add(delta);
                 }
@@ -80,8 +285,7 @@ public abstract class AbstractParticle extends SpringBoxNodeParticle {
         }
     }
 
-    @Override
-    protected void repulsionNLogN(Vector3 delta) {
+    protected void computeRepulsionNLogN(Vector3 delta) {
         // Explore the n-tree from the root cell and consider the contents
         // of one cell only if it does intersect an area around the current
         // node. Else take its (weighted) barycenter into account.
@@ -113,7 +317,7 @@ public abstract class AbstractParticle extends SpringBoxNodeParticle {
                                 len = box.k; // XXX NEW To prevent infinite
                             // repulsion.
                             double factor = ((K2 / (len * len)) * node.weight);
-                            energies.accumulateEnergy(factor); // TODO check
+                            accumulateEnergy(energies, factor); // TODO check
                             // this
                             repE += factor;
                             delta.scalarMult(-factor);
@@ -151,7 +355,7 @@ public abstract class AbstractParticle extends SpringBoxNodeParticle {
                                 len = box.k; // XXX NEW To prevent infinite
                             // repulsion.
                             double factor = ((K2 / (len * len)) * (bary.weight));
-                            energies.accumulateEnergy(factor);
+                            accumulateEnergy(energies, factor);
                             delta.scalarMult(-factor);
                             repE += factor;
 
@@ -178,6 +382,6 @@ public abstract class AbstractParticle extends SpringBoxNodeParticle {
 
         disp.add(delta);
         attE += factor;
-        energies.accumulateEnergy(factor);
+        accumulateEnergy(energies, factor);
     }
 }
@@ -22,13 +22,14 @@ import network.aika.neuron.excitatory.*;
 import network.aika.neuron.inhibitory.InhibitoryNeuron;
 import network.aika.neuron.inhibitory.InhibitorySynapse;
 import network.aika.neuron.inhibitory.PrimaryInhibitorySynapse;
-import org.graphstream.graph.Edge;
 import org.graphstream.graph.Element;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.SingleGraph;
 import org.graphstream.stream.thread.ThreadProxyPipe;
+import org.graphstream.ui.geom.Point3;
 import org.graphstream.ui.graphicGraph.GraphicElement;
+import org.graphstream.ui.graphicGraph.GraphicNode;
 import org.graphstream.ui.swing.SwingGraphRenderer;
 import org.graphstream.ui.swing_viewer.DefaultView;
 import org.graphstream.ui.swing_viewer.SwingViewer;
@@ -39,6 +40,8 @@ import org.graphstream.ui.view.ViewerPipe;
 import org.graphstream.ui.view.camera.Camera;
 
 import javax.swing.*;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.BiConsumer;
@@ -46,8 +49,64 @@ import java.util.function.Consumer;
 
 public abstract class AbstractViewManager<C extends AbstractConsole, G extends AbstractGraphManager> implements ViewerListener {
 
+    public static final String STYLESHEET =
+            "node {" +
+                    "size: 20px;" +
+//                  "fill-color: #777;" +
+//                  "text-mode: hidden;" +
+                    "z-index: 1;" +
+//                  "shadow-mode: gradient-radial; shadow-width: 2px; shadow-color: #999, white; shadow-offset: 3px, -3px;" +
+                    "stroke-mode: plain; " +
+                    "stroke-width: 2px;" +
+                    "text-size: 20px;" +
+                    "text-alignment: under;" +
+                    "text-color: black;" +
+                    "text-style: bold;" +
+                    "text-background-mode: rounded-box;" +
+                    "text-background-color: rgba(100, 100, 100, 100); " +
+                    "text-padding: 2px;" +
+                    "text-offset: 0px, 2px;" +
+                    "} " +
+                    "node:selected {" +
+                    "stroke-color: red; " +
+                    "stroke-width: 4px;" +
+                    "} " +
+                    "edge {" +
+                    "size: 2px;" +
+                    "shape: cubic-curve;" +
+                    "z-index: 0;" +
+                    "arrow-size: 8px, 5px;" +
+                    "text-size: 20px;" +
+                    "text-alignment: under;" +
+                    "text-color: black;" +
+                    "text-style: bold;" +
+                    "text-background-mode: rounded-box;" +
+                    "text-background-color: rgba(100, 100, 100, 100); " +
+                    "text-padding: 2px;" +
+                    "text-offset: 0px, 2px;" +
+                    "} " +
+                    "edge:selected {" +
+                    "stroke-mode: plain; " +
+                    "fill-color: red;" +
+                    "stroke-width: 3px;" +
+                    "} " +
+                    "sprite {" +
+                    "shape: circle;" +
+                    "z-index: 1;" +
+                    "stroke-mode: plain; " +
+                    "stroke-width: 2px;" +
+                    "text-size: 14px;" +
+                    "text-alignment: center;" +
+                    "text-style: bold;" +
+                    "}";
+
+    /**
+     * How often the camera state is copied for the threads other than the Swing thread.
+     */
+    public static int CAMERA_UPDATE_MILLIS = 100;
+
     protected Map<Class<? extends Neuron>, Consumer<Node>> neuronTypeModifiers = new HashMap<>();
-    protected Map<Class<? extends Synapse>, BiConsumer<Edge, Synapse>> synapseTypeModifiers = new HashMap<>();
+    protected Map<Class<? extends Synapse>, BiConsumer<AttributeWriter, Synapse>> synapseTypeModifiers = new HashMap<>();
 
     protected Graph graph;
 
@@ -67,10 +126,24 @@ public abstract class AbstractViewManager<C extends AbstractConsole, G extends A
 
     protected Element lastHighlighted;
 
+    protected GraphMutationBatcher mutations;
+
+    protected AbstractLayout layout;
+
+    private JLabel layoutStateLabel;
+
+    private GraphicNode searchResult;
+
+    private Timer cameraTimer;
+
+    private volatile double pixelsPerGU;
+    private volatile double[] viewportGU;
+
     public AbstractViewManager(){
-        initModifiers();
+        initModifiers(neuronTypeModifiers, synapseTypeModifiers);
 
         graph = initGraph();
+        mutations = new GraphMutationBatcher(graph);
         viewer = new SwingViewer(new ThreadProxyPipe(graph));
 
         graphView = (DefaultView)viewer.addDefaultView(false, new SwingGraphRenderer());
@@ -84,6 +157,9 @@ public abstract class AbstractViewManager<C extends AbstractConsole, G extends A
 
         camera.setAutoFitView(false);
 
+        cameraTimer = new Timer(CAMERA_UPDATE_MILLIS, e -> updateCameraState());
+        cameraTimer.start();
+
 
         // The default action when closing the view is to quit
         // the program.
@@ -98,10 +174,75 @@ public abstract class AbstractViewManager<C extends AbstractConsole, G extends A
         fromViewer.addSink(graph);
     }
 
+    /**
+     * Stops polling the camera. Called when the view is closed.
+     */
+    public void close() {
+        cameraTimer.stop();
+    }
+
     public G getGraphManager() {
         return graphManager;
     }
 
+    /**
+     * Starts the layout thread. The layout sleeps while the graph is stable or the view is not
+     * showing and is woken up by graph mutations and node drags.
+     */
+    protected void enableAutoLayout(AbstractLayout layout) {
+        this.layout = layout;
+
+        layoutStateLabel = new JLabel();
+        updateLayoutStateLabel(layout.getState());
+        layout.addStateListener(s ->
+                SwingUtilities.invokeLater(() -> updateLayoutStateLabel(s))
+        );
+
+        layout.setSuspended(!graphView.isShowing());
+        graphView.addHierarchyListener(e -> {
+            if((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0)
+                layout.setSuspended(!graphView.isShowing());
+        });
+
+        viewer.enableAutoLayout(layout);
+        layout.wakeOnGraphEvents(graph);
+    }
+
+    private void updateLayoutStateLabel(LayoutState s) {
+        layoutStateLabel.setText("Layout: " + s.name().toLowerCase());
+    }
+
+    /**
+     * Centers the camera on the given node and highlights it. Like the mouse selection, only
+     * the graphic graph of the viewer is modified.
+     */
+    public void jumpTo(long keyId) {
+        GraphicNode gn = (GraphicNode) viewer.getGraphicGraph().getNode("" + keyId);
+        if(gn == null)
+            return;
+
+        double[] pos = new double[2];
+        if(!graphManager.getPosition(keyId, pos)) {
+            pos[0] = gn.getX();
+            pos[1] = gn.getY();
+        }
+        getCamera().setViewCenter(pos[0], pos[1], 0);
+
+        if(searchResult != null)
+            searchResult.removeAttribute("ui.selected");
+        gn.setAttribute("ui.selected");
+        searchResult = gn;
+    }
+
+    public LayoutState getLayoutState() {
+        return layout != null ? layout.getState() : null;
+    }
+
+    public void wakeLayout() {
+        if(layout != null)
+            layout.wake();
+    }
+
     public abstract void showElementContext(GraphicElement ge);
 
     public Graph getGraph() {
@@ -112,6 +253,48 @@ public abstract class AbstractViewManager<C extends AbstractConsole, G extends A
         return graphView.getCamera();
     }
 
+    /**
+     * The camera may only be read on the Swing thread.
+     */
+    private void updateCameraState() {
+        pixelsPerGU = getCamera().getMetrics().ratioPx2Gu;
+        viewportGU = computeViewportGU();
+    }
+
+    /**
+     * @return the zoom level of the camera as last seen on the Swing thread, 0 before that.
+     */
+    public double getPixelsPerGU() {
+        return pixelsPerGU;
+    }
+
+    /**
+     * @return a copy of minX, minY, maxX and maxY of the visible area in graph units, as last
+     * seen on the Swing thread, or null as long as the view has no size.
+     */
+    public double[] getViewportGU() {
+        double[] viewport = viewportGU;
+        return viewport != null ? viewport.clone() : null;
+    }
+
+    private double[] computeViewportGU() {
+        int w = graphView.getWidth();
+        int h = graphView.getHeight();
+        if(w <= 0 || h <= 0)
+            return null;
+
+        Camera camera = getCamera();
+        Point3 p0 = camera.transformPxToGu(0, 0);
+        Point3 p1 = camera.transformPxToGu(w, h);
+
+        return new double[] {
+                Math.min(p0.x, p1.x),
+                Math.min(p0.y, p1.y),
+                Math.max(p0.x, p1.x),
+                Math.max(p0.y, p1.y)
+        };
+    }
+
     public JSplitPane getView() {
         return splitPane;
     }
@@ -125,7 +308,7 @@ public abstract class AbstractViewManager<C extends AbstractConsole, G extends A
     }
 
     protected JSplitPane initSplitPane() {
-        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, graphView, getConsolePane());
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, getGraphPane(), getConsolePane());
         splitPane.setOneTouchExpandable(true);
         splitPane.setResizeWeight(0.7);
         splitPane.setDoubleBuffered(false);
@@ -133,96 +316,97 @@ public abstract class AbstractViewManager<C extends AbstractConsole, G extends A
         return splitPane;
     }
 
+    private JComponent getGraphPane() {
+        JPanel graphPane = new JPanel(new BorderLayout());
+        graphPane.add(new LabelSearchPanel(this), BorderLayout.NORTH);
+        graphPane.add(graphView, BorderLayout.CENTER);
+        if(layoutStateLabel != null)
+            graphPane.add(layoutStateLabel, BorderLayout.SOUTH);
+        return graphPane;
+    }
+
     public abstract JComponent getConsolePane();
 
+    protected static JScrollPane getScrollPane(Component c) {
+        JScrollPane scrollPane = new JScrollPane(c);
+        scrollPane.setVerticalScrollBarPolicy(
+                JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+        scrollPane.setPreferredSize(new Dimension(250, 155));
+        scrollPane.setMinimumSize(new Dimension(10, 10));
+        return scrollPane;
+    }
+
     private Graph initGraph() {
         //        System.setProperty("org.graphstream.ui", "org.graphstream.ui.swing.util.Display");
 
         Graph graph = new SingleGraph("0");
 
-        graph.setAttribute("ui.stylesheet",
-                "node {" +
-                        "size: 20px;" +
-//                  "fill-color: #777;" +
-//                  "text-mode: hidden;" +
-                        "z-index: 1;" +
-//                  "shadow-mode: gradient-radial; shadow-width: 2px; shadow-color: #999, white; shadow-offset: 3px, -3px;" +
-                        "stroke-mode: plain; " +
-                        "stroke-width: 2px;" +
-                        "text-size: 20px;" +
-                        "text-alignment: under;" +
-                        "text-color: black;" +
-                        "text-style: bold;" +
-                        "text-background-mode: rounded-box;" +
-                        "text-background-color: rgba(100, 100, 100, 100); " +
-                        "text-padding: 2px;" +
-                        "text-offset: 0px, 2px;" +
-                        "} " +
-                        "node:selected {" +
-                        "stroke-color: red; " +
-                        "stroke-width: 4px;" +
-                        "} " +
-                        "edge {" +
-                        "size: 2px;" +
-                        "shape: cubic-curve;" +
-                        "z-index: 0;" +
-                        "arrow-size: 8px, 5px;" +
-                        "text-size: 20px;" +
-                        "text-alignment: under;" +
-                        "text-color: black;" +
-                        "text-style: bold;" +
-                        "text-background-mode: rounded-box;" +
-                        "text-background-color: rgba(100, 100, 100, 100); " +
-                        "text-padding: 2px;" +
-                        "text-offset: 0px, 2px;" +
-                        "} " +
-                        "edge:selected {" +
-                        "stroke-mode: plain; " +
-                        "fill-color: red;" +
-                        "stroke-width: 3px;" +
-                        "}"
-        );
-
-        graph.setAttribute("ui.antialias");
+        initGraphAttributes(graph);
         graph.setAutoCreate(true);
 
         return graph;
     }
 
-    protected void initModifiers() {
+    private static void initGraphAttributes(Graph graph) {
+        graph.setAttribute("ui.stylesheet", STYLESHEET);
+
+        graph.setAttribute("ui.antialias");
+    }
+
+    /**
+     * Removes all elements with a single graph event instead of one per node and edge.
+     */
+    protected void clearGraph() {
+        graphManager.clear();
+        initGraphAttributes(graph);
+        lastHighlighted = null;
+    }
+
+    /**
+     * Fills in the styles of the neuron and synapse types, also used by the headless export.
+     */
+    public static void initModifiers(Map<Class<? extends Neuron>, Consumer<Node>> neuronTypeModifiers, Map<Class<? extends Synapse>, BiConsumer<AttributeWriter, Synapse>> synapseTypeModifiers) {
         neuronTypeModifiers.put(PatternNeuron.class, n -> n.setAttribute("ui.style", "fill-color: rgb(0,130,0);"));
         neuronTypeModifiers.put(BindingNeuron.class, n -> n.setAttribute("ui.style", "fill-color: rgb(0,205,0);"));
         neuronTypeModifiers.put(InhibitoryNeuron.class, n -> n.setAttribute("ui.style", "fill-color: rgb(100,100,255);"));
 
         synapseTypeModifiers.put(InputBNSynapse.class, (e, s) -> e.setAttribute("ui.style", "fill-color: rgb(50,200,50);"));
         synapseTypeModifiers.put(NegativeBNSynapse.class, (e, s) -> e.setAttribute("ui.style", "fill-color: rgb(175,0,0);"));
-        synapseTypeModifiers.put(SameBNSynapse.class, (e, s) -> {
-            SameBNSynapse pps = (SameBNSynapse) s;
-            if(pps.isRecurrent()) {
-                e.setAttribute("ui.style", "fill-color: rgb(104,34,139);");
-            } else {
-                e.setAttribute("ui.style", "fill-color: rgb(20,170,20);");
-            }
-        });
+        synapseTypeModifiers.put(SameBNSynapse.class, (e, s) -> applySameBNStyle(e, ((SameBNSynapse) s).isRecurrent()));
         synapseTypeModifiers.put(InhibitorySynapse.class, (e, s) -> e.setAttribute("ui.style", "fill-color: rgb(50,50,150);"));
         synapseTypeModifiers.put(PrimaryInhibitorySynapse.class, (e, s) -> e.setAttribute("ui.style", "fill-color: rgb(0,00,100);"));
         synapseTypeModifiers.put(PatternSynapse.class, (e, s) -> e.setAttribute("ui.style", "fill-color: rgb(0,130,0);"));
     }
 
+    public static void applySameBNStyle(AttributeWriter e, boolean isRecurrent) {
+        if(isRecurrent) {
+            e.setAttribute("ui.style", "fill-color: rgb(104,34,139);");
+        } else {
+            e.setAttribute("ui.style", "fill-color: rgb(20,170,20);");
+        }
+    }
+
+    public GraphMutationBatcher getMutations() {
+        return mutations;
+    }
 
     public void pump() {
+        mutations.flush();
         fromViewer.pump();
         // fromViewer.blockingPump();
     }
 
+    public void pumpIfFrameDue() {
+        if(mutations.isFrameDue())
+            pump();
+    }
+
     public void unhighlightElement(Element ge) {
-        ge.removeAttribute("ui.selected");
-        fromViewer.pump();
+        mutations.removeAttribute(ge, "ui.selected");
     }
 
     public void highlightElement(Element ge) {
-        ge.setAttribute("ui.selected");
-        fromViewer.pump();
+        mutations.setAttribute(ge, "ui.selected");
     }
 
     public void viewClosed(String id) {
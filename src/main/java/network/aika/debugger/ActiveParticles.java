@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of the active particles of a layout, so that a step only has to visit these.
+ * Dormant particles still repel the active ones. They are kept in a source kernel that is
+ * only rebuilt once as many particles have become dormant as there are active ones. Until
+ * then the newly dormant particles are pending and join the active ones as sources.
+ */
+class ActiveParticles {
+
+    static final int NONE = 0;
+    static final int ACTIVE = 1;
+    static final int PENDING = 2;
+    static final int DORMANT = 3;
+
+    static int MIN_PENDING = 64;
+
+    private final List<AbstractParticle> active = new ArrayList<>();
+    private final List<AbstractParticle> pending = new ArrayList<>();
+
+    private AbstractParticle[] dormant = new AbstractParticle[0];
+    private int dormantSize;
+    private final RepulsionKernel1D dormantKernel = new RepulsionKernel1D();
+
+    public List<AbstractParticle> getActive() {
+        return active;
+    }
+
+    public List<AbstractParticle> getPending() {
+        return pending;
+    }
+
+    public int getNumberOfDormant() {
+        return pending.size() + dormantSize;
+    }
+
+    /**
+     * @return the dormant particles that are not pending, rebuilt first if enough particles
+     * have become dormant since the last step.
+     */
+    public RepulsionKernel1D getDormantKernel() {
+        if(pending.size() > Math.max(MIN_PENDING, active.size()))
+            rebuildDormantKernel();
+
+        return dormantKernel;
+    }
+
+    public void add(AbstractParticle p) {
+        if(p.isDormant())
+            addTo(pending, p, PENDING);
+        else
+            addTo(active, p, ACTIVE);
+    }
+
+    public void remove(AbstractParticle p) {
+        switch (p.activityState) {
+            case ACTIVE -> removeFrom(active, p);
+            case PENDING -> removeFrom(pending, p);
+            case DORMANT -> removeDormant(p);
+        }
+        p.activityState = NONE;
+    }
+
+    public void activate(AbstractParticle p) {
+        if(p.activityState == NONE || p.activityState == ACTIVE)
+            return;
+
+        remove(p);
+        addTo(active, p, ACTIVE);
+    }
+
+    public void deactivate(AbstractParticle p) {
+        if(p.activityState != ACTIVE)
+            return;
+
+        remove(p);
+        addTo(pending, p, PENDING);
+    }
+
+    /**
+     * Used if the incremental layout has been switched off.
+     */
+    public void activateAll() {
+        while(!pending.isEmpty())
+            activate(pending.get(pending.size() - 1));
+
+        for(int i = 0; i < dormant.length; i++) {
+            if(dormant[i] != null)
+                activate(dormant[i]);
+        }
+    }
+
+    public void clear() {
+        active.forEach(p -> p.activityState = NONE);
+        pending.forEach(p -> p.activityState = NONE);
+        for(AbstractParticle p: dormant) {
+            if(p != null)
+                p.activityState = NONE;
+        }
+
+        active.clear();
+        pending.clear();
+        dormant = new AbstractParticle[0];
+        dormantSize = 0;
+        dormantKernel.resize(0);
+    }
+
+    private void rebuildDormantKernel() {
+        AbstractParticle[] particles = new AbstractParticle[dormantSize + pending.size()];
+        int n = 0;
+        for(AbstractParticle p: dormant) {
+            if(p != null)
+                particles[n++] = p;
+        }
+        for(AbstractParticle p: pending)
+            particles[n++] = p;
+        pending.clear();
+
+        dormantKernel.resize(n);
+        for(int i = 0; i < n; i++) {
+            AbstractParticle p = particles[i];
+            p.activityState = DORMANT;
+            p.activityIndex = i;
+            dormantKernel.set(i, p.getPosition().x, p.getRepulsionWeight(), false);
+        }
+        dormantKernel.buildSources();
+
+        dormant = particles;
+        dormantSize = n;
+    }
+
+    private void removeDormant(AbstractParticle p) {
+        dormant[p.activityIndex] = null;
+        dormantSize--;
+        dormantKernel.removeSource(p.activityIndex);
+    }
+
+    private static void addTo(List<AbstractParticle> list, AbstractParticle p, int state) {
+        p.activityState = state;
+        p.activityIndex = list.size();
+        list.add(p);
+    }
+
+    /**
+     * Moves the last particle into the gap, the order of the particles does not matter.
+     */
+    private static void removeFrom(List<AbstractParticle> list, AbstractParticle p) {
+        AbstractParticle last = list.remove(list.size() - 1);
+        if(last != p) {
+            list.set(p.activityIndex, last);
+            last.activityIndex = p.activityIndex;
+        }
+    }
+}
@@ -17,6 +17,8 @@
 package network.aika.debugger;
 
 import network.aika.Model;
+import network.aika.debugger.replay.ReplayViewManager;
+import network.aika.debugger.replay.TraceReplay;
 import network.aika.debugger.scopes.ScopesViewManager;
 import network.aika.text.Document;
 import network.aika.debugger.activations.ActivationViewManager;
@@ -26,6 +28,9 @@ import network.aika.debugger.neurons.templates.TemplateViewManager;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Supplier;
 
 public class AikaDebugger extends JPanel {
 
@@ -38,6 +43,7 @@ public class AikaDebugger extends JPanel {
     NeuronViewManager neuronViewManager;
     TemplateViewManager templateViewManager;
     ScopesViewManager scopesViewManager;
+    ReplayViewManager replayViewManager;
 
     KeyManager keyManager;
 
@@ -47,27 +53,31 @@ public class AikaDebugger extends JPanel {
     final static Integer SCOPES_TAB_INDEX = 3;
 
     public AikaDebugger(Document doc,Model model) {
+        this(doc, model, null);
+    }
+
+    /**
+     * @param layoutCacheDir directory in which the positions of the neuron layout are
+     *                       persisted, usually the one of the model. May be null.
+     */
+    public AikaDebugger(Document doc, Model model, Path layoutCacheDir) {
         super(new GridLayout(1, 1));
 
         this.doc = doc;
         this.model=model;
 
-        tabbedPane = new JTabbedPane();
-//        ImageIcon icon = createImageIcon("images/middle.gif");
-
-        //Add the tabbed pane to this panel.
-        add(tabbedPane);
-
-        //The following line enables to use scrolling tabs.
-        tabbedPane.setTabLayoutPolicy(JTabbedPane.SCROLL_TAB_LAYOUT);
-
-        tabbedPane.setFocusCycleRoot(true);
+        initTabbedPane();
 
         actViewManager = new ActivationViewManager(doc);
         neuronViewManager = new NeuronViewManager(model, doc);
+        neuronViewManager.setStepManager(actViewManager.getStepManager());
         templateViewManager = new TemplateViewManager(model);
         scopesViewManager = new ScopesViewManager(model);
+        scopesViewManager.recordVisitors(doc);
 
+        if(layoutCacheDir != null) {
+            neuronViewManager.setPositionCache(layoutCacheDir.resolve("neurons.layout"));
+        }
 
         keyManager = new KeyManager(actViewManager);
 
@@ -88,13 +98,66 @@ public class AikaDebugger extends JPanel {
         });
     }
 
+    public AikaDebugger(TraceReplay replay) {
+        super(new GridLayout(1, 1));
+
+        initTabbedPane();
+
+        replayViewManager = new ReplayViewManager(replay);
+
+        addTab(ACTIVATION_TAB_INDEX, "Activations", KeyEvent.VK_A, replayViewManager.getView());
+    }
+
+    private void initTabbedPane() {
+        tabbedPane = new JTabbedPane();
+//        ImageIcon icon = createImageIcon("images/middle.gif");
+
+        //Add the tabbed pane to this panel.
+        add(tabbedPane);
+
+        //The following line enables to use scrolling tabs.
+        tabbedPane.setTabLayoutPolicy(JTabbedPane.SCROLL_TAB_LAYOUT);
+
+        tabbedPane.setFocusCycleRoot(true);
+    }
+
     public void addTab(int tabIndex, String label, int ke, JComponent panel) {
         tabbedPane.addTab(label, null, panel,
                 "Does nothing");
         tabbedPane.setMnemonicAt(tabIndex, ke);
     }
 
+    /**
+     * Releases the resources of the views, like their camera timers and the file of the neuron
+     * position cache.
+     */
+    public void close() {
+        if(actViewManager != null)
+            actViewManager.close();
+        if(neuronViewManager != null)
+            neuronViewManager.close();
+        if(templateViewManager != null)
+            templateViewManager.close();
+        if(scopesViewManager != null)
+            scopesViewManager.close();
+        if(replayViewManager != null)
+            replayViewManager.close();
+    }
+
     public static void createAndShowGUI(Document doc, Model model) {
+        showFrame(() -> new AikaDebugger(doc,model));
+    }
+
+    public static void createAndShowGUI(Document doc, Model model, Path layoutCacheDir) {
+        showFrame(() -> new AikaDebugger(doc, model, layoutCacheDir));
+    }
+
+    public static void createAndShowGUI(Path tracePath) throws IOException {
+        TraceReplay replay = new TraceReplay(tracePath);
+        showFrame(() -> new AikaDebugger(replay));
+    }
+
+    private static void showFrame(Supplier<AikaDebugger> debugger) {
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (ClassNotFoundException e) {
@@ -112,7 +175,14 @@ public class AikaDebugger extends JPanel {
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
         //Add content to the window.
-        frame.add(new AikaDebugger(doc,model), BorderLayout.CENTER);
+        AikaDebugger content = debugger.get();
+        frame.add(content, BorderLayout.CENTER);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                content.close();
+            }
+        });
         frame.setVisible(true);
         frame.setExtendedState(frame.getExtendedState() | JFrame.MAXIMIZED_BOTH);
     }
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger;
+
+/**
+ * Layered attraction on the force arrays: every spring pulls its output at least
+ * {@code distanceY} below its input, see {@link network.aika.debugger.activations.ActivationParticle}.
+ * The per-spring forces are computed by the subclasses and then scattered to both endpoints.
+ */
+public abstract class AttractionKernel {
+
+    public static final String VECTOR_MODULE = "jdk.incubator.vector";
+    public static final String VECTOR_KERNEL = "network.aika.debugger.VectorAttractionKernel";
+
+    /**
+     * Uses the Vector API implementation if it is available, otherwise the scalar one.
+     */
+    public static AttractionKernel create() {
+        AttractionKernel kernel = createVectorKernel();
+        return kernel != null ? kernel : new ScalarAttractionKernel();
+    }
+
+    /**
+     * The Vector API kernel is only built with the maven profile "vector" and needs the
+     * incubator module in the module graph ({@code --add-modules jdk.incubator.vector}),
+     * hence it is loaded by name.
+     *
+     * @return null if the kernel is not available.
+     */
+    public static AttractionKernel createVectorKernel() {
+        if(ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty())
+            return null;
+
+        try {
+            return (AttractionKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public void computeLayered(ForceArrays a, double distanceY, double k1) {
+        computeSpringForces(a, distanceY, k1);
+
+        for(int s = 0; s < a.springs; s++) {
+            int in = a.springIn[s];
+            int out = a.springOut[s];
+            double f = a.springForce[s];
+
+            a.dispY[out] += f;
+            a.dispY[in] -= f;
+            a.attractionEnergy[in] += k1;
+            a.attractionEnergy[out] += k1;
+        }
+    }
+
+    protected abstract void computeSpringForces(ForceArrays a, double distanceY, double k1);
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays copy of the particle state of one layout step. Positions, weights,
+ * displacements and springs are held in contiguous primitive columns, so that the force
+ * kernels can run tight loops without touching the particle objects.
+ */
+public class ForceArrays {
+
+    private int size;
+
+    double[] x = new double[0];
+    double[] y = new double[0];
+    double[] weight = new double[0];
+    double[] dispY = new double[0];
+    double[] attractionEnergy = new double[0];
+
+    int springs;
+    int[] springIn = new int[0];
+    int[] springOut = new int[0];
+    double[] springForce = new double[0];
+
+    public void resize(int size) {
+        this.size = size;
+        if(x.length < size) {
+            int capacity = Math.max(size, 2 * x.length);
+            x = new double[capacity];
+            y = new double[capacity];
+            weight = new double[capacity];
+            dispY = new double[capacity];
+            attractionEnergy = new double[capacity];
+        }
+        springs = 0;
+    }
+
+    /**
+     * Appends a particle, keeping the particles that have already been set.
+     *
+     * @return the index of the particle.
+     */
+    public int add(double x, double y, double weight) {
+        if(size == this.x.length) {
+            int capacity = Math.max(64, 2 * size);
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.weight = Arrays.copyOf(this.weight, capacity);
+            dispY = Arrays.copyOf(dispY, capacity);
+            attractionEnergy = Arrays.copyOf(attractionEnergy, capacity);
+        }
+        set(size, x, y, weight);
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void set(int i, double x, double y, double weight) {
+        this.x[i] = x;
+        this.y[i] = y;
+        this.weight[i] = weight;
+        dispY[i] = 0.0;
+        attractionEnergy[i] = 0.0;
+    }
+
+    public void addSpring(int in, int out) {
+        if(springs == springIn.length) {
+            int capacity = Math.max(64, 2 * springs);
+            springIn = Arrays.copyOf(springIn, capacity);
+            springOut = Arrays.copyOf(springOut, capacity);
+            springForce = new double[capacity];
+        }
+        springIn[springs] = in;
+        springOut[springs] = out;
+        springs++;
+    }
+
+    public int getNumberOfSprings() {
+        return springs;
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getWeight(int i) {
+        return weight[i];
+    }
+
+    public double getDisplacementY(int i) {
+        return dispY[i];
+    }
+
+    public double getAttractionEnergy(int i) {
+        return attractionEnergy[i];
+    }
+}
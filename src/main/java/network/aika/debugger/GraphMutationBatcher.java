@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Collects attribute changes of graph elements and applies them once per render frame. Only the
+ * last value per element and attribute is kept, and values equal to the current state of the
+ * element are dropped, so that toggles within a frame never reach the viewer pipe.
+ *
+ * Nodes and edges themselves are still added and removed right away, together with the
+ * attributes they are created with. The graph managers, the layout and the culling look them up
+ * by id as soon as the event that created them has been applied.
+ *
+ * Mutations may be recorded from several threads. A flush swaps the buffer under the lock and
+ * applies the collected changes outside of it, so recording threads are only blocked for the swap.
+ * Concurrent flushes are applied one after the other.
+ */
+public class GraphMutationBatcher {
+
+    public static final long DEFAULT_FRAME_NANOS = 1_000_000_000L / 60;
+
+    private static final Object REMOVED = new Object();
+
+    private final Graph graph;
+    private final long frameNanos;
+
+    private final Object flushLock = new Object();
+
+    private Map<Element, Map<String, Object>> pending = new LinkedHashMap<>();
+
+    private volatile long lastFlush = System.nanoTime();
+
+    public GraphMutationBatcher(Graph graph) {
+        this(graph, DEFAULT_FRAME_NANOS);
+    }
+
+    public GraphMutationBatcher(Graph graph, long frameNanos) {
+        this.graph = graph;
+        this.frameNanos = frameNanos;
+    }
+
+    public void setAttribute(Element e, String attribute, Object... values) {
+        Object value = values.length == 0 ? Boolean.TRUE : (values.length == 1 ? values[0] : values);
+        put(e, attribute, value);
+    }
+
+    /**
+     * @return a writer that records the attribute changes of the given element in this batch.
+     */
+    public AttributeWriter writerFor(Element e) {
+        return (attribute, values) -> setAttribute(e, attribute, values);
+    }
+
+    public void removeAttribute(Element e, String attribute) {
+        put(e, attribute, REMOVED);
+    }
+
+    private synchronized void put(Element e, String attribute, Object value) {
+        pending.computeIfAbsent(e, k -> new HashMap<>())
+                .put(attribute, value);
+    }
+
+    public synchronized boolean hasPendingMutations() {
+        return !pending.isEmpty();
+    }
+
+    public boolean isFrameDue() {
+        return System.nanoTime() - lastFlush >= frameNanos;
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            flushBatch();
+        }
+    }
+
+    private void flushBatch() {
+        lastFlush = System.nanoTime();
+
+        Map<Element, Map<String, Object>> batch;
+        synchronized (this) {
+            if(pending.isEmpty())
+                return;
+
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+
+        for(Map.Entry<Element, Map<String, Object>> me: batch.entrySet()) {
+            Element e = me.getKey();
+            if(!isInGraph(e))
+                continue;
+
+            for(Map.Entry<String, Object> ae: me.getValue().entrySet()) {
+                String attribute = ae.getKey();
+                Object value = ae.getValue();
+                Object current = e.getAttribute(attribute);
+
+                if(value == REMOVED) {
+                    if(current != null)
+                        e.removeAttribute(attribute);
+                } else if(!valueEquals(current, value)) {
+                    e.setAttribute(attribute, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Multi-valued attributes like "xyz" are stored as arrays, which are compared by content.
+     */
+    private static boolean valueEquals(Object current, Object value) {
+        if(current instanceof Object[] && value instanceof Object[])
+            return Arrays.deepEquals((Object[]) current, (Object[]) value);
+
+        return Objects.equals(current, value);
+    }
+
+    private boolean isInGraph(Element e) {
+        if(e instanceof Node)
+            return graph.getNode(e.getId()) == e;
+        if(e instanceof Edge)
+            return graph.getEdge(e.getId()) == e;
+        return true;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger;
+
+import java.util.*;
+
+/**
+ * Case insensitive prefix and substring search over the labels of the elements of a graph.
+ * Prefix queries use a sorted map, substring queries intersect trigram postings and verify
+ * the candidates. Updates and queries may happen on different threads.
+ */
+public class LabelIndex {
+
+    private final LongObjectMap<String> labels = new LongObjectMap<>();
+    private final LongObjectMap<String> keys = new LongObjectMap<>();
+    private final TreeMap<String, List<Long>> sorted = new TreeMap<>();
+
+    private final Map<Long, Set<Long>> trigrams = new HashMap<>();
+
+    public synchronized void add(long id, String label) {
+        if(label == null)
+            return;
+
+        String key = label.toLowerCase();
+        labels.put(id, label);
+        String old = keys.put(id, key);
+        if(key.equals(old))
+            return;
+
+        if(old != null)
+            removeKey(id, old);
+
+        sorted.computeIfAbsent(key, k -> new ArrayList<>(1)).add(id);
+        for(int i = 0; i + 3 <= key.length(); i++)
+            trigrams.computeIfAbsent(trigram(key, i), t -> new HashSet<>()).add(id);
+    }
+
+    public synchronized void clear() {
+        labels.clear();
+        keys.clear();
+        sorted.clear();
+        trigrams.clear();
+    }
+
+    public synchronized void remove(long id) {
+        labels.remove(id);
+        String old = keys.remove(id);
+        if(old != null)
+            removeKey(id, old);
+    }
+
+    private void removeKey(long id, String key) {
+        List<Long> ids = sorted.get(key);
+        if(ids != null) {
+            ids.remove(Long.valueOf(id));
+            if(ids.isEmpty())
+                sorted.remove(key);
+        }
+
+        for(int i = 0; i + 3 <= key.length(); i++) {
+            long t = trigram(key, i);
+            Set<Long> postings = trigrams.get(t);
+            if(postings != null) {
+                postings.remove(id);
+                if(postings.isEmpty())
+                    trigrams.remove(t);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return labels.size();
+    }
+
+    /**
+     * @return the number of entries of all trigram postings.
+     */
+    synchronized int getPostingsSize() {
+        int size = 0;
+        for(Set<Long> postings: trigrams.values())
+            size += postings.size();
+        return size;
+    }
+
+    public synchronized String getLabel(long id) {
+        return labels.get(id);
+    }
+
+    /**
+     * @return the ids of the matching elements, labels starting with the query first.
+     */
+    public synchronized List<Long> search(String query, int limit) {
+        String q = query.toLowerCase();
+        LinkedHashSet<Long> result = new LinkedHashSet<>();
+        if(q.isEmpty())
+            return new ArrayList<>();
+
+        for(List<Long> ids: sorted.subMap(q, q + Character.MAX_VALUE).values()) {
+            for(Long id: ids) {
+                result.add(id);
+                if(result.size() >= limit)
+                    return new ArrayList<>(result);
+            }
+        }
+
+        if(q.length() < 3) {
+            keys.forEachEntry((key, id) -> {
+                if(result.size() < limit && key.contains(q))
+                    result.add(id);
+            });
+            return new ArrayList<>(result);
+        }
+
+        // The elements containing all trigrams of the query, starting with the shortest postings.
+        List<Set<Long>> postings = new ArrayList<>();
+        for(int i = 0; i + 3 <= q.length(); i++) {
+            Set<Long> p = trigrams.get(trigram(q, i));
+            if(p == null)
+                return new ArrayList<>(result);
+            postings.add(p);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        List<Long> candidates = new ArrayList<>();
+        for(Long id: postings.get(0)) {
+            boolean all = true;
+            for(int i = 1; all && i < postings.size(); i++)
+                all = postings.get(i).contains(id);
+            if(all)
+                candidates.add(id);
+        }
+        candidates.sort(null);
+
+        // The trigrams may occur in a different order or apart from each other.
+        for(Long id: candidates) {
+            String key = keys.get(id);
+            if(key.contains(q)) {
+                result.add(id);
+                if(result.size() >= limit)
+                    break;
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+}
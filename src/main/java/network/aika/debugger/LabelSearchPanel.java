@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Search field above the graph. Matching labels are offered in a popup, choosing one (or
+ * pressing enter for the first) centers the camera on the element and highlights it.
+ */
+public class LabelSearchPanel extends JPanel {
+
+    public static int MAX_RESULTS = 20;
+
+    private final AbstractViewManager<?, ?> viewManager;
+
+    private final JTextField field = new JTextField(20);
+    private final JPopupMenu results = new JPopupMenu();
+
+    public LabelSearchPanel(AbstractViewManager<?, ?> viewManager) {
+        super(new FlowLayout(FlowLayout.LEFT));
+        this.viewManager = viewManager;
+
+        results.setFocusable(false);
+
+        add(new JLabel("Search:"));
+        add(field);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                updateResults();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                updateResults();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                updateResults();
+            }
+        });
+
+        field.addActionListener(e -> {
+            List<Long> ids = search();
+            if(!ids.isEmpty())
+                jumpTo(ids.get(0));
+        });
+    }
+
+    private List<Long> search() {
+        return viewManager.getGraphManager()
+                .getLabelIndex()
+                .search(field.getText().trim(), MAX_RESULTS);
+    }
+
+    private void updateResults() {
+        results.setVisible(false);
+        results.removeAll();
+
+        LabelIndex index = viewManager.getGraphManager().getLabelIndex();
+        for(Long id: search()) {
+            JMenuItem item = new JMenuItem(index.getLabel(id));
+            item.addActionListener(e -> jumpTo(id));
+            results.add(item);
+        }
+
+        if(results.getComponentCount() > 0 && field.isShowing())
+            results.show(field, 0, field.getHeight());
+    }
+
+    private void jumpTo(long id) {
+        results.setVisible(false);
+        viewManager.jumpTo(id);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash map keyed by a pair of primitive longs, like the endpoints of an edge.
+ * Both longs are stored, so that ids of any width map to distinct entries. Null values are not
+ * supported, since an empty slot is marked by a null value.
+ */
+public class LongPairObjectMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final double MAX_LOAD_FACTOR = 0.5;
+
+    private long[] firstKeys;
+    private long[] secondKeys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public LongPairObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongPairObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / MAX_LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        firstKeys = new long[capacity];
+        secondKeys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * MAX_LOAD_FACTOR);
+    }
+
+    private static int hash(long first, long second) {
+        long h = (first * 0x9E3779B97F4A7C15L) ^ (second * 0xC2B2AE3D27D4EB4FL);
+        h ^= h >>> 29;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int indexOf(long first, long second) {
+        int i = hash(first, second) & mask;
+        while (values[i] != null) {
+            if (firstKeys[i] == first && secondKeys[i] == second)
+                return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long first, long second) {
+        int i = indexOf(first, second);
+        return i >= 0 ? (V) values[i] : null;
+    }
+
+    public boolean containsKey(long first, long second) {
+        return indexOf(first, second) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long first, long second, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Null values are not supported");
+
+        int i = hash(first, second) & mask;
+        while (values[i] != null) {
+            if (firstKeys[i] == first && secondKeys[i] == second) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+
+        firstKeys[i] = first;
+        secondKeys[i] = second;
+        values[i] = value;
+
+        if (++size > resizeThreshold)
+            resize(values.length << 1);
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long first, long second) {
+        int i = indexOf(first, second);
+        if (i < 0)
+            return null;
+
+        V old = (V) values[i];
+        values[i] = null;
+        size--;
+
+        // Backward shift deletion, so that no tombstones are needed.
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == null)
+                break;
+
+            int home = hash(firstKeys[j], secondKeys[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                firstKeys[i] = firstKeys[j];
+                secondKeys[i] = secondKeys[j];
+                values[i] = values[j];
+                values[j] = null;
+                i = j;
+            }
+        }
+        return old;
+    }
+
+    private void resize(int capacity) {
+        long[] oldFirstKeys = firstKeys;
+        long[] oldSecondKeys = secondKeys;
+        Object[] oldValues = values;
+
+        allocate(capacity);
+        size = 0;
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null)
+                putNew(oldFirstKeys[i], oldSecondKeys[i], oldValues[i]);
+        }
+    }
+
+    private void putNew(long first, long second, Object value) {
+        int i = hash(first, second) & mask;
+        while (values[i] != null)
+            i = (i + 1) & mask;
+
+        firstKeys[i] = first;
+        secondKeys[i] = second;
+        values[i] = value;
+        size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<V> action) {
+        for (Object v : values) {
+            if (v != null)
+                action.accept((V) v);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -22,6 +22,7 @@ import org.graphstream.ui.geom.Point3;
 import org.graphstream.ui.graphicGraph.GraphicEdge;
 import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.GraphicNode;
 import org.graphstream.ui.view.View;
 import org.graphstream.ui.view.camera.Camera;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
@@ -82,6 +83,7 @@ public class MouseManager implements MouseInputListener, org.graphstream.ui.view
 
     protected void elementMoving(GraphicElement element, MouseEvent event) {
         this.view.moveElementAtPx(element, event.getX(), event.getY());
+        viewManager.wakeLayout();
     }
 
     protected void mouseButtonReleaseOffElement(GraphicElement element, MouseEvent event) {
@@ -134,8 +136,13 @@ public class MouseManager implements MouseInputListener, org.graphstream.ui.view
     }
 
     private double[] getCoords(Node n) {
-        AbstractParticle ap = viewManager.graphManager.getParticle(n);
-        return new double[] { ap.x, ap.y };
+        double[] pos = new double[2];
+        if(!viewManager.graphManager.getPosition(AbstractGraphManager.parseNodeId(n.getId()), pos)) {
+            GraphicNode gn = (GraphicNode) n;
+            pos[0] = gn.getX();
+            pos[1] = gn.getY();
+        }
+        return pos;
     }
 
     private boolean edgeSelected(Edge e, Point3 p) {
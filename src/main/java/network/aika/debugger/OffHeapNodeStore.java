@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Node positions kept outside of the Java heap in direct buffer columns: the id, the position
+ * and a flag, about 33 bytes per node plus the id index. Nodes are addressed by dense slots;
+ * the slot of a removed node is reused by the next node added.
+ * <p>
+ * Not thread-safe for writes. Concurrent reads of positions may observe a torn update of
+ * x and y, which is acceptable for rendering purposes.
+ */
+public class OffHeapNodeStore {
+
+    public static final byte FLAG_POSITIONED = 1;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private int size;
+    private int slots;
+    private int capacity;
+
+    private ByteBuffer ids;
+    private ByteBuffer xs;
+    private ByteBuffer ys;
+    private ByteBuffer flags;
+
+    private int[] freeSlots = new int[16];
+    private int numFreeSlots;
+
+    // Open addressing index from id to slot + 1, zero marks an empty entry.
+    private ByteBuffer indexKeys;
+    private ByteBuffer indexSlots;
+    private int indexMask;
+
+    public OffHeapNodeStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public OffHeapNodeStore(int expectedSize) {
+        capacity = Math.max(16, expectedSize);
+        ids = allocate(capacity * Long.BYTES);
+        xs = allocate(capacity * Double.BYTES);
+        ys = allocate(capacity * Double.BYTES);
+        flags = allocate(capacity);
+
+        allocateIndex(Integer.highestOneBit(capacity - 1) << 2);
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private static ByteBuffer grow(ByteBuffer from) {
+        ByteBuffer to = allocate(from.capacity() * 2);
+        to.put(0, from, 0, from.capacity());
+        return to;
+    }
+
+    private void allocateIndex(int indexCapacity) {
+        indexKeys = allocate(indexCapacity * Long.BYTES);
+        indexSlots = allocate(indexCapacity * Integer.BYTES);
+        indexMask = indexCapacity - 1;
+    }
+
+    /**
+     * @return the number of nodes.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int slotOf(long id) {
+        int i = hash(id) & indexMask;
+        while(true) {
+            int s = getIndexSlot(i);
+            if(s == 0)
+                return -1;
+            if(indexKeys.getLong(i * Long.BYTES) == id)
+                return s - 1;
+            i = (i + 1) & indexMask;
+        }
+    }
+
+    public int add(long id) {
+        int slot = slotOf(id);
+        if(slot < 0) {
+            if(numFreeSlots > 0) {
+                slot = freeSlots[--numFreeSlots];
+            } else {
+                if(slots == capacity)
+                    grow();
+                slot = slots++;
+            }
+
+            ids.putLong(slot * Long.BYTES, id);
+            flags.put(slot, (byte) 0);
+            insertIndex(id, slot);
+            size++;
+        }
+        return slot;
+    }
+
+    public void remove(long id) {
+        int i = hash(id) & indexMask;
+        while(true) {
+            int s = getIndexSlot(i);
+            if(s == 0)
+                return;
+            if(indexKeys.getLong(i * Long.BYTES) == id)
+                break;
+            i = (i + 1) & indexMask;
+        }
+
+        int slot = getIndexSlot(i) - 1;
+        if(numFreeSlots == freeSlots.length)
+            freeSlots = Arrays.copyOf(freeSlots, 2 * numFreeSlots);
+        freeSlots[numFreeSlots++] = slot;
+        size--;
+
+        deleteIndex(i);
+    }
+
+    public void clear() {
+        size = 0;
+        slots = 0;
+        numFreeSlots = 0;
+        allocateIndex(indexMask + 1);
+    }
+
+    public boolean contains(long id) {
+        return slotOf(id) >= 0;
+    }
+
+    public long getId(int slot) {
+        return ids.getLong(slot * Long.BYTES);
+    }
+
+    public void setPosition(int slot, double x, double y) {
+        xs.putDouble(slot * Double.BYTES, x);
+        ys.putDouble(slot * Double.BYTES, y);
+        flags.put(slot, FLAG_POSITIONED);
+    }
+
+    public double getX(int slot) {
+        return xs.getDouble(slot * Double.BYTES);
+    }
+
+    public double getY(int slot) {
+        return ys.getDouble(slot * Double.BYTES);
+    }
+
+    public boolean hasPosition(int slot) {
+        return (flags.get(slot) & FLAG_POSITIONED) != 0;
+    }
+
+    private void grow() {
+        ids = grow(ids);
+        xs = grow(xs);
+        ys = grow(ys);
+        flags = grow(flags);
+        capacity *= 2;
+
+        ByteBuffer oldKeys = indexKeys;
+        ByteBuffer oldSlots = indexSlots;
+        int oldIndexCapacity = indexMask + 1;
+
+        allocateIndex(2 * oldIndexCapacity);
+        for(int i = 0; i < oldIndexCapacity; i++) {
+            int s = oldSlots.getInt(i * Integer.BYTES);
+            if(s != 0)
+                insertIndex(oldKeys.getLong(i * Long.BYTES), s - 1);
+        }
+    }
+
+    private int getIndexSlot(int i) {
+        return indexSlots.getInt(i * Integer.BYTES);
+    }
+
+    private void setIndexEntry(int i, long id, int s) {
+        indexKeys.putLong(i * Long.BYTES, id);
+        indexSlots.putInt(i * Integer.BYTES, s);
+    }
+
+    private void insertIndex(long id, int slot) {
+        int i = hash(id) & indexMask;
+        while(getIndexSlot(i) != 0)
+            i = (i + 1) & indexMask;
+
+        setIndexEntry(i, id, slot + 1);
+    }
+
+    /**
+     * Shifts the following entries of the probe sequence back into the gap, so that the index
+     * does not need tombstones.
+     */
+    private void deleteIndex(int gap) {
+        int i = gap;
+        while(true) {
+            i = (i + 1) & indexMask;
+            int s = getIndexSlot(i);
+            if(s == 0)
+                break;
+
+            long id = indexKeys.getLong(i * Long.BYTES);
+            int home = hash(id) & indexMask;
+            // The entry may only move back if its home is not within (gap, i].
+            if(((i - home) & indexMask) >= ((i - gap) & indexMask)) {
+                setIndexEntry(gap, id, s);
+                gap = i;
+            }
+        }
+        setIndexEntry(gap, 0L, 0);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger;
+
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Repulsion between particles that only act along the x axis. The particles are kept sorted
+ * by x and aggregated in an implicit binary tree over the sorted order, so that groups of
+ * distant particles can be treated as a single mass at their barycenter (1-D Barnes-Hut).
+ * All state is held in primitive arrays that are reused between steps.
+ * <p>
+ * The displacement of particle i is {@code -sum_j sign(x_j - x_i) * w_j / max(|x_j - x_i|, k)^2},
+ * which still has to be scaled by the repulsion constant of the particle.
+ * <p>
+ * A kernel can also serve as a fixed set of sources for the particles of another kernel, see
+ * {@link #addRepulsionFrom(RepulsionKernel1D, double, double, boolean)}.
+ */
+public class RepulsionKernel1D {
+
+    private int size;
+    private double[] x = new double[0];
+    private double[] weight = new double[0];
+    private boolean[] active = new boolean[0];
+
+    private int[] order = new int[0];
+    private int[] rank = new int[0];
+    private int[] sortBuffer = new int[0];
+
+    private int leaves;
+    private double[] nodeWeight = new double[0];
+    private double[] nodeWeightedX = new double[0];
+    private double[] nodeMinX = new double[0];
+    private double[] nodeMaxX = new double[0];
+
+    private final ThreadLocal<int[]> stacks = ThreadLocal.withInitial(() -> new int[3 * 2 * Integer.SIZE]);
+
+    private double[] displacement = new double[0];
+    private double[] energy = new double[0];
+
+    public void resize(int size) {
+        if(size != this.size) {
+            this.size = size;
+            if(x.length < size) {
+                x = new double[size];
+                weight = new double[size];
+                active = new boolean[size];
+                displacement = new double[size];
+                energy = new double[size];
+                rank = new int[size];
+                sortBuffer = new int[size];
+            }
+            order = new int[size];
+            for(int i = 0; i < size; i++)
+                order[i] = i;
+        }
+    }
+
+    public void set(int i, double x, double weight) {
+        set(i, x, weight, true);
+    }
+
+    /**
+     * Inactive particles still repel the others, but their own displacement is not computed.
+     */
+    public void set(int i, double x, double weight, boolean active) {
+        this.x[i] = x;
+        this.weight[i] = weight;
+        this.active[i] = active;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getDisplacement(int i) {
+        return displacement[i];
+    }
+
+    public double getEnergy(int i) {
+        return energy[i];
+    }
+
+    public void compute(double k, double theta, boolean parallel) {
+        buildSources();
+
+        forEach(p -> query(p, k, theta), parallel);
+    }
+
+    /**
+     * Sorts the particles and aggregates them, without computing their displacements.
+     */
+    public void buildSources() {
+        sort();
+        buildTree();
+    }
+
+    /**
+     * Removes a particle from the sources of the last {@link #buildSources()}, only the
+     * ancestors of its leaf are updated.
+     */
+    public void removeSource(int i) {
+        weight[i] = 0.0;
+
+        int v = leaves + rank[i];
+        nodeWeight[v] = 0.0;
+        nodeWeightedX[v] = 0.0;
+        for(v >>>= 1; v >= 1; v >>>= 1) {
+            nodeWeight[v] = nodeWeight[2 * v] + nodeWeight[2 * v + 1];
+            nodeWeightedX[v] = nodeWeightedX[2 * v] + nodeWeightedX[2 * v + 1];
+        }
+    }
+
+    /**
+     * Adds the repulsion of the given sources to the displacements of the active particles
+     * of the last {@link #compute(double, double, boolean)}.
+     */
+    public void addRepulsionFrom(RepulsionKernel1D sources, double k, double theta, boolean parallel) {
+        if(sources.size == 0)
+            return;
+
+        forEach(i -> {
+            if(active[i])
+                accumulate(sources, x[i], -1, k, theta, i);
+        }, parallel);
+    }
+
+    private void forEach(IntConsumer action, boolean parallel) {
+        if(parallel)
+            IntStream.range(0, size).parallel().forEach(action);
+        else
+            for(int i = 0; i < size; i++)
+                action.accept(i);
+    }
+
+    /**
+     * Positions change only slightly between steps, so the order of the previous step is
+     * reused. Already ordered runs are detected and not merged again.
+     */
+    private void sort() {
+        mergeSort(0, size);
+    }
+
+    private void mergeSort(int from, int to) {
+        if(to - from < 2)
+            return;
+
+        int mid = (from + to) >>> 1;
+        mergeSort(from, mid);
+        mergeSort(mid, to);
+
+        if(x[order[mid - 1]] <= x[order[mid]])
+            return;
+
+        System.arraycopy(order, from, sortBuffer, from, to - from);
+        int i = from;
+        int j = mid;
+        for(int p = from; p < to; p++) {
+            if(j >= to || (i < mid && x[sortBuffer[i]] <= x[sortBuffer[j]]))
+                order[p] = sortBuffer[i++];
+            else
+                order[p] = sortBuffer[j++];
+        }
+    }
+
+    private void buildTree() {
+        leaves = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        int nodes = 2 * leaves;
+        if(nodeWeight.length < nodes) {
+            nodeWeight = new double[nodes];
+            nodeWeightedX = new double[nodes];
+            nodeMinX = new double[nodes];
+            nodeMaxX = new double[nodes];
+        }
+
+        for(int p = 0; p < leaves; p++) {
+            int v = leaves + p;
+            if(p < size) {
+                int i = order[p];
+                rank[i] = p;
+                nodeWeight[v] = weight[i];
+                nodeWeightedX[v] = weight[i] * x[i];
+                nodeMinX[v] = x[i];
+                nodeMaxX[v] = x[i];
+            } else {
+                nodeWeight[v] = 0.0;
+                nodeWeightedX[v] = 0.0;
+                nodeMinX[v] = Double.POSITIVE_INFINITY;
+                nodeMaxX[v] = Double.NEGATIVE_INFINITY;
+            }
+        }
+
+        for(int v = leaves - 1; v >= 1; v--) {
+            int l = 2 * v;
+            int r = l + 1;
+            nodeWeight[v] = nodeWeight[l] + nodeWeight[r];
+            nodeWeightedX[v] = nodeWeightedX[l] + nodeWeightedX[r];
+            nodeMinX[v] = Math.min(nodeMinX[l], nodeMinX[r]);
+            nodeMaxX[v] = Math.max(nodeMaxX[l], nodeMaxX[r]);
+        }
+    }
+
+    private void query(int p, double k, double theta) {
+        int i = order[p];
+        displacement[i] = 0.0;
+        energy[i] = 0.0;
+
+        if(active[i])
+            accumulate(this, x[i], p, k, theta, i);
+    }
+
+    /**
+     * Adds the repulsion of the sources of src on the position xi to particle i of this kernel.
+     * The leaf at position self, the particle itself, is skipped.
+     */
+    private void accumulate(RepulsionKernel1D src, double xi, int self, double k, double theta, int i) {
+        double disp = 0.0;
+        double e = 0.0;
+
+        // Explicit stack of (node, first leaf position, number of leaves).
+        int[] stack = stacks.get();
+        int top = 0;
+        stack[top++] = 1;
+        stack[top++] = 0;
+        stack[top++] = src.leaves;
+
+        while(top > 0) {
+            int span = stack[--top];
+            int lo = stack[--top];
+            int v = stack[--top];
+
+            double w = src.nodeWeight[v];
+            if(w == 0.0)
+                continue;
+
+            boolean containsSelf = lo <= self && self < lo + span;
+
+            if(span == 1) {
+                if(containsSelf)
+                    continue;
+            } else {
+                double extent = src.nodeMaxX[v] - src.nodeMinX[v];
+                if(containsSelf || extent >= theta * Math.abs(src.getBarycenter(v, w) - xi)) {
+                    int half = span >>> 1;
+                    stack[top++] = 2 * v;
+                    stack[top++] = lo;
+                    stack[top++] = half;
+                    stack[top++] = 2 * v + 1;
+                    stack[top++] = lo + half;
+                    stack[top++] = half;
+                    continue;
+                }
+            }
+
+            double dx = src.getBarycenter(v, w) - xi;
+            if(dx == 0.0)
+                continue;
+
+            double len = Math.abs(dx);
+            if(len < k)
+                len = k;
+
+            double factor = w / (len * len);
+            e += factor;
+            disp -= dx > 0.0 ? factor : -factor;
+        }
+
+        displacement[i] += disp;
+        energy[i] += e;
+    }
+
+    /**
+     * Coincident particles must yield exactly their x, since particles at the same position
+     * do not repel each other.
+     */
+    private double getBarycenter(int v, double w) {
+        return nodeMinX[v] == nodeMaxX[v] ? nodeMinX[v] : nodeWeightedX[v] / w;
+    }
+}
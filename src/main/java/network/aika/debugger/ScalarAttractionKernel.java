@@ -0,0 +1,31 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger;
+
+public class ScalarAttractionKernel extends AttractionKernel {
+
+    @Override
+    protected void computeSpringForces(ForceArrays a, double distanceY, double k1) {
+        int[] in = a.springIn;
+        int[] out = a.springOut;
+        double[] y = a.y;
+        double[] f = a.springForce;
+
+        for(int s = 0; s < a.springs; s++)
+            f[s] = Math.max(0.0, y[in[s]] + distanceY - y[out[s]]) * k1;
+    }
+}
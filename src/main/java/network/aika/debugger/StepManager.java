@@ -18,18 +18,29 @@ package network.aika.debugger;
 
 import network.aika.debugger.activations.VisitorManager;
 
+import javax.swing.text.StyledDocument;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
 import static network.aika.debugger.StepManager.EventType.*;
 
 public class StepManager {
 
-    boolean stopAfterProcessed;
+    volatile boolean stopAfterProcessed;
 
-    EventType mode = ACT;
+    volatile EventType mode = ACT;
 
     Long lastTimestamp = null;
 
     protected boolean clicked;
 
+    private final Object pauseLock = new Object();
+    private long pauseId;
+    private boolean paused;
+
+    private final List<Runnable> pauseListeners = new CopyOnWriteArrayList<>();
+
     public enum When {
         NEW,
         BEFORE,
@@ -82,6 +93,78 @@ public class StepManager {
         return false;
     }
 
+    /**
+     * Called by the processing thread before it blocks at a stop.
+     *
+     * @return the id of this pause.
+     */
+    public long pause() {
+        long id;
+        synchronized (pauseLock) {
+            paused = true;
+            id = ++pauseId;
+        }
+        pauseListeners.forEach(Runnable::run);
+        return id;
+    }
+
+    /**
+     * The listener is called on the processing thread whenever it stops, it must not block.
+     */
+    public void addPauseListener(Runnable listener) {
+        pauseListeners.add(listener);
+    }
+
+    /**
+     * Called by the processing thread before it continues. Waits for a rendering that reads the
+     * engine state to finish.
+     */
+    public void resume() {
+        synchronized (pauseLock) {
+            paused = false;
+        }
+    }
+
+    public long getPauseId() {
+        synchronized (pauseLock) {
+            return paused ? pauseId : -1;
+        }
+    }
+
+    /**
+     * Wraps console content that reads the live activations, links or visitors. A console may
+     * render its content later, when it becomes visible. The content is then only rendered if
+     * processing is still blocked at the given pause, and processing cannot resume meanwhile.
+     */
+    public Consumer<StyledDocument> whilePaused(long pauseId, Consumer<StyledDocument> content) {
+        return sDoc -> {
+            synchronized (pauseLock) {
+                if(paused && this.pauseId == pauseId) {
+                    content.accept(sDoc);
+                    return;
+                }
+            }
+            AbstractConsole.appendEntry(sDoc, "Not available: ", "processing has continued, it is shown at the next stop.", "bold", "regular");
+        };
+    }
+
+    /**
+     * Runs a task that reads or loads model state on a thread other than the processing thread.
+     * The task only runs while processing is blocked at a stop, and processing cannot resume
+     * meanwhile.
+     *
+     * @return false if processing was not paused, the task has not been run.
+     */
+    public boolean runWhilePaused(Runnable task) {
+        synchronized (pauseLock) {
+            if(!paused)
+                return false;
+
+            task.run();
+            return true;
+        }
+    }
+
     public synchronized void waitForClick() {
         try {
             while(!clicked) {
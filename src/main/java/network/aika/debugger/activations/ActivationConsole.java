@@ -77,6 +77,8 @@ public class ActivationConsole extends AbstractConsole {
         appendEntry(sDoc, "Fired: ", "" + act.getFired());
         appendEntry(sDoc, "Reference: ", "" + act.getReference());
 
+        // Not deferred: the consoles are shown together with this one, and the live activation
+        // may only be read while processing is paused.
         neuronConsole.render(nsDoc ->
                 neuronConsole.renderNeuronConsoleOutput(nsDoc, act.getNeuron(), act.getReference())
         );
@@ -3,6 +3,7 @@ package network.aika.debugger.activations;
 import network.aika.neuron.activation.Activation;
 import network.aika.neuron.activation.Link;
 import network.aika.debugger.AbstractGraphManager;
+import network.aika.debugger.LongPairObjectMap;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 /*
@@ -28,16 +29,32 @@ import java.util.function.Consumer;
 
 public class ActivationGraphManager extends AbstractGraphManager<Activation, Link, ActivationParticle> {
 
+    private LongPairObjectMap<Link> links = new LongPairObjectMap<>();
+
     public ActivationGraphManager(Graph graph) {
         super(graph);
     }
 
-    protected Long getAikaNodeId(Activation act) {
-        return act != null ? Long.valueOf(act.getId()) : null;
+    protected long getAikaNodeId(Activation act) {
+        return act.getId();
+    }
+
+    protected String getLabel(Activation act) {
+        return act.getLabel();
+    }
+
+    public Edge lookupEdge(Link l, Consumer<Edge> onCreate) {
+        return lookupEdge(l.getInput().getId(), l.getOutput().getId(), l, onCreate);
     }
 
-    public Edge lookupEdge(Link l, Consumer<Node> onCreate) {
-        return lookupEdge(l.getInput(), l.getOutput(), onCreate);
+    /**
+     * Takes the ids of the endpoints from an event snapshot, the link itself is not accessed.
+     */
+    public Edge lookupEdge(int inputActId, int outputActId, Link l, Consumer<Edge> onCreate) {
+        synchronized (this) {
+            links.put(inputActId, outputActId, l);
+        }
+        return lookupEdge(inputActId, outputActId, onCreate);
     }
 
     public Edge getEdge(Link l) {
@@ -45,13 +62,7 @@ public class ActivationGraphManager extends AbstractGraphManager<Activation, Lin
     }
 
     @Override
-    public Link getLink(Edge e) {
-        Activation iAct = getAikaNode(e.getSourceNode());
-        Activation oAct = getAikaNode(e.getTargetNode());
-
-        return oAct.getInputLinks()
-                .filter(l -> l.getInput() == iAct)
-                .findAny()
-                .orElseGet(null);
+    public synchronized Link getLink(Edge e) {
+        return links.get(getInputKeyId(e), getOutputKeyId(e));
     }
 }
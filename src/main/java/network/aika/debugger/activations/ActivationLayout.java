@@ -16,20 +16,23 @@
  */
 package network.aika.debugger.activations;
 
-import network.aika.neuron.activation.Activation;
-import network.aika.text.Document;
+import network.aika.debugger.AbstractGraphManager;
 import network.aika.debugger.AbstractLayout;
 import org.graphstream.graph.Node;
 import org.graphstream.ui.layout.springbox.NodeParticle;
 import org.miv.pherd.geom.Point3;
 
+import static network.aika.debugger.AbstractGraphManager.parseNodeId;
 
-public class ActivationLayout extends AbstractLayout<ActivationGraphManager> {
-    ActivationViewManager avm;
 
-    public ActivationLayout(ActivationViewManager avm, ActivationGraphManager gm) {
+/**
+ * Used by the live activations view as well as by the replay, it only relies on the node
+ * attributes and on the "layout.ignored" flag of the edges.
+ */
+public class ActivationLayout extends AbstractLayout<AbstractGraphManager<?, ?, ActivationParticle>> {
+
+    public ActivationLayout(AbstractGraphManager<?, ?, ActivationParticle> gm) {
         super(gm);
-        this.avm = avm;
 
         k = STANDARD_DISTANCE_X;
         K1Init = 0.06f;
@@ -37,20 +40,27 @@ public class ActivationLayout extends AbstractLayout<ActivationGraphManager> {
         K2 = 0.005f;
     }
 
+    @Override
+    protected ArrayAttraction getArrayAttraction() {
+        return ArrayAttraction.LAYERED;
+    }
+
+    @Override
+    protected double getAttractionK1() {
+        return ActivationParticle.K1;
+    }
+
     @Override
     public NodeParticle newNodeParticle(String id) {
-        Document doc = avm.getDocument();
         Node n = graphManager.getNode(id);
-        Activation act = doc.getActivation(n.getAttribute("aika.id", Integer.class));
 
         Integer originActId = n.getAttribute("aika.originActId", Integer.class);
+        ActivationParticle originParticle = originActId != null ? graphManager.getParticle(originActId.longValue()) : null;
 
         Double x;
         Double y;
 
-        ActivationParticle particle;
-        if(originActId != null) {
-            ActivationParticle originParticle = graphManager.getParticle(originActId);
+        if(originParticle != null) {
             Point3 originPos = originParticle.getPosition();
 
             x = originPos.x;
@@ -71,9 +81,9 @@ public class ActivationLayout extends AbstractLayout<ActivationGraphManager> {
             y += (random.nextDouble() - 0.5) * 0.02;
         }
 
-        particle = new ActivationParticle(this, n, act, id, x, y, 0);
+        ActivationParticle particle = new ActivationParticle(this, n, id, x, y, 0);
 
-        graphManager.setParticle(act, particle);
+        graphManager.setParticle(parseNodeId(id), particle);
 
         return particle;
     }
@@ -16,16 +16,9 @@
  */
 package network.aika.debugger.activations;
 
-import network.aika.neuron.Synapse;
-import network.aika.neuron.activation.Activation;
-import network.aika.neuron.activation.Link;
-import network.aika.neuron.excitatory.BindingNeuronSynapse;
-import network.aika.neuron.excitatory.SameBNSynapse;
-import network.aika.neuron.inhibitory.InhibitoryNeuron;
 import network.aika.debugger.AbstractLayout;
 import network.aika.debugger.AbstractParticle;
 import org.graphstream.graph.Node;
-import org.graphstream.ui.geom.Vector2;
 import org.graphstream.ui.geom.Vector3;
 import org.graphstream.ui.layout.springbox.EdgeSpring;
 import org.graphstream.ui.layout.springbox.Energies;
@@ -39,19 +32,17 @@ public class ActivationParticle extends AbstractParticle {
     public static double K1 = 0.12f;
     public static double K2 = 0.03f;
 
-    Activation act;
     Node node;
 
-    public ActivationParticle(AbstractLayout layout, Node node, Activation act, String id, double x, double y, double z) {
+    public ActivationParticle(AbstractLayout layout, Node node, String id, double x, double y, double z) {
         super(layout, id, x, y, z);
 
-        this.act = act;
         this.node = node;
     }
 
 
     @Override
-    protected void attraction(Vector3 delta) {
+    protected void computeAttraction(Vector3 delta) {
         SpringBox box = (SpringBox) this.box;
         Energies energies = box.getEnergies();
 
@@ -61,31 +52,9 @@ public class ActivationParticle extends AbstractParticle {
 
                 Point3 opos = other.getPosition();
 
-                Link link = getLink(other.act, act);
-
-                if(link != null) {
-                    Synapse s = link.getSynapse();
-                    if (s instanceof BindingNeuronSynapse) {
-                        BindingNeuronSynapse pps = (BindingNeuronSynapse) s;
-                        boolean isRecurrent = pps.isRecurrent() && !s.getOutput().isInputNeuron();
-
-                        if (isRecurrent)
-                            continue;
-
-                        if(link.getOutput().getNeuron().isInputNeuron() && link.getInput().getNeuron() instanceof InhibitoryNeuron)
-                            continue;
-
-                        if(pps instanceof SameBNSynapse)
-                            continue;
-                    }
-                }
-
-                if(link == null)
-                    continue;
-
                 double dy = 0.0;
 
-                if(act == link.getOutput()) {
+                if(edge.node1 == this) {
                     dy = (opos.y + STANDARD_DISTANCE_Y) - pos.y;
                     dy = Math.max(0.0, dy);
                 } else {
@@ -93,28 +62,12 @@ public class ActivationParticle extends AbstractParticle {
                     dy = Math.min(0.0, dy);
                 }
 
-                delta.set(0.0, dy, 0.0);
-
-                delta.mult(new Vector2(0.0, K1));
+                delta.set(0.0, dy * K1, 0.0);
 
                 disp.add(delta);
                 attE += K1;
-                energies.accumulateEnergy(K1);
+                accumulateEnergy(energies, K1);
             }
         }
     }
-
-    private Link getLink(Activation actA, Activation actB) {
-        Link l = getDirectedLink(actA, actB);
-        if(l != null)
-            return l;
-        return getDirectedLink(actB, actA);
-    }
-
-    private Link getDirectedLink(Activation iAct, Activation oAct) {
-        return oAct.getInputLinks()
-                .filter(l -> l.getInput() == iAct)
-                .findFirst()
-                .orElse(null);
-    }
 }
@@ -16,16 +16,16 @@
  */
 package network.aika.debugger.activations;
 
-import network.aika.Thought;
-import network.aika.callbacks.EventListener;
 import network.aika.debugger.StepManager;
+import network.aika.debugger.events.EventCapture;
+import network.aika.debugger.events.EventSnapshot;
 import network.aika.neuron.Synapse;
 import network.aika.neuron.activation.*;
 import network.aika.neuron.activation.visitor.Visitor;
 import network.aika.neuron.excitatory.PatternNeuron;
-import network.aika.neuron.steps.Step;
 import network.aika.text.Document;
 import network.aika.debugger.AbstractViewManager;
+import network.aika.debugger.AttributeWriter;
 import network.aika.text.TextModel;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Element;
@@ -33,19 +33,17 @@ import org.graphstream.graph.Node;
 import org.graphstream.ui.graphicGraph.GraphicElement;
 
 import javax.swing.*;
-import javax.swing.text.DefaultStyledDocument;
-import java.awt.*;
+import javax.swing.text.StyledDocument;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import static network.aika.debugger.AbstractLayout.*;
-import static network.aika.debugger.StepManager.EventType.ACT;
-import static network.aika.debugger.StepManager.EventType.LINK;
-import static network.aika.debugger.StepManager.When.*;
-import static network.aika.neuron.activation.Fired.NOT_FIRED;
+import static network.aika.debugger.events.EventSnapshot.NOT_FIRED_TIMESTAMP;
 
 
-public class ActivationViewManager extends AbstractViewManager<ActivationConsole, ActivationGraphManager> implements EventListener {
+public class ActivationViewManager extends AbstractViewManager<ActivationConsole, ActivationGraphManager> {
+
+    public static boolean LAYERED_LAYOUT = false;
 
     private Document doc;
 
@@ -57,10 +55,16 @@ public class ActivationViewManager extends AbstractViewManager<ActivationConsole
 
     protected StepManager stepManager;
 
+    private EventCapture eventCapture;
+
     private Long numberOfInputTokens;
 
     private JTabbedPane activationViewTabbedPane;
 
+    private LayeredLayout layeredLayout;
+
+    private LevelOfDetail levelOfDetail;
+
     public ActivationViewManager(Document doc) {
         super();
 
@@ -75,18 +79,26 @@ public class ActivationViewManager extends AbstractViewManager<ActivationConsole
         graphManager = new ActivationGraphManager(graph);
 
         this.doc = doc;
-        doc.addEventListener(this);
         visitorManager = new VisitorManager(this);
+        levelOfDetail = new LevelOfDetail(this);
         mainConsole = new ActivationConsole();
         selectedConsole = new ActivationConsole();
         queueConsole = new QueueConsole();
         visitorConsole = new VisitorConsole();
 
-        viewer.enableAutoLayout(new ActivationLayout(this, graphManager));
+        if(LAYERED_LAYOUT)
+            layeredLayout = new LayeredLayout(STANDARD_DISTANCE_X, STANDARD_DISTANCE_Y);
+        else
+            enableAutoLayout(new ActivationLayout(graphManager));
 
         splitPane = initSplitPane();
 
         this.stepManager = new StepManager();
+
+        eventCapture = new EventCapture(this);
+        eventCapture.getDispatcher().start();
+        doc.addEventListener(eventCapture);
+        doc.addVisitorEventListener(eventCapture);
     }
 
     public JTabbedPane getActivationViewTabbedPane() {
@@ -105,15 +117,19 @@ public class ActivationViewManager extends AbstractViewManager<ActivationConsole
         return stepManager;
     }
 
-    public void pumpAndWaitForUserAction() {
-        pump();
-
-        stepManager.waitForClick();
+    /**
+     * The content of stops reads the live engine state, see {@link StepManager#whilePaused}.
+     */
+    Consumer<StyledDocument> whilePaused(EventSnapshot e, Consumer<StyledDocument> content) {
+        return stepManager.whilePaused(e.getPauseId(), content);
     }
 
     public void showElementContext(GraphicElement ge) {
         activationViewTabbedPane.setSelectedIndex(1);
 
+        // The selected element can only be shown while processing is paused.
+        long pauseId = stepManager.getPauseId();
+
         if(ge instanceof Node) {
             Node n = (Node) ge;
 
@@ -121,9 +137,9 @@ public class ActivationViewManager extends AbstractViewManager<ActivationConsole
             if(act == null)
                 return;
 
-            selectedConsole.render(sDoc ->
+            selectedConsole.renderLazily(stepManager.whilePaused(pauseId, sDoc ->
                     selectedConsole.renderActivationConsoleOutput(sDoc, act, null)
-            );
+            ));
         } else if(ge instanceof Edge) {
             Edge e = (Edge) ge;
 
@@ -131,9 +147,9 @@ public class ActivationViewManager extends AbstractViewManager<ActivationConsole
             if(l == null)
                 return;
 
-            selectedConsole.render(sDoc ->
+            selectedConsole.renderLazily(stepManager.whilePaused(pauseId, sDoc ->
                     selectedConsole.renderLinkConsoleOutput(sDoc, l, null)
-            );
+            ));
         }
     }
 
@@ -185,86 +201,77 @@ public class ActivationViewManager extends AbstractViewManager<ActivationConsole
         return activationViewTabbedPane;
     }
 
-    private static JScrollPane getScrollPane(Component c) {
-        JScrollPane scrollPane = new JScrollPane(c);
-        scrollPane.setVerticalScrollBarPolicy(
-                JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-        scrollPane.setPreferredSize(new Dimension(250, 155));
-        scrollPane.setMinimumSize(new Dimension(10, 10));
-        return scrollPane;
+    public void applyEvent(EventSnapshot e) {
+        queueConsole.update(e);
+
+        switch (e.getKind()) {
+            case ACTIVATION_CREATED -> onActivationCreationEvent(e);
+            case LINK_CREATED -> onLinkCreationEvent(e);
+            case BEFORE_PROCESSED -> {
+                if (e.isActivationEvent())
+                    beforeActivationProcessedEvent(e);
+                else if (e.isLinkEvent())
+                    beforeLinkProcessedEvent(e);
+            }
+            case AFTER_PROCESSED -> {
+                if (e.isActivationEvent())
+                    afterActivationProcessedEvent(e);
+                else if (e.isLinkEvent())
+                    afterLinkProcessedEvent(e);
+            }
+            case VISITOR -> visitorManager.onVisitorEvent(e);
+            case VISITOR_CANDIDATE -> visitorManager.onVisitorCandidateEvent(e);
+        }
     }
 
-    @Override
-    public void onActivationCreationEvent(Activation act, Activation originAct, Visitor v) {
-        updateQueueAndVisitorConsole(v, act.getThought());
+    private void onActivationCreationEvent(EventSnapshot e) {
+        Node n = onActivationEvent(e);
 
-        Node n = onActivationEvent(act, originAct);
-
-        if(!stepManager.stopHere(NEW, ACT))
+        if(!e.isStop())
             return;
 
-        n.setAttribute("aika.init-node", true);
+        Activation act = e.getActivation();
+        updateVisitorConsole(e);
 
-        mainConsole.render(sDoc ->
-                mainConsole.renderActivationConsoleOutput(sDoc,  act, "New")
-        );
+        mutations.setAttribute(n, "aika.init-node", true);
 
-        pumpAndWaitForUserAction();
-    }
+        mainConsole.renderLazily(whilePaused(e, sDoc ->
+                mainConsole.renderActivationConsoleOutput(sDoc, act, "New")
+        ));
 
-    @Override
-    public void beforeProcessedEvent(QueueEntry qe) {
-        if(qe.getElement() instanceof Activation) {
-            beforeActivationProcessedEvent(qe, (Activation) qe.getElement());
-        } else if(qe.getElement() instanceof Link) {
-            beforeLinkProcessedEvent(qe, (Link) qe.getElement());
-        }
+        pump();
     }
 
+    private void beforeActivationProcessedEvent(EventSnapshot e) {
+        Node n = onActivationEvent(e);
+        mutations.setAttribute(n, "aika.init-node", false);
 
-    @Override
-    public void afterProcessedEvent(QueueEntry qe) {
-        if(qe.getElement() instanceof Activation) {
-            afterActivationProcessedEvent(qe, (Activation) qe.getElement());
-        } else if(qe.getElement() instanceof Link) {
-            afterLinkProcessedEvent(qe, (Link) qe.getElement());
-        }
-    }
+        if (!e.isStop())
+            return;
 
-    private void beforeActivationProcessedEvent(QueueEntry qe, Activation act) {
-        queueConsole.render(sDoc ->
-                queueConsole.renderQueue(sDoc, act.getThought(), qe)
-        );
+        Activation act = e.getActivation();
         clearVisitorConsole();
 
-        Node n = onActivationEvent(act, null);
-        n.setAttribute("aika.init-node", false);
-
-        if (!stepManager.stopHere(BEFORE, ACT))
-            return;
+        mainConsole.renderLazily(whilePaused(e, sDoc ->
+                mainConsole.renderActivationConsoleOutput(sDoc, act, "Before " + e.getStep())
+        ));
 
-        mainConsole.render(sDoc ->
-                mainConsole.renderActivationConsoleOutput(sDoc, act, "Before " + Step.toString(qe.getStep()))
-        );
-
-        pumpAndWaitForUserAction();
+        pump();
     }
 
 
-    private void afterActivationProcessedEvent(QueueEntry qe, Activation act) {
-        queueConsole.render(sDoc ->
-                queueConsole.renderQueue(sDoc, act.getThought(), qe)
-        );
-        clearVisitorConsole();
-
-        if (!stepManager.stopHere(AFTER, ACT))
+    private void afterActivationProcessedEvent(EventSnapshot e) {
+        if (!e.isStop())
             return;
 
-        mainConsole.render(sDoc ->
-                mainConsole.renderActivationConsoleOutput(sDoc, act, "After " + Step.toString(qe.getStep()))
-        );
+        Activation act = e.getActivation();
+        clearVisitorConsole();
 
-        pumpAndWaitForUserAction();
+        mainConsole.renderLazily(whilePaused(e, sDoc ->
+                mainConsole.renderActivationConsoleOutput(sDoc, act, "After " + e.getStep())
+        ));
+
+        pump();
     }
 
     private void computeNumberOfInputTokens(Document doc) {
@@ -274,53 +281,109 @@ public class ActivationViewManager extends AbstractViewManager<ActivationConsole
                 .count();
     }
 
-    private Node onActivationEvent(Activation act, Activation originAct) {
-        Node node = graphManager.lookupNode(act, n -> {
-            if(originAct != null) {
-                Edge initialEdge = graphManager.lookupEdge(originAct, act, e -> {});
-                initialEdge.setAttribute("ui.style", "fill-color: rgb(200,200,200);");
+    /**
+     * The graph is only looked up by the ids of the snapshot, the activations may already have
+     * changed if this event is not a stop.
+     */
+    private Node onActivationEvent(EventSnapshot e) {
+        boolean hasOrigin = e.getOriginActId() >= 0;
+
+        Node node = graphManager.lookupNode(e.getActId(), e.getActivation(), e.getLabel(), n -> {
+            levelOfDetail.addNode(e.getActId(), n, e.getNeuronType());
+
+            if(hasOrigin) {
+                Edge initialEdge = graphManager.lookupEdge(e.getOriginActId(), e.getActId(), ie -> {
+                    ie.setAttribute("layout.ignored", true);
+                    levelOfDetail.addEdge(ie);
+                });
+                mutations.setAttribute(initialEdge, "ui.style", "fill-color: rgb(200,200,200);");
             }
 
-            if(act.getNeuron().isInputNeuron() && act.getNeuron() instanceof PatternNeuron) {
-                n.setAttribute("layout.frozen");
-            }
+            initActivationNode(
+                    n,
+                    e.getActId(),
+                    hasOrigin ? e.getOriginActId() : null,
+                    e.isInputNeuron(),
+                    e.isPatternNeuron(),
+                    e.getFiredInputTimestamp(),
+                    e.getOriginFiredInputTimestamp(),
+                    e.getLabel(),
+                    scaleCharsToTokens()
+            );
 
-            if(act.getNeuron().isInputNeuron() && act.getFired() != NOT_FIRED) {
-                Fired f = act.getFired();
-                             n.setAttribute("x", getXPosGU(f));
+            Consumer<Node> neuronTypeModifier = neuronTypeModifiers.get(e.getNeuronType());
+            if (neuronTypeModifier != null) {
+                neuronTypeModifier.accept(n);
             }
 
-            if(act.getNeuron().isInputNeuron() && originAct != null && originAct.getFired() != NOT_FIRED) {
-                double offset = STANDARD_DISTANCE_X * 0.3;
-                Fired f = originAct.getFired();
-                if(act.getLabel().endsWith(TextModel.REL_NEXT_TOKEN_LABEL)) {
-                    n.setAttribute("x", getXPosGU(f) + offset);
-                }
+            if(layeredLayout != null)
+                layeredLayout.addActivation(e.getActId(), e.getOriginActId(), (Double) n.getAttribute("x"));
+        });
+
+        applyLayeredPositions();
+
+        mutations.setAttribute(node, "ui.label", e.getLabel());
+        // The label of an activation may change while it is processed.
+        graphManager.getLabelIndex().add(e.getActId(), e.getLabel());
 
-                if(act.getLabel().endsWith(TextModel.REL_PREVIOUS_TOKEN_LABEL)) {
-                    n.setAttribute("x", getXPosGU(f) - offset);
-                }
+        highlightCurrentOnly(node);
+
+        return node;
+    }
+
+    /**
+     * Called regularly by the event dispatcher thread, also while no events arrive.
+     */
+    public void updateLevelOfDetail() {
+        levelOfDetail.update(getPixelsPerGU(), getViewportGU());
+    }
+
+    private void applyLayeredPositions() {
+        if(layeredLayout == null || !layeredLayout.hasMoved())
+            return;
+
+        layeredLayout.flush((actId, x, y) -> {
+            Node n = graphManager.getNode((long) actId);
+            if(n != null) {
+                mutations.setAttribute(n, "xyz", x, y, 0.0);
+                levelOfDetail.nodeMoved(actId, x, y);
             }
         });
+    }
 
-        node.setAttribute("aika.id", act.getId());
-        if(originAct != null) {
-            node.setAttribute("aika.originActId", originAct.getId());
+    /**
+     * Sets the attributes the {@link ActivationLayout} places a new node by. Input activations
+     * are frozen at the position of their token, the relation activations next to it. Shared
+     * with the replay view.
+     */
+    public static void initActivationNode(Node n, int actId, Integer originActId, boolean inputNeuron, boolean patternNeuron, long firedInputTimestamp, long originFiredInputTimestamp, String label, double scaleCharsToTokens) {
+        if(inputNeuron && patternNeuron) {
+            n.setAttribute("layout.frozen");
         }
-        node.setAttribute("ui.label", act.getLabel());
 
-        highlightCurrentOnly(node);
+        if(inputNeuron && firedInputTimestamp != NOT_FIRED_TIMESTAMP) {
+            n.setAttribute("x", getXPosGU(firedInputTimestamp, scaleCharsToTokens));
+        }
+
+        if(inputNeuron && originActId != null && originFiredInputTimestamp != NOT_FIRED_TIMESTAMP) {
+            double offset = STANDARD_DISTANCE_X * 0.3;
+            if(label.endsWith(TextModel.REL_NEXT_TOKEN_LABEL)) {
+                n.setAttribute("x", getXPosGU(originFiredInputTimestamp, scaleCharsToTokens) + offset);
+            }
 
-        Consumer<Node> neuronTypeModifier = neuronTypeModifiers.get(act.getNeuron().getClass());
-        if (neuronTypeModifier != null) {
-            neuronTypeModifier.accept(node);
+            if(label.endsWith(TextModel.REL_PREVIOUS_TOKEN_LABEL)) {
+                n.setAttribute("x", getXPosGU(originFiredInputTimestamp, scaleCharsToTokens) - offset);
+            }
         }
 
-        return node;
+        n.setAttribute("aika.id", actId);
+        if(originActId != null) {
+            n.setAttribute("aika.originActId", originActId);
+        }
     }
 
-    private double getXPosGU(Fired f) {
-        return f.getInputTimestamp() * scaleCharsToTokens() * STANDARD_DISTANCE_X;
+    private static double getXPosGU(long inputTimestamp, double scaleCharsToTokens) {
+        return inputTimestamp * scaleCharsToTokens * STANDARD_DISTANCE_X;
     }
 
     private void highlightCurrentOnly(Element e) {
@@ -335,96 +398,98 @@ public class ActivationViewManager extends AbstractViewManager<ActivationConsole
         }
     }
 
-    @Override
-    public void onLinkCreationEvent(Link l, Visitor v) {
-        updateQueueAndVisitorConsole(v, l.getThought());
-
-        Edge e = onLinkEvent(l);
-        if(e == null)
+    private void onLinkCreationEvent(EventSnapshot e) {
+        Edge edge = onLinkEvent(e);
+        if(edge == null)
             return;
 
-        e.setAttribute("aika.init-node", true);
+        mutations.setAttribute(edge, "aika.init-node", true);
 
-        if (!stepManager.stopHere(NEW, LINK))
+        if (!e.isStop())
             return;
 
-        mainConsole.render(sDoc ->
+        Link l = e.getLink();
+        updateVisitorConsole(e);
+
+        mainConsole.renderLazily(whilePaused(e, sDoc ->
                 mainConsole.renderLinkConsoleOutput(sDoc, l, "New")
-        );
+        ));
 
-        pumpAndWaitForUserAction();
+        pump();
     }
 
-    private void updateQueueAndVisitorConsole(Visitor v, Thought t) {
-        queueConsole.render(sDoc ->
-                queueConsole.renderQueue(sDoc, t, null)
-        );
-
+    private void updateVisitorConsole(EventSnapshot e) {
+        Visitor v = e.getVisitor();
         if (v != null) {
-            getVisitorConsole().render(sDoc ->
+            getVisitorConsole().renderLazily(whilePaused(e, sDoc ->
                     getVisitorConsole().renderVisitorConsoleOutput(sDoc, v, null, null, false)
-            );
+            ));
+        } else {
+            clearVisitorConsole();
         }
     }
 
     private void clearVisitorConsole() {
-        getVisitorConsole().render(sDoc -> {});
+        getVisitorConsole().renderLazily(sDoc -> {});
     }
 
-    private void beforeLinkProcessedEvent(QueueEntry qe, Link l) {
-        queueConsole.render(sDoc ->
-                queueConsole.renderQueue(sDoc, l.getThought(), qe)
-        );
-        clearVisitorConsole();
-
-        Edge e = onLinkEvent(l);
-        if(e == null)
+    private void beforeLinkProcessedEvent(EventSnapshot e) {
+        Edge edge = onLinkEvent(e);
+        if(edge == null)
             return;
 
-        e.setAttribute("aika.init-node", false);
+        mutations.setAttribute(edge, "aika.init-node", false);
 
-        if (!stepManager.stopHere(BEFORE, LINK))
+        if (!e.isStop())
             return;
 
-        DefaultStyledDocument sDoc = new DefaultStyledDocument();
-        mainConsole.addStylesToDocument(sDoc);
-        mainConsole.clear();
-        mainConsole.renderLinkConsoleOutput(sDoc, l, "Before " + Step.toString(qe.getStep()));
-        mainConsole.setStyledDocument(sDoc);
+        Link l = e.getLink();
+        clearVisitorConsole();
 
-        pumpAndWaitForUserAction();
-    }
+        mainConsole.renderLazily(whilePaused(e, sDoc ->
+                mainConsole.renderLinkConsoleOutput(sDoc, l, "Before " + e.getStep())
+        ));
 
-    private void afterLinkProcessedEvent(QueueEntry qe, Link l) {
-        queueConsole.render(sDoc ->
-                queueConsole.renderQueue(sDoc, l.getThought(), qe)
-        );
-        clearVisitorConsole();
+        pump();
+    }
 
-        if (!stepManager.stopHere(AFTER, LINK))
+    private void afterLinkProcessedEvent(EventSnapshot e) {
+        if (!e.isStop())
             return;
 
-        DefaultStyledDocument sDoc = new DefaultStyledDocument();
-        mainConsole.addStylesToDocument(sDoc);
-        mainConsole.clear();
-        mainConsole.renderLinkConsoleOutput(sDoc, l, "After " + Step.toString(qe.getStep()));
-        mainConsole.setStyledDocument(sDoc);
+        Link l = e.getLink();
+        clearVisitorConsole();
 
+        mainConsole.renderLazily(whilePaused(e, sDoc ->
+                mainConsole.renderLinkConsoleOutput(sDoc, l, "After " + e.getStep())
+        ));
 
-        pumpAndWaitForUserAction();
+        pump();
     }
 
-    private Edge onLinkEvent(Link l) {
-        if(l.getInput() == null || l.getOutput() == null)
+    private Edge onLinkEvent(EventSnapshot e) {
+        if(e.getInputActId() < 0 || e.getOutputActId() < 0)
             return null;
 
-        Edge edge = graphManager.lookupEdge(l, e -> {});
+        Edge edge = graphManager.lookupEdge(e.getInputActId(), e.getOutputActId(), e.getLink(), ie -> {
+            levelOfDetail.addEdge(ie);
+
+            if(layeredLayout != null)
+                layeredLayout.addLink(e.getInputActId(), e.getOutputActId(), e.isAttracting());
+        });
+
+        applyLayeredPositions();
 
         highlightCurrentOnly(edge);
 
-        BiConsumer<Edge, Synapse> synapseTypeModifier = synapseTypeModifiers.get(l.getSynapse().getClass());
-        if(synapseTypeModifier != null) {
-            synapseTypeModifier.accept(edge, l.getSynapse());
+        // Until the next flush the edge may be styled more than once, which the batch coalesces.
+        if(edge.getAttribute("aika.synapseStyled") == null) {
+            BiConsumer<AttributeWriter, Synapse> synapseTypeModifier = synapseTypeModifiers.get(e.getSynapse().getClass());
+            if (synapseTypeModifier != null) {
+                synapseTypeModifier.accept(mutations.writerFor(edge), e.getSynapse());
+            }
+            mutations.setAttribute(edge, "layout.ignored", !e.isAttracting());
+            mutations.setAttribute(edge, "aika.synapseStyled", true);
         }
 
         return edge;
@@ -440,6 +505,10 @@ public class ActivationViewManager extends AbstractViewManager<ActivationConsole
 //        Point3 guPoint = camera.transformPxToGuSwing(x, y);
     }
 
+    public EventCapture getEventCapture() {
+        return eventCapture;
+    }
+
     public Document getDocument() {
         return doc;
     }
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.activations;
+
+import network.aika.debugger.LongObjectMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic, non-iterative alternative to the force based {@link ActivationLayout}.
+ *
+ * The x position is given by the token column an activation belongs to, the y position by its
+ * layer, which is the length of the longest path of attracting input links leading to it.
+ * Within a cell (column and layer) the activations are ordered by the barycenter of their
+ * inputs, which removes most of the crossings between neighbouring layers.
+ *
+ * The layout is maintained incrementally: an added activation or link only touches the cells
+ * of the activations whose layer actually changes. Positions only change if the structure
+ * changes, so there is nothing left to settle and nothing that could jitter.
+ */
+public class LayeredLayout {
+
+    public interface PositionConsumer {
+        void accept(int actId, double x, double y);
+    }
+
+    private static final double MAX_SLOT_RATIO = 0.3;
+    private static final double CELL_WIDTH_RATIO = 0.8;
+
+    private final double distanceX;
+    private final double distanceY;
+
+    private final LongObjectMap<Vertex> vertices = new LongObjectMap<>();
+    private final LongObjectMap<Column> columns = new LongObjectMap<>();
+
+    private final List<Vertex> moved = new ArrayList<>();
+    private final ArrayDeque<Vertex> relayerQueue = new ArrayDeque<>();
+
+    public LayeredLayout(double distanceX, double distanceY) {
+        this.distanceX = distanceX;
+        this.distanceY = distanceY;
+    }
+
+    /**
+     * @param x the column of the activation if it is known upfront, as it is for input
+     *          activations. Otherwise the column of the origin activation is used until the
+     *          first attracting input link arrives.
+     */
+    public void addActivation(int actId, int originActId, Double x) {
+        if(vertices.containsKey(actId))
+            return;
+
+        Vertex v = new Vertex(actId);
+        vertices.put(actId, v);
+
+        double columnX = 0.0;
+        if(x != null) {
+            columnX = x;
+            v.anchored = true;
+        } else {
+            Vertex origin = originActId >= 0 ? vertices.get(originActId) : null;
+            if(origin != null)
+                columnX = origin.column.x;
+        }
+
+        v.orderKey = columnX;
+        moveTo(v, getColumn(columnX), 0);
+    }
+
+    public void addLink(int inputActId, int outputActId, boolean attracting) {
+        if(!attracting)
+            return;
+
+        Vertex in = vertices.get(inputActId);
+        Vertex out = vertices.get(outputActId);
+        if(in == null || out == null || in == out)
+            return;
+
+        in.outputs.add(out);
+        out.inputs.add(in);
+
+        Column column = out.column;
+        if(!out.anchored) {
+            out.anchored = true;
+            column = in.column;
+        }
+
+        out.orderKey = getBarycenter(out.inputs);
+        moveTo(out, column, Math.max(out.layer, in.layer + 1));
+
+        propagateLayer(out);
+    }
+
+    /**
+     * Hands out the positions that changed since the last call.
+     */
+    public void flush(PositionConsumer consumer) {
+        for(Vertex v: moved) {
+            v.moved = false;
+            consumer.accept(v.id, v.x, v.y);
+        }
+        moved.clear();
+    }
+
+    public boolean hasMoved() {
+        return !moved.isEmpty();
+    }
+
+    int getLayer(int actId) {
+        Vertex v = vertices.get(actId);
+        return v != null ? v.layer : -1;
+    }
+
+    double getX(int actId) {
+        return vertices.get(actId).x;
+    }
+
+    double getY(int actId) {
+        return vertices.get(actId).y;
+    }
+
+    private void propagateLayer(Vertex start) {
+        // Attracting links do not form cycles, the bound only guards against malformed input.
+        int maxLayer = vertices.size();
+
+        relayerQueue.add(start);
+        while(!relayerQueue.isEmpty()) {
+            Vertex v = relayerQueue.poll();
+            int nextLayer = v.layer + 1;
+            if(nextLayer > maxLayer)
+                continue;
+
+            for(Vertex o: v.outputs) {
+                if(o.layer < nextLayer) {
+                    moveTo(o, o.column, nextLayer);
+                    relayerQueue.add(o);
+                }
+            }
+        }
+    }
+
+    private static double getBarycenter(List<Vertex> inputs) {
+        double sum = 0.0;
+        for(Vertex in: inputs)
+            sum += in.x;
+        return sum / inputs.size();
+    }
+
+    private Column getColumn(double x) {
+        long key = Double.doubleToLongBits(x);
+        Column c = columns.get(key);
+        if(c == null) {
+            c = new Column(x);
+            columns.put(key, c);
+        }
+        return c;
+    }
+
+    private void moveTo(Vertex v, Column column, int layer) {
+        Cell oldCell = v.cell;
+        if(oldCell != null) {
+            oldCell.remove(v);
+            oldCell.updatePositions();
+        }
+
+        v.column = column;
+        v.layer = layer;
+
+        Cell cell = column.getCell(layer);
+        cell.insert(v);
+        cell.updatePositions();
+    }
+
+    private void setPosition(Vertex v, double x, double y) {
+        if(v.x == x && v.y == y)
+            return;
+
+        v.x = x;
+        v.y = y;
+
+        if(!v.moved) {
+            v.moved = true;
+            moved.add(v);
+        }
+    }
+
+    private static class Vertex {
+        final int id;
+
+        boolean anchored;
+        double orderKey;
+
+        Column column;
+        Cell cell;
+        int layer;
+
+        double x = Double.NaN;
+        double y = Double.NaN;
+        boolean moved;
+
+        final List<Vertex> inputs = new ArrayList<>(2);
+        final List<Vertex> outputs = new ArrayList<>(2);
+
+        Vertex(int id) {
+            this.id = id;
+        }
+
+        int compareTo(Vertex v) {
+            int r = Double.compare(orderKey, v.orderKey);
+            return r != 0 ? r : Integer.compare(id, v.id);
+        }
+    }
+
+    private class Column {
+        final double x;
+        final List<Cell> cells = new ArrayList<>();
+
+        Column(double x) {
+            this.x = x;
+        }
+
+        Cell getCell(int layer) {
+            while(cells.size() <= layer)
+                cells.add(new Cell(this, cells.size()));
+            return cells.get(layer);
+        }
+    }
+
+    private class Cell {
+        final Column column;
+        final int layer;
+        final List<Vertex> members = new ArrayList<>(2);
+
+        Cell(Column column, int layer) {
+            this.column = column;
+            this.layer = layer;
+        }
+
+        void insert(Vertex v) {
+            int lo = 0;
+            int hi = members.size();
+            while(lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if(members.get(mid).compareTo(v) < 0)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            members.add(lo, v);
+            v.cell = this;
+        }
+
+        void remove(Vertex v) {
+            members.remove(v);
+            v.cell = null;
+        }
+
+        void updatePositions() {
+            int n = members.size();
+            double slot = distanceX * Math.min(MAX_SLOT_RATIO, CELL_WIDTH_RATIO / n);
+            double y = layer * distanceY;
+
+            for(int i = 0; i < n; i++)
+                setPosition(members.get(i), column.x + (i - (n - 1) * 0.5) * slot, y);
+        }
+    }
+}
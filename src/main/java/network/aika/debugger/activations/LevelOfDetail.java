@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.activations;
+
+import network.aika.debugger.AbstractGraphManager;
+import network.aika.debugger.AbstractViewManager;
+import network.aika.debugger.GraphMutationBatcher;
+import network.aika.debugger.LongObjectMap;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.ElementSink;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static network.aika.debugger.AbstractGraphManager.NO_ID;
+import static network.aika.debugger.AbstractGraphManager.parseNodeId;
+import static network.aika.debugger.AbstractLayout.STANDARD_DISTANCE_X;
+
+/**
+ * Replaces the activations by one super-node per token column and neuron type once the camera
+ * is zoomed out so far that the individual nodes cannot be told apart anymore. The super-nodes
+ * are sprites, so they are not seen by the layout, and show the number of aggregated nodes
+ * instead of labels. Zooming back in hides the sprites and shows the individual nodes again.
+ *
+ * While the individual nodes are shown, the ones outside of the viewport are culled, see
+ * {@link ViewportCulling}. All graph changes are made through the mutation batcher, on the event
+ * dispatcher thread for the live view and on the Swing thread for the replay. Nodes and edges
+ * removed from the graph are dropped from the culling and thereby from the super-nodes.
+ */
+public class LevelOfDetail {
+
+    public static boolean ENABLED = true;
+
+    /**
+     * Aggregates once the distance between two tokens is drawn with fewer pixels than this.
+     * The individual nodes are shown again above this value times EXPAND_HYSTERESIS.
+     */
+    public static double MIN_PIXELS_PER_TOKEN = 12.0;
+    public static double EXPAND_HYSTERESIS = 1.25;
+
+    public static long UPDATE_NANOS = 250_000_000L;
+
+    private static final String SPRITE_PREFIX = "ui.sprite.";
+
+    private final Graph graph;
+    private final GraphMutationBatcher mutations;
+
+    private final ViewportCulling culling;
+    private final Map<Class<?>, Integer> neuronTypes = new HashMap<>();
+
+    private final LongObjectMap<Group> groups = new LongObjectMap<>();
+    private Set<String> spriteIds = new HashSet<>();
+
+    private boolean aggregated;
+    private long lastUpdate;
+
+    public LevelOfDetail(AbstractViewManager<?, ?> avm) {
+        this(avm.getGraph(), avm.getMutations(), avm.getGraphManager());
+    }
+
+    public LevelOfDetail(Graph graph, GraphMutationBatcher mutations, AbstractGraphManager<?, ?, ?> graphManager) {
+        this.graph = graph;
+        this.mutations = mutations;
+        this.culling = new ViewportCulling(mutations, graphManager);
+
+        graph.addElementSink(new RemovalSink());
+    }
+
+    public boolean isAggregated() {
+        return aggregated;
+    }
+
+    public void addNode(int actId, Node n, Class<?> neuronType) {
+        Integer type = neuronTypes.computeIfAbsent(neuronType, t -> neuronTypes.size());
+        culling.addNode(actId, n, type);
+    }
+
+    public void addEdge(Edge e) {
+        culling.addEdge(e);
+    }
+
+    /**
+     * Reports a position that has not been computed by the layout.
+     */
+    public void nodeMoved(int actId, double x, double y) {
+        culling.moveMember(actId, x, y);
+    }
+
+    /**
+     * Called regularly by the thread that modifies the graph. Checks the zoom level and either
+     * moves the super-nodes along with the layout or culls the nodes outside of the viewport.
+     *
+     * @param pixelsPerGU the zoom level, read from the camera on the Swing thread.
+     * @param viewport the visible area, see {@link AbstractViewManager#getViewportGU()}.
+     */
+    public void update(double pixelsPerGU, double[] viewport) {
+        long now = System.nanoTime();
+        if(now - lastUpdate < UPDATE_NANOS)
+            return;
+        lastUpdate = now;
+
+        double pixelsPerToken = pixelsPerGU * STANDARD_DISTANCE_X;
+        if(!aggregated && ENABLED && pixelsPerToken > 0.0 && pixelsPerToken < MIN_PIXELS_PER_TOKEN)
+            setAggregated(true);
+        else if(aggregated && (!ENABLED || pixelsPerToken > MIN_PIXELS_PER_TOKEN * EXPAND_HYSTERESIS))
+            setAggregated(false);
+
+        culling.updatePositions();
+
+        if(aggregated)
+            updateSuperNodes();
+        else
+            culling.cull(viewport);
+    }
+
+    private void setAggregated(boolean aggregated) {
+        this.aggregated = aggregated;
+        culling.setAllHidden(aggregated);
+
+        if(!aggregated)
+            updateSprites(new HashSet<>());
+    }
+
+    private void updateSuperNodes() {
+        groups.clear();
+
+        int numTypes = Math.max(1, neuronTypes.size());
+        for(ViewportCulling.Member m: culling.getMembers()) {
+            if(!m.hasPosition())
+                continue;
+
+            long column = Math.round(m.x / STANDARD_DISTANCE_X);
+            long key = column * numTypes + m.type;
+
+            Group g = groups.get(key);
+            if(g == null) {
+                g = new Group("lod_" + column + "_" + m.type, m.node);
+                groups.put(key, g);
+            }
+            g.add(m.x, m.y);
+        }
+
+        Set<String> currentIds = new HashSet<>();
+        groups.forEachValue(g -> {
+            currentIds.add(g.spriteId);
+
+            String attr = SPRITE_PREFIX + g.spriteId;
+            mutations.setAttribute(graph, attr, g.sumX / g.count, g.sumY / g.count, 0.0);
+            mutations.setAttribute(graph, attr + ".ui.label", "" + g.count);
+            mutations.setAttribute(graph, attr + ".ui.style", g.getStyle());
+        });
+
+        updateSprites(currentIds);
+    }
+
+    private void updateSprites(Set<String> currentIds) {
+        for(String id: spriteIds) {
+            if(!currentIds.contains(id)) {
+                String attr = SPRITE_PREFIX + id;
+                mutations.removeAttribute(graph, attr + ".ui.label");
+                mutations.removeAttribute(graph, attr + ".ui.style");
+                mutations.removeAttribute(graph, attr);
+            }
+        }
+        spriteIds = currentIds;
+    }
+
+    /**
+     * The super-nodes are rebuilt from the remaining members on the next update.
+     */
+    private class RemovalSink implements ElementSink {
+
+        @Override
+        public void nodeAdded(String sourceId, long timeId, String nodeId) {
+        }
+
+        @Override
+        public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+            long actId = parseNodeId(nodeId);
+            if(actId != NO_ID)
+                culling.removeNode((int) actId);
+        }
+
+        @Override
+        public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId, boolean directed) {
+        }
+
+        @Override
+        public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+            culling.removeEdge(edgeId);
+        }
+
+        @Override
+        public void graphCleared(String sourceId, long timeId) {
+            culling.clear();
+        }
+
+        @Override
+        public void stepBegins(String sourceId, long timeId, double step) {
+        }
+    }
+
+    private static class Group {
+        final String spriteId;
+        final Node representative;
+
+        int count;
+        double sumX;
+        double sumY;
+
+        Group(String spriteId, Node representative) {
+            this.spriteId = spriteId;
+            this.representative = representative;
+        }
+
+        void add(double x, double y) {
+            count++;
+            sumX += x;
+            sumY += y;
+        }
+
+        String getStyle() {
+            int size = 20 + (int) (4.0 * Math.log(count) / Math.log(2.0));
+            Object nodeStyle = representative.getAttribute("ui.style");
+            return (nodeStyle != null ? nodeStyle : "") + "size: " + size + "px;";
+        }
+    }
+}
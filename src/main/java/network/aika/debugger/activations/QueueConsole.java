@@ -16,26 +16,86 @@
  */
 package network.aika.debugger.activations;
 
-import network.aika.Thought;
+import network.aika.debugger.events.EventSnapshot;
+import network.aika.debugger.events.QueueEntrySnapshot;
 import network.aika.neuron.activation.QueueEntry;
-import network.aika.debugger.AbstractConsole;
 
+import javax.swing.*;
 import javax.swing.text.StyledDocument;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
 
+import static network.aika.debugger.AbstractConsole.appendEntry;
 
-public class QueueConsole extends AbstractConsole {
+/**
+ * Shows the thought queue as a list, of which only the visible rows are painted. The queue
+ * changes carried by the events are collected on the dispatcher thread and applied to the
+ * model once per turn of the event dispatch thread.
+ */
+public class QueueConsole extends JList<QueueEntrySnapshot> {
+
+    public static final int ROW_HEIGHT = 14;
+
+    /**
+     * Sizes the cells, so that the list does not have to measure every entry.
+     */
+    public static final QueueEntrySnapshot PROTOTYPE_ENTRY = new QueueEntrySnapshot(
+            "PROCESSING-100000-100000 Propagate-Binding-Activation ",
+            "12345:BN-123456-abcdefghijklmnopqrstuvwxyz-abcdefghijklmnopqrstuvwxyz",
+            0
+    );
+
+    private final QueueListModel model = new QueueListModel();
+
+    private List<QueueEntrySnapshot> pendingAdded = new ArrayList<>();
+    private List<QueueEntry> pendingRemoved = new ArrayList<>();
+    private QueueEntrySnapshot pendingCurrent;
+    private long pendingTimestampOnProcess = -1;
+    private boolean updateScheduled;
+
+    public QueueConsole() {
+        setModel(model);
+        setCellRenderer(new QueueEntryRenderer());
+        setPrototypeCellValue(PROTOTYPE_ENTRY);
+        setOpaque(false);
+        setDoubleBuffered(false);
+    }
 
+    public void update(EventSnapshot e) {
+        if(!e.hasQueueChanges())
+            return;
 
-    public void renderQueue(StyledDocument sDoc, Thought t, QueueEntry currentQE) {
-        if(currentQE != null)
-            renderQueueEntry(sDoc, currentQE, t.getTimestampOnProcess());
+        synchronized (this) {
+            pendingAdded.addAll(e.getQueueAdded());
+            pendingRemoved.addAll(e.getQueueRemoved());
+            pendingCurrent = e.getCurrentQueueEntry();
+            pendingTimestampOnProcess = e.getTimestampOnProcess();
 
-        appendText(sDoc, "---------------------------------------------------------------------------------------------------------------------------------------------------------------------\n", "regular");
-        for(QueueEntry qe: t.getQueue()) {
-            renderQueueEntry(sDoc, qe, t.getTimestampOnProcess());
+            if(updateScheduled)
+                return;
+            updateScheduled = true;
         }
+        SwingUtilities.invokeLater(this::applyPendingChanges);
+    }
+
+    private void applyPendingChanges() {
+        List<QueueEntrySnapshot> added;
+        List<QueueEntry> removed;
+        QueueEntrySnapshot current;
+        long timestampOnProcess;
 
-        appendText(sDoc, "\n\n\n", "regular");
+        synchronized (this) {
+            added = pendingAdded;
+            removed = pendingRemoved;
+            current = pendingCurrent;
+            timestampOnProcess = pendingTimestampOnProcess;
+
+            pendingAdded = new ArrayList<>();
+            pendingRemoved = new ArrayList<>();
+            updateScheduled = false;
+        }
+        model.apply(added, removed, current, timestampOnProcess);
     }
 
     public static void renderQueueEntry(StyledDocument sDoc, QueueEntry qe, long currentTimestamp) {
@@ -52,4 +112,49 @@ public class QueueConsole extends AbstractConsole {
     public static String getQueueEntrySortKeyDescription(QueueEntry qe) {
         return qe.getStep().getPhase().name() + "-" + qe.getFired() + "-" + qe.getTimestamp() + " " + qe.getStep() + " ";
     }
+
+    private class QueueEntryRenderer extends JComponent implements ListCellRenderer<QueueEntrySnapshot> {
+
+        private final Font regular = new Font("SansSerif", Font.PLAIN, 10);
+        private final Font bold = regular.deriveFont(Font.BOLD);
+        private final Color green = new Color(0, 130, 0);
+
+        private String title;
+        private String value;
+        private boolean separator;
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends QueueEntrySnapshot> list, QueueEntrySnapshot qe, int index, boolean isSelected, boolean cellHasFocus) {
+            title = qe.getSortKey();
+            value = qe.getElementShortString();
+            separator = qe != PROTOTYPE_ENTRY && model.isCurrent(index);
+            setForeground(model.getTimestampOnProcess() <= qe.getTimestamp() ? green : Color.BLACK);
+            return this;
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            int width = 4 + getFontMetrics(bold).stringWidth(title) + getFontMetrics(regular).stringWidth(value);
+            return new Dimension(width, ROW_HEIGHT);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(getForeground());
+
+            g.setFont(bold);
+            FontMetrics fm = g.getFontMetrics();
+            int y = fm.getAscent();
+            g.drawString(title, 2, y);
+
+            int x = 2 + fm.stringWidth(title);
+            g.setFont(regular);
+            g.drawString(value, x, y);
+
+            if(separator) {
+                g.setColor(Color.BLACK);
+                g.drawLine(0, getHeight() - 1, getWidth(), getHeight() - 1);
+            }
+        }
+    }
 }
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.activations;
+
+import network.aika.debugger.events.QueueEntrySnapshot;
+import network.aika.neuron.activation.QueueEntry;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sorted view of the thought queue that is maintained from insert and remove diffs. The
+ * entries are kept in descending order, so that taking the head of the queue removes the
+ * last element of the array. Row 0 shows the entry that is currently being processed.
+ * Entries are located by binary search and every change is reported as a ranged event, unless
+ * a batch is so large that a single content change is cheaper for the list.
+ * Must only be modified on the event dispatch thread.
+ */
+public class QueueListModel extends AbstractListModel<QueueEntrySnapshot> {
+
+    public static int MAX_RANGED_EVENTS = 64;
+
+    private static final Comparator<QueueEntry> DESCENDING = QueueEntry.COMPARATOR.reversed();
+
+    private final ArrayList<QueueEntrySnapshot> entries = new ArrayList<>();
+
+    private QueueEntrySnapshot current;
+
+    private long timestampOnProcess = -1;
+
+    private boolean fireEvents;
+
+    public void apply(List<QueueEntrySnapshot> added, List<QueueEntry> removed, QueueEntrySnapshot current, long timestampOnProcess) {
+        fireEvents = added.size() + removed.size() <= MAX_RANGED_EVENTS;
+
+        setCurrent(current);
+
+        for(QueueEntrySnapshot qe: added)
+            insert(qe);
+
+        for(QueueEntry qe: removed)
+            remove(qe);
+
+        if(!fireEvents) {
+            fireContentsChanged(this, 0, Math.max(0, getSize() - 1));
+        } else if(this.timestampOnProcess != timestampOnProcess) {
+            // Changes the color of the rows
+            fireContentsChanged(this, 0, Math.max(0, getSize() - 1));
+        }
+        this.timestampOnProcess = timestampOnProcess;
+    }
+
+    private void setCurrent(QueueEntrySnapshot current) {
+        QueueEntrySnapshot previous = this.current;
+        this.current = current;
+
+        if(!fireEvents || previous == current)
+            return;
+
+        if(previous == null)
+            fireIntervalAdded(this, 0, 0);
+        else if(current == null)
+            fireIntervalRemoved(this, 0, 0);
+        else
+            fireContentsChanged(this, 0, 0);
+    }
+
+    private void insert(QueueEntrySnapshot qe) {
+        int pos = lowerBound(qe.getEntry());
+        entries.add(pos, qe);
+
+        if(fireEvents) {
+            int row = getRow(pos);
+            fireIntervalAdded(this, row, row);
+        }
+    }
+
+    private void remove(QueueEntry qe) {
+        int pos = indexOf(qe);
+        if(pos < 0)
+            return;
+
+        int row = getRow(pos);
+        entries.remove(pos);
+
+        if(fireEvents)
+            fireIntervalRemoved(this, row, row);
+    }
+
+    private int indexOf(QueueEntry qe) {
+        for(int i = lowerBound(qe); i < entries.size(); i++) {
+            QueueEntry other = entries.get(i).getEntry();
+            if(other == qe)
+                return i;
+            if(DESCENDING.compare(other, qe) != 0)
+                break;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the first position whose entry is not ordered before the given entry.
+     */
+    private int lowerBound(QueueEntry qe) {
+        int low = 0;
+        int high = entries.size();
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(DESCENDING.compare(entries.get(mid).getEntry(), qe) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private int getRow(int pos) {
+        return (current != null ? 1 : 0) + entries.size() - 1 - pos;
+    }
+
+    public boolean isCurrent(int index) {
+        return current != null && index == 0;
+    }
+
+    public long getTimestampOnProcess() {
+        return timestampOnProcess;
+    }
+
+    @Override
+    public int getSize() {
+        return entries.size() + (current != null ? 1 : 0);
+    }
+
+    @Override
+    public QueueEntrySnapshot getElementAt(int index) {
+        if(current != null) {
+            if(index == 0)
+                return current;
+            index--;
+        }
+        return entries.get(entries.size() - 1 - index);
+    }
+}
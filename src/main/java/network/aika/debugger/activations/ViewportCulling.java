@@ -0,0 +1,391 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.activations;
+
+import network.aika.debugger.AbstractGraphManager;
+import network.aika.debugger.AbstractViewManager;
+import network.aika.debugger.GraphMutationBatcher;
+import network.aika.debugger.LongObjectMap;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Node;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import static network.aika.debugger.AbstractGraphManager.parseNodeId;
+import static network.aika.debugger.AbstractLayout.STANDARD_DISTANCE_X;
+
+/**
+ * Hides the activations and links outside of the camera viewport, so that the renderer only
+ * has to deal with what is visible. The node positions are kept in a uniform grid, hence a
+ * viewport query only visits the grid cells it overlaps. Only the nodes moved by the layout
+ * since the last update are moved between the cells, and visibility changes are applied as
+ * differences to the previous query.
+ *
+ * Only used from a single thread, see {@link LevelOfDetail}.
+ */
+public class ViewportCulling {
+
+    public static boolean ENABLED = true;
+
+    /**
+     * The viewport is extended by this fraction of its size on every side, so that panning
+     * does not immediately reveal missing nodes.
+     */
+    public static double MARGIN_RATIO = 0.25;
+
+    public static double CELL_SIZE = 2 * STANDARD_DISTANCE_X;
+
+    private final AbstractGraphManager<?, ?, ?> graphManager;
+    private final GraphMutationBatcher mutations;
+
+    private final Set<Member> members = new LinkedHashSet<>();
+    private final Map<String, EdgeEntry> edges = new HashMap<>();
+    private final LongObjectMap<Member> membersByActId = new LongObjectMap<>();
+    private final LongObjectMap<List<Member>> cells = new LongObjectMap<>();
+
+    // Members that have not been put into a cell yet.
+    private final List<Member> unplaced = new ArrayList<>();
+
+    private List<Member> visible = new ArrayList<>();
+    private List<Member> nextVisible = new ArrayList<>();
+
+    // New members start with epoch 0, which is never the current one, so that showMember
+    // adds them to the visible list.
+    private int epoch = 1;
+
+    private boolean allHidden;
+
+    private final double[] position = new double[2];
+
+    public ViewportCulling(AbstractViewManager<?, ?> avm) {
+        this(avm.getMutations(), avm.getGraphManager());
+    }
+
+    public ViewportCulling(GraphMutationBatcher mutations, AbstractGraphManager<?, ?, ?> graphManager) {
+        this.mutations = mutations;
+        this.graphManager = graphManager;
+        graphManager.setTrackMoves(true);
+    }
+
+    public Collection<Member> getMembers() {
+        return members;
+    }
+
+    public Member addNode(int actId, Node n, int type) {
+        Member m = new Member(actId, n, type);
+        members.add(m);
+        membersByActId.put(actId, m);
+        unplaced.add(m);
+
+        // New activations are usually created next to the current focus, hence shown until
+        // the next query says otherwise.
+        if(allHidden)
+            setHidden(n, true);
+        else
+            showMember(m);
+
+        return m;
+    }
+
+    public void addEdge(Edge e) {
+        EdgeEntry ee = new EdgeEntry(e);
+        edges.put(e.getId(), ee);
+
+        ee.input = membersByActId.get(parseNodeId(e.getSourceNode().getId()));
+        ee.output = membersByActId.get(parseNodeId(e.getTargetNode().getId()));
+        for(Member m: new Member[] {ee.input, ee.output}) {
+            if(m == null)
+                continue;
+
+            m.edges.add(ee);
+            if(m.visible)
+                ee.visibleEnds++;
+        }
+
+        if(allHidden || ee.visibleEnds == 0)
+            setHidden(e, true);
+    }
+
+    /**
+     * Forgets the node together with its edges. No mutations are issued, since the elements
+     * are about to be removed from the graph.
+     */
+    public void removeNode(int actId) {
+        Member m = membersByActId.remove(actId);
+        if(m == null)
+            return;
+
+        members.remove(m);
+        if(m.cell != null)
+            m.cell.remove(m);
+        m.cell = null;
+
+        // Still referenced by the visible list until the next query.
+        m.removed = true;
+
+        for(EdgeEntry ee: m.edges) {
+            edges.remove(ee.edge.getId());
+
+            Member other = ee.input == m ? ee.output : ee.input;
+            if(other != null)
+                other.edges.remove(ee);
+        }
+    }
+
+    public void removeEdge(String edgeId) {
+        EdgeEntry ee = edges.remove(edgeId);
+        if(ee == null)
+            return;
+
+        if(ee.input != null)
+            ee.input.edges.remove(ee);
+        if(ee.output != null)
+            ee.output.edges.remove(ee);
+    }
+
+    public void clear() {
+        members.clear();
+        edges.clear();
+        membersByActId.clear();
+        cells.clear();
+        unplaced.clear();
+        visible.clear();
+        nextVisible.clear();
+    }
+
+    /**
+     * Hides all elements regardless of the viewport, or hands them back to the culling.
+     */
+    public void setAllHidden(boolean allHidden) {
+        if(this.allHidden == allHidden)
+            return;
+        this.allHidden = allHidden;
+
+        for(Member m: members)
+            setHidden(m.node, allHidden || !m.visible);
+        for(EdgeEntry ee: edges.values())
+            setHidden(ee.edge, allHidden || ee.visibleEnds == 0);
+    }
+
+    /**
+     * Places the new members by their particle or node attributes and moves the members moved
+     * by the layout since the last call between the grid cells. The cost depends on the number
+     * of new and moved members, not on the size of the graph.
+     */
+    public void updatePositions() {
+        if(!unplaced.isEmpty())
+            unplaced.removeIf(m -> m.removed || m.cell != null || (m.readPosition(graphManager, position) && place(m)));
+
+        graphManager.drainMovedNodes(this::moveMember);
+    }
+
+    /**
+     * Used for positions that are not computed by the layout, e.g. those of the layered layout.
+     */
+    public void moveMember(long actId, double x, double y) {
+        Member m = membersByActId.get(actId);
+        if(m == null)
+            return;
+
+        m.x = x;
+        m.y = y;
+        place(m);
+    }
+
+    private boolean place(Member m) {
+        long cellKey = getCellKey(getCell(m.x), getCell(m.y));
+        if(m.cell != null && m.cellKey == cellKey)
+            return true;
+
+        if(m.cell != null)
+            m.cell.remove(m);
+
+        List<Member> cell = cells.get(cellKey);
+        if(cell == null) {
+            cell = new ArrayList<>();
+            cells.put(cellKey, cell);
+        }
+        cell.add(m);
+        m.cell = cell;
+        m.cellKey = cellKey;
+        return true;
+    }
+
+    /**
+     * @param viewport minX, minY, maxX and maxY of the visible area in graph units.
+     */
+    public void cull(double[] viewport) {
+        if(allHidden || viewport == null)
+            return;
+
+        if(!ENABLED) {
+            members.forEach(this::showMember);
+            return;
+        }
+
+        double mx = (viewport[2] - viewport[0]) * MARGIN_RATIO;
+        double my = (viewport[3] - viewport[1]) * MARGIN_RATIO;
+        double minX = viewport[0] - mx;
+        double minY = viewport[1] - my;
+        double maxX = viewport[2] + mx;
+        double maxY = viewport[3] + my;
+
+        epoch++;
+        nextVisible.clear();
+
+        long minCX = getCell(minX);
+        long maxCX = getCell(maxX);
+        long minCY = getCell(minY);
+        long maxCY = getCell(maxY);
+
+        Consumer<Member> test = m -> {
+            if(m.cell != null && minX <= m.x && m.x <= maxX && minY <= m.y && m.y <= maxY) {
+                m.epoch = epoch;
+                nextVisible.add(m);
+            }
+        };
+
+        if((maxCX - minCX + 1) * (maxCY - minCY + 1) > members.size()) {
+            // The viewport spans more cells than there are members.
+            members.forEach(test);
+        } else {
+            for(long cx = minCX; cx <= maxCX; cx++) {
+                for(long cy = minCY; cy <= maxCY; cy++) {
+                    List<Member> cell = cells.get(getCellKey(cx, cy));
+                    if(cell != null)
+                        cell.forEach(test);
+                }
+            }
+        }
+
+        for(Member m: visible) {
+            if(m.epoch != epoch && !m.removed)
+                hideMember(m);
+        }
+        for(Member m: nextVisible)
+            showMember(m);
+
+        List<Member> tmp = visible;
+        visible = nextVisible;
+        nextVisible = tmp;
+    }
+
+    private void showMember(Member m) {
+        if(m.visible)
+            return;
+        m.visible = true;
+        if(m.epoch != epoch)
+            visible.add(m);
+
+        setHidden(m.node, false);
+        for(EdgeEntry ee: m.edges) {
+            if(ee.visibleEnds++ == 0)
+                setHidden(ee.edge, false);
+        }
+    }
+
+    private void hideMember(Member m) {
+        if(!m.visible)
+            return;
+        m.visible = false;
+
+        setHidden(m.node, true);
+        for(EdgeEntry ee: m.edges) {
+            if(--ee.visibleEnds == 0)
+                setHidden(ee.edge, true);
+        }
+    }
+
+    private void setHidden(Element e, boolean hidden) {
+        if(hidden)
+            mutations.setAttribute(e, "ui.hide");
+        else
+            mutations.removeAttribute(e, "ui.hide");
+    }
+
+    private static long getCell(double v) {
+        return (long) Math.floor(v / CELL_SIZE);
+    }
+
+    private static long getCellKey(long cx, long cy) {
+        return (cx << 32) ^ (cy & 0xFFFFFFFFL);
+    }
+
+    public static class Member {
+        final int actId;
+        final Node node;
+        final int type;
+
+        double x;
+        double y;
+
+        private List<Member> cell;
+        private long cellKey;
+        private int epoch;
+        private boolean visible;
+        private boolean removed;
+
+        private final List<EdgeEntry> edges = new ArrayList<>(2);
+
+        Member(int actId, Node node, int type) {
+            this.actId = actId;
+            this.node = node;
+            this.type = type;
+        }
+
+        boolean hasPosition() {
+            return cell != null;
+        }
+
+        private boolean readPosition(AbstractGraphManager<?, ?, ?> graphManager, double[] pos) {
+            if(graphManager.getPosition(actId, pos)) {
+                x = pos[0];
+                y = pos[1];
+                return true;
+            }
+
+            Object xyz = node.getAttribute("xyz");
+            if(xyz instanceof Object[]) {
+                Object[] values = (Object[]) xyz;
+                x = ((Number) values[0]).doubleValue();
+                y = ((Number) values[1]).doubleValue();
+                return true;
+            }
+
+            Double px = (Double) node.getAttribute("x");
+            if(px == null)
+                return false;
+
+            x = px;
+            y = 0.0;
+            return true;
+        }
+    }
+
+    private static class EdgeEntry {
+        final Edge edge;
+        Member input;
+        Member output;
+        int visibleEnds;
+
+        EdgeEntry(Edge edge) {
+            this.edge = edge;
+        }
+    }
+}
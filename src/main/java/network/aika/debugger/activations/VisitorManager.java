@@ -17,112 +17,77 @@
 package network.aika.debugger.activations;
 
 import network.aika.callbacks.VisitorEvent;
-import network.aika.callbacks.VisitorEventListener;
-import network.aika.neuron.Synapse;
-import network.aika.neuron.activation.Link;
-import network.aika.neuron.activation.visitor.ActVisitor;
-import network.aika.neuron.activation.visitor.LinkVisitor;
+import network.aika.debugger.events.EventSnapshot;
 import network.aika.neuron.activation.visitor.Visitor;
-import org.graphstream.graph.Edge;
-import org.graphstream.graph.Node;
+import org.graphstream.graph.Element;
 
-import static network.aika.debugger.StepManager.EventType.VISITOR;
-import static network.aika.debugger.StepManager.When.AFTER;
-import static network.aika.debugger.StepManager.When.BEFORE;
-
-public class VisitorManager implements VisitorEventListener {
+public class VisitorManager {
 
     private ActivationViewManager avm;
 
-    private int visitorHighlightedCounter = 0;
+    private volatile int visitorHighlightedCounter = 0;
 
     public VisitorManager(ActivationViewManager avm) {
         this.avm = avm;
-        avm.getDocument().addVisitorEventListener(this);
     }
 
     public boolean isVisitorHighlighted() {
         return visitorHighlightedCounter > 0;
     }
 
-    @Override
-    public void onVisitorEvent(Visitor v, VisitorEvent ve) {
-        if(!avm.stepManager.stopHere(BEFORE, VISITOR)) {
+    public void onVisitorEvent(EventSnapshot e) {
+        Visitor v = e.getVisitor();
+        VisitorEvent ve = e.getVisitorEvent();
 
+        if(!e.isStop()) {
             if(isVisitorHighlighted()) {
-                updateHighlighted(v, ve);
+                updateHighlighted(e);
             }
             return;
         }
 
-        avm.getVisitorConsole().render(sDoc ->
+        avm.getVisitorConsole().renderLazily(avm.whilePaused(e, sDoc ->
                 avm.getVisitorConsole().renderVisitorConsoleOutput(sDoc, v, ve, null, false)
-        );
+        ));
 
-        updateHighlighted(v, ve);
+        updateHighlighted(e);
 
         avm.pump();
-
-        avm.stepManager.waitForClick();
     }
 
-    private void updateHighlighted(Visitor v, VisitorEvent ve) {
+    /**
+     * Only uses the ids copied into the snapshot, since the visitor itself may already have
+     * moved on when the event is not a stop.
+     */
+    private void updateHighlighted(EventSnapshot e) {
         ActivationGraphManager gm = avm.getGraphManager();
+        VisitorEvent ve = e.getVisitorEvent();
 
-        if(v instanceof ActVisitor) {
-            highlightActivation((ActVisitor) v, ve, gm);
-        } else if(v instanceof LinkVisitor) {
-            highlightLink((LinkVisitor) v, ve, gm);
+        if(e.getActId() >= 0) {
+            highlight(gm.getNode((long) e.getActId()), ve);
+        } else if(e.getInputActId() >= 0 && e.getOutputActId() >= 0) {
+            highlight(gm.getEdge(e.getInputActId(), e.getOutputActId()), ve);
         }
     }
 
-    @Override
-    public void onVisitorCandidateEvent(Visitor v, Synapse s) {
-        if(!avm.stepManager.stopHere(BEFORE, VISITOR))
-            return;
-
-        avm.getVisitorConsole().render(sDoc ->
-            avm.getVisitorConsole().renderVisitorConsoleOutput(sDoc, v, null, s, true)
-        );
-
-        if(!avm.stepManager.stopHere(AFTER, VISITOR))
-            return;
+    public void onVisitorCandidateEvent(EventSnapshot e) {
+        avm.getVisitorConsole().renderLazily(avm.whilePaused(e, sDoc ->
+            avm.getVisitorConsole().renderVisitorConsoleOutput(sDoc, e.getVisitor(), null, e.getSynapse(), true)
+        ));
 
         avm.pump();
-
-        avm.stepManager.waitForClick();
     }
 
+    private void highlight(Element el, VisitorEvent ve) {
+        if(el == null)
+            return;
 
-    private void highlightActivation(ActVisitor v, VisitorEvent ve, ActivationGraphManager gm) {
-        ActVisitor av = v;
-        Node n = gm.getNode(av.getActivation());
-        if(n != null) {
-            if (ve == VisitorEvent.BEFORE) {
-                avm.highlightElement(n);
-                visitorHighlightedCounter++;
-            } else {
-                avm.unhighlightElement(n);
-                visitorHighlightedCounter--;
-            }
-        }
-    }
-
-    private void highlightLink(LinkVisitor v, VisitorEvent ve, ActivationGraphManager gm) {
-        LinkVisitor lv = v;
-        Link l = lv.getLink();
-        if(l != null) {
-            Edge e = gm.getEdge(l);
-            if (e != null) {
-                if (ve == VisitorEvent.BEFORE) {
-                    avm.highlightElement(e);
-                    visitorHighlightedCounter++;
-                } else {
-                    avm.unhighlightElement(e);
-                    visitorHighlightedCounter--;
-                }
-            }
+        if (ve == VisitorEvent.BEFORE) {
+            avm.highlightElement(el);
+            visitorHighlightedCounter++;
+        } else {
+            avm.unhighlightElement(el);
+            visitorHighlightedCounter--;
         }
     }
-
 }
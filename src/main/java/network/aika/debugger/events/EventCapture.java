@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.events;
+
+import network.aika.callbacks.EventListener;
+import network.aika.callbacks.VisitorEvent;
+import network.aika.callbacks.VisitorEventListener;
+import network.aika.debugger.StepManager;
+import network.aika.debugger.activations.ActivationViewManager;
+import network.aika.neuron.Synapse;
+import network.aika.neuron.activation.Activation;
+import network.aika.neuron.activation.Link;
+import network.aika.neuron.activation.QueueEntry;
+import network.aika.neuron.activation.visitor.Visitor;
+
+import static network.aika.debugger.StepManager.EventType.*;
+import static network.aika.debugger.StepManager.When.*;
+import static network.aika.debugger.events.EventSnapshot.Kind.AFTER_PROCESSED;
+import static network.aika.debugger.events.EventSnapshot.Kind.BEFORE_PROCESSED;
+
+/**
+ * Engine callback that only copies each event into the ring buffer. The processing thread
+ * blocks solely when the {@link StepManager} asks it to stop.
+ */
+public class EventCapture implements EventListener, VisitorEventListener {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final ActivationViewManager avm;
+    private final EventRingBuffer<EventSnapshot> buffer;
+    private final EventDispatcher dispatcher;
+    private final QueueTracker queueTracker;
+
+    private long nextSeq;
+
+    public EventCapture(ActivationViewManager avm) {
+        this(avm, DEFAULT_CAPACITY);
+    }
+
+    public EventCapture(ActivationViewManager avm, int capacity) {
+        this.avm = avm;
+        buffer = new EventRingBuffer<>(capacity);
+        queueTracker = new QueueTracker();
+        dispatcher = new EventDispatcher(buffer, avm);
+    }
+
+    public EventDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    @Override
+    public void onActivationCreationEvent(Activation act, Activation originAct, Visitor v) {
+        publish(
+                EventSnapshot.activationCreated(act, originAct, v),
+                getStepManager().stopHere(NEW, ACT)
+        );
+    }
+
+    @Override
+    public void onLinkCreationEvent(Link l, Visitor v) {
+        publish(
+                EventSnapshot.linkCreated(l, v),
+                isDrawable(l) && getStepManager().stopHere(NEW, LINK)
+        );
+    }
+
+    @Override
+    public void beforeProcessedEvent(QueueEntry qe) {
+        StepManager.EventType et = getEventType(qe);
+        if(et == null)
+            return;
+
+        publish(
+                EventSnapshot.processed(BEFORE_PROCESSED, qe),
+                (et == ACT || isDrawable((Link) qe.getElement())) && getStepManager().stopHere(BEFORE, et)
+        );
+    }
+
+    @Override
+    public void afterProcessedEvent(QueueEntry qe) {
+        StepManager.EventType et = getEventType(qe);
+        if(et == null)
+            return;
+
+        publish(
+                EventSnapshot.processed(AFTER_PROCESSED, qe),
+                getStepManager().stopHere(AFTER, et)
+        );
+    }
+
+    @Override
+    public void onVisitorEvent(Visitor v, VisitorEvent ve) {
+        boolean stop = getStepManager().stopHere(BEFORE, VISITOR);
+        if(!stop && !avm.getVisitorManager().isVisitorHighlighted())
+            return;
+
+        publish(EventSnapshot.visitor(v, ve), stop);
+    }
+
+    @Override
+    public void onVisitorCandidateEvent(Visitor v, Synapse s) {
+        // Evaluated once, a stop check may consume a pending stop after processing.
+        if(!getStepManager().stopHere(BEFORE, VISITOR))
+            return;
+
+        publish(EventSnapshot.visitorCandidate(v, s), true);
+    }
+
+    private void publish(EventSnapshot e, boolean stop) {
+        e.setSeq(nextSeq++);
+        e.setStop(stop);
+        queueTracker.capture(e);
+
+        if(stop)
+            e.setPauseId(getStepManager().pause());
+
+        buffer.put(e);
+
+        if(stop) {
+            dispatcher.wakeUp();
+            dispatcher.awaitAcknowledged(e.getSeq());
+            getStepManager().waitForClick();
+            getStepManager().resume();
+        }
+    }
+
+    private StepManager getStepManager() {
+        return avm.getStepManager();
+    }
+
+    private static StepManager.EventType getEventType(QueueEntry qe) {
+        if(qe.getElement() instanceof Activation)
+            return ACT;
+        if(qe.getElement() instanceof Link)
+            return LINK;
+        return null;
+    }
+
+    private static boolean isDrawable(Link l) {
+        return l.getInput() != null && l.getOutput() != null;
+    }
+}
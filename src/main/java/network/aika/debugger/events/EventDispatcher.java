@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.events;
+
+import network.aika.debugger.activations.ActivationViewManager;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drains captured events in batches on its own thread and applies them to the activation view.
+ */
+public class EventDispatcher implements Runnable {
+
+    public static final int MAX_BATCH_SIZE = 1024;
+
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final EventRingBuffer<EventSnapshot> buffer;
+    private final ActivationViewManager avm;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    private long acknowledgedSeq = -1;
+    private boolean released;
+
+    EventDispatcher(EventRingBuffer<EventSnapshot> buffer, ActivationViewManager avm) {
+        this.buffer = buffer;
+        this.avm = avm;
+    }
+
+    public synchronized void start() {
+        if(thread != null)
+            return;
+
+        running = true;
+        released = false;
+        thread = new Thread(this, "aika-debugger-events");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if(thread != null)
+            LockSupport.unpark(thread);
+        thread = null;
+    }
+
+    public void wakeUp() {
+        Thread t = thread;
+        if(t != null)
+            LockSupport.unpark(t);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while(running) {
+                try {
+                    step();
+                } catch(Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+        } finally {
+            // Also reached on errors, the processing thread must not wait for a dead dispatcher.
+            releaseWaiters();
+        }
+    }
+
+    private void step() {
+        avm.updateLevelOfDetail();
+
+        int n = buffer.drain(this::dispatch, MAX_BATCH_SIZE);
+        if(n == 0) {
+            if(avm.getMutations().hasPendingMutations())
+                avm.pump();
+
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+            return;
+        }
+
+        avm.pumpIfFrameDue();
+    }
+
+    private void dispatch(EventSnapshot e) {
+        try {
+            avm.applyEvent(e);
+        } catch(Throwable t) {
+            t.printStackTrace();
+            if(t instanceof Error)
+                throw (Error) t;
+        } finally {
+            if(e.isStop())
+                acknowledge(e.getSeq());
+        }
+    }
+
+    private synchronized void acknowledge(long seq) {
+        acknowledgedSeq = seq;
+        notifyAll();
+    }
+
+    private synchronized void releaseWaiters() {
+        released = true;
+        notifyAll();
+    }
+
+    public synchronized void awaitAcknowledged(long seq) {
+        try {
+            while(acknowledgedSeq < seq && !released) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+}
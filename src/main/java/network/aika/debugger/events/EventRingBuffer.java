@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free single-producer/single-consumer ring buffer.
+ */
+public class EventRingBuffer<E> {
+
+    private final Object[] entries;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    public EventRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        entries = new Object[size];
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+
+    public boolean offer(E e) {
+        long t = tail.get();
+        if(t - head.get() >= entries.length)
+            return false;
+
+        entries[(int) (t & mask)] = e;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    public void put(E e) {
+        int spins = 0;
+        while(!offer(e)) {
+            if(spins++ < 100)
+                Thread.onSpinWait();
+            else
+                LockSupport.parkNanos(10_000);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> consumer, int maxBatchSize) {
+        long h = head.get();
+        int n = (int) Math.min(tail.get() - h, maxBatchSize);
+
+        for(int i = 0; i < n; i++) {
+            int idx = (int) ((h + i) & mask);
+            E e = (E) entries[idx];
+            entries[idx] = null;
+            consumer.accept(e);
+        }
+        head.lazySet(h + n);
+        return n;
+    }
+}
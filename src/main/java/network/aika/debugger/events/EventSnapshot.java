@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.events;
+
+import network.aika.callbacks.VisitorEvent;
+import network.aika.neuron.Neuron;
+import network.aika.neuron.Synapse;
+import network.aika.neuron.activation.Activation;
+import network.aika.neuron.activation.Element;
+import network.aika.neuron.activation.Fired;
+import network.aika.neuron.activation.Link;
+import network.aika.neuron.activation.QueueEntry;
+import network.aika.neuron.activation.visitor.ActVisitor;
+import network.aika.neuron.activation.visitor.LinkVisitor;
+import network.aika.neuron.activation.visitor.Visitor;
+import network.aika.neuron.excitatory.BindingNeuronSynapse;
+import network.aika.neuron.excitatory.PatternNeuron;
+import network.aika.neuron.excitatory.SameBNSynapse;
+import network.aika.neuron.inhibitory.InhibitoryNeuron;
+import network.aika.neuron.steps.Step;
+
+import java.util.List;
+
+import static network.aika.neuron.activation.Fired.NOT_FIRED;
+
+/**
+ * Compact copy of an engine event, taken on the processing thread. The live references
+ * may only be dereferenced while the processing thread is paused at this event.
+ */
+public class EventSnapshot {
+
+    public static final long NOT_FIRED_TIMESTAMP = -1;
+
+    public enum Kind {
+        ACTIVATION_CREATED,
+        LINK_CREATED,
+        BEFORE_PROCESSED,
+        AFTER_PROCESSED,
+        VISITOR,
+        VISITOR_CANDIDATE
+    }
+
+    private final Kind kind;
+
+    private long seq;
+    private boolean stop;
+    private long pauseId = -1;
+
+    private int actId = -1;
+    private int originActId = -1;
+    private String label;
+    private Class<? extends Neuron> neuronType;
+    private boolean inputNeuron;
+    private boolean patternNeuron;
+    private long firedInputTimestamp = NOT_FIRED_TIMESTAMP;
+    private long originFiredInputTimestamp = NOT_FIRED_TIMESTAMP;
+
+    private int inputActId = -1;
+    private int outputActId = -1;
+    private boolean attracting;
+
+    private String step;
+
+
+    private List<QueueEntrySnapshot> queueAdded;
+    private List<QueueEntry> queueRemoved;
+    private QueueEntrySnapshot currentQueueEntry;
+    private long timestampOnProcess = -1;
+
+    private Activation act;
+    private Activation originAct;
+    private Link link;
+    private Synapse synapse;
+    private QueueEntry queueEntry;
+    private Visitor visitor;
+    private VisitorEvent visitorEvent;
+
+    private EventSnapshot(Kind kind) {
+        this.kind = kind;
+    }
+
+    public static EventSnapshot activationCreated(Activation act, Activation originAct, Visitor v) {
+        EventSnapshot e = new EventSnapshot(Kind.ACTIVATION_CREATED);
+        e.captureActivation(act, originAct);
+        e.visitor = v;
+        return e;
+    }
+
+    public static EventSnapshot linkCreated(Link l, Visitor v) {
+        EventSnapshot e = new EventSnapshot(Kind.LINK_CREATED);
+        e.captureLink(l);
+        e.visitor = v;
+        return e;
+    }
+
+    public static EventSnapshot processed(Kind kind, QueueEntry qe) {
+        EventSnapshot e = new EventSnapshot(kind);
+        e.queueEntry = qe;
+        e.step = Step.toString(qe.getStep());
+
+        Element el = qe.getElement();
+        if(el instanceof Activation) {
+            e.captureActivation((Activation) el, null);
+        } else if(el instanceof Link) {
+            e.captureLink((Link) el);
+        }
+        return e;
+    }
+
+    /**
+     * The ids of the activation or link the visitor currently is at are copied, so that it
+     * can be highlighted without touching the visitor after processing has resumed.
+     */
+    public static EventSnapshot visitor(Visitor v, VisitorEvent ve) {
+        EventSnapshot e = new EventSnapshot(Kind.VISITOR);
+        e.visitor = v;
+        e.visitorEvent = ve;
+
+        if(v instanceof ActVisitor) {
+            Activation act = ((ActVisitor) v).getActivation();
+            if(act != null)
+                e.actId = act.getId();
+        } else if(v instanceof LinkVisitor) {
+            Link l = ((LinkVisitor) v).getLink();
+            if(l != null && l.getInput() != null && l.getOutput() != null) {
+                e.inputActId = l.getInput().getId();
+                e.outputActId = l.getOutput().getId();
+            }
+        }
+        return e;
+    }
+
+    public static EventSnapshot visitorCandidate(Visitor v, Synapse s) {
+        EventSnapshot e = new EventSnapshot(Kind.VISITOR_CANDIDATE);
+        e.visitor = v;
+        e.synapse = s;
+        return e;
+    }
+
+    private void captureActivation(Activation act, Activation originAct) {
+        this.act = act;
+        this.originAct = originAct;
+
+        actId = act.getId();
+        label = act.getLabel();
+        neuronType = act.getNeuron().getClass();
+        inputNeuron = act.getNeuron().isInputNeuron();
+        patternNeuron = act.getNeuron() instanceof PatternNeuron;
+        firedInputTimestamp = getInputTimestamp(act.getFired());
+
+        if(originAct != null) {
+            originActId = originAct.getId();
+            originFiredInputTimestamp = getInputTimestamp(originAct.getFired());
+        }
+    }
+
+    private void captureLink(Link l) {
+        link = l;
+        synapse = l.getSynapse();
+
+        if(l.getInput() != null)
+            inputActId = l.getInput().getId();
+        if(l.getOutput() != null)
+            outputActId = l.getOutput().getId();
+        if(l.getInput() != null && l.getOutput() != null)
+            attracting = isAttracting(l);
+    }
+
+    /**
+     * Decides once, when the edge is created, whether a link pulls its output below its input.
+     * Edges of non-attracting links and plain origin edges are marked as "layout.ignored".
+     */
+    private static boolean isAttracting(Link link) {
+        Synapse s = link.getSynapse();
+        if (s instanceof BindingNeuronSynapse) {
+            BindingNeuronSynapse pps = (BindingNeuronSynapse) s;
+            boolean isRecurrent = pps.isRecurrent() && !s.getOutput().isInputNeuron();
+
+            if (isRecurrent)
+                return false;
+
+            if(link.getOutput().getNeuron().isInputNeuron() && link.getInput().getNeuron() instanceof InhibitoryNeuron)
+                return false;
+
+            if(pps instanceof SameBNSynapse)
+                return false;
+        }
+        return true;
+    }
+
+    private static long getInputTimestamp(Fired f) {
+        return f != NOT_FIRED ? f.getInputTimestamp() : NOT_FIRED_TIMESTAMP;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public boolean isStop() {
+        return stop;
+    }
+
+    void setStop(boolean stop) {
+        this.stop = stop;
+    }
+
+    /**
+     * @return the pause of the step manager the processing thread waits in for this stop, or -1.
+     */
+    public long getPauseId() {
+        return pauseId;
+    }
+
+    void setPauseId(long pauseId) {
+        this.pauseId = pauseId;
+    }
+
+    void setTimestampOnProcess(long timestampOnProcess) {
+        this.timestampOnProcess = timestampOnProcess;
+    }
+
+    void setQueueChanges(List<QueueEntrySnapshot> added, List<QueueEntry> removed, QueueEntrySnapshot current) {
+        queueAdded = added;
+        queueRemoved = removed;
+        currentQueueEntry = current;
+    }
+
+    public boolean hasQueueChanges() {
+        return queueAdded != null;
+    }
+
+    public List<QueueEntrySnapshot> getQueueAdded() {
+        return queueAdded;
+    }
+
+    public List<QueueEntry> getQueueRemoved() {
+        return queueRemoved;
+    }
+
+    public QueueEntrySnapshot getCurrentQueueEntry() {
+        return currentQueueEntry;
+    }
+
+    public long getTimestampOnProcess() {
+        return timestampOnProcess;
+    }
+
+    public boolean isActivationEvent() {
+        return act != null;
+    }
+
+    public boolean isLinkEvent() {
+        return link != null;
+    }
+
+    public int getActId() {
+        return actId;
+    }
+
+    public int getOriginActId() {
+        return originActId;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Class<? extends Neuron> getNeuronType() {
+        return neuronType;
+    }
+
+    public boolean isInputNeuron() {
+        return inputNeuron;
+    }
+
+    public boolean isPatternNeuron() {
+        return patternNeuron;
+    }
+
+    public long getFiredInputTimestamp() {
+        return firedInputTimestamp;
+    }
+
+    public long getOriginFiredInputTimestamp() {
+        return originFiredInputTimestamp;
+    }
+
+    public int getInputActId() {
+        return inputActId;
+    }
+
+    public int getOutputActId() {
+        return outputActId;
+    }
+
+    public boolean isAttracting() {
+        return attracting;
+    }
+
+    public String getStep() {
+        return step;
+    }
+
+    public Activation getActivation() {
+        return act;
+    }
+
+    public Activation getOriginActivation() {
+        return originAct;
+    }
+
+    public Link getLink() {
+        return link;
+    }
+
+    public Element getElement() {
+        return act != null ? act : link;
+    }
+
+    public Synapse getSynapse() {
+        return synapse;
+    }
+
+    public QueueEntry getQueueEntry() {
+        return queueEntry;
+    }
+
+    public Visitor getVisitor() {
+        return visitor;
+    }
+
+    public VisitorEvent getVisitorEvent() {
+        return visitorEvent;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.events;
+
+import network.aika.debugger.activations.QueueConsole;
+import network.aika.neuron.activation.QueueEntry;
+
+/**
+ * Display data of a queue entry, taken on the processing thread when the entry is first seen.
+ */
+public class QueueEntrySnapshot {
+
+    private final QueueEntry entry;
+    private final String sortKey;
+    private final String elementShortString;
+    private final long timestamp;
+
+    public QueueEntrySnapshot(QueueEntry entry) {
+        this.entry = entry;
+        sortKey = QueueConsole.getQueueEntrySortKeyDescription(entry);
+        elementShortString = entry.getElement().toShortString();
+        timestamp = entry.getTimestamp();
+    }
+
+    /**
+     * Display data without an entry, e.g. a prototype to size the list cells by.
+     */
+    public QueueEntrySnapshot(String sortKey, String elementShortString, long timestamp) {
+        this.entry = null;
+        this.sortKey = sortKey;
+        this.elementShortString = elementShortString;
+        this.timestamp = timestamp;
+    }
+
+    public QueueEntry getEntry() {
+        return entry;
+    }
+
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    public String getElementShortString() {
+        return elementShortString;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
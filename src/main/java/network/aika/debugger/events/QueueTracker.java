@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.events;
+
+import network.aika.neuron.activation.Element;
+import network.aika.neuron.activation.Link;
+import network.aika.neuron.activation.QueueEntry;
+
+import java.util.*;
+
+/**
+ * Derives queue insertions and removals from the engine events, so that the queue console
+ * does not have to walk the whole queue of the thought after every step. Runs on the
+ * processing thread: the queued entries of the elements an event touches are compared with
+ * the entries known for them, and the display data of new entries is taken right away, while
+ * nothing else modifies them.
+ */
+class QueueTracker {
+
+    private final Map<Element, List<QueueEntry>> known = new IdentityHashMap<>();
+
+    private final List<Element> recentlyCreated = new ArrayList<>();
+
+    void capture(EventSnapshot e) {
+        Element el = e.getElement();
+        if(el == null)
+            return;
+
+        List<QueueEntrySnapshot> added = new ArrayList<>();
+        List<QueueEntry> removed = new ArrayList<>();
+        QueueEntrySnapshot current = null;
+
+        switch (e.getKind()) {
+            case ACTIVATION_CREATED, LINK_CREATED -> {
+                recentlyCreated.add(el);
+                update(el, added, removed);
+            }
+            case BEFORE_PROCESSED -> {
+                QueueEntry qe = e.getQueueEntry();
+                forget(qe, removed);
+                current = new QueueEntrySnapshot(qe);
+                updateRecentlyCreated(added, removed);
+            }
+            case AFTER_PROCESSED -> {
+                update(el, added, removed);
+                updateRecentlyCreated(added, removed);
+                current = new QueueEntrySnapshot(e.getQueueEntry());
+            }
+        }
+
+        e.setTimestampOnProcess(el.getThought().getTimestampOnProcess());
+        e.setQueueChanges(added, removed, current);
+    }
+
+    private void updateRecentlyCreated(List<QueueEntrySnapshot> added, List<QueueEntry> removed) {
+        for(Element el: recentlyCreated)
+            update(el, added, removed);
+        recentlyCreated.clear();
+    }
+
+    private void update(Element el, List<QueueEntrySnapshot> added, List<QueueEntry> removed) {
+        diff(el, added, removed);
+
+        if(el instanceof Link) {
+            Link l = (Link) el;
+            if(l.getOutput() != null)
+                diff(l.getOutput(), added, removed);
+        }
+    }
+
+    /**
+     * An element only has a few queued entries, hence they are compared by a linear search.
+     */
+    private void diff(Element el, List<QueueEntrySnapshot> added, List<QueueEntry> removed) {
+        List<QueueEntry> queued = new ArrayList<>(el.getQueuedEntries());
+        List<QueueEntry> before = known.get(el);
+
+        if(before != null) {
+            for(QueueEntry qe: before) {
+                if(!containsEntry(queued, qe))
+                    removed.add(qe);
+            }
+        }
+
+        for(QueueEntry qe: queued) {
+            if(before == null || !containsEntry(before, qe))
+                added.add(new QueueEntrySnapshot(qe));
+        }
+
+        if(queued.isEmpty())
+            known.remove(el);
+        else
+            known.put(el, queued);
+    }
+
+    private void forget(QueueEntry qe, List<QueueEntry> removed) {
+        List<QueueEntry> entries = known.get(qe.getElement());
+        if(entries == null || !entries.removeIf(k -> k == qe))
+            return;
+
+        removed.add(qe);
+        if(entries.isEmpty())
+            known.remove(qe.getElement());
+    }
+
+    private static boolean containsEntry(List<QueueEntry> entries, QueueEntry qe) {
+        for(QueueEntry k: entries) {
+            if(k == qe)
+                return true;
+        }
+        return false;
+    }
+}
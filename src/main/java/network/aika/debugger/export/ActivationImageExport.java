@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.export;
+
+import network.aika.callbacks.EventListener;
+import network.aika.debugger.AbstractViewManager;
+import network.aika.debugger.AttributeWriter;
+import network.aika.debugger.LayoutState;
+import network.aika.debugger.activations.ActivationGraphManager;
+import network.aika.debugger.activations.ActivationLayout;
+import network.aika.debugger.events.EventSnapshot;
+import network.aika.neuron.Neuron;
+import network.aika.neuron.Synapse;
+import network.aika.neuron.activation.Activation;
+import network.aika.neuron.activation.Link;
+import network.aika.neuron.activation.QueueEntry;
+import network.aika.neuron.activation.visitor.Visitor;
+import network.aika.neuron.excitatory.PatternNeuron;
+import network.aika.text.Document;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.GraphReplay;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static network.aika.debugger.activations.ActivationViewManager.initActivationNode;
+
+/**
+ * Headless counterpart of the activation view: builds the activation graph of a document from
+ * its events and lays it out without a viewer, so that batch runs can write images of it.
+ * Has to be created before the document is processed; {@link #write} is called afterwards.
+ */
+public class ActivationImageExport implements EventListener {
+
+    /**
+     * Upper bound for the layout steps, in case the layout does not stabilize.
+     */
+    public static int MAX_LAYOUT_STEPS = 2000;
+
+    private final Document doc;
+    private final Graph graph = new SingleGraph("0");
+    private final ActivationGraphManager graphManager = new ActivationGraphManager(graph);
+    private final double scaleCharsToTokens;
+
+    private final Map<Class<? extends Neuron>, Consumer<Node>> neuronTypeModifiers = new HashMap<>();
+    private final Map<Class<? extends Synapse>, BiConsumer<AttributeWriter, Synapse>> synapseTypeModifiers = new HashMap<>();
+
+    public ActivationImageExport(Document doc) {
+        this.doc = doc;
+        AbstractViewManager.initModifiers(neuronTypeModifiers, synapseTypeModifiers);
+
+        long numberOfInputTokens = doc.getActivations()
+                .stream()
+                .filter(act -> act.getNeuron().isInputNeuron() && act.getNeuron() instanceof PatternNeuron)
+                .count();
+        scaleCharsToTokens = (double) numberOfInputTokens / (double) doc.length();
+
+        doc.addEventListener(this);
+    }
+
+    public ActivationGraphManager getGraphManager() {
+        return graphManager;
+    }
+
+    @Override
+    public void onActivationCreationEvent(Activation act, Activation originAct, Visitor v) {
+        EventSnapshot e = EventSnapshot.activationCreated(act, originAct, v);
+
+        graphManager.lookupNode(act, e.getLabel(), n -> {
+            if(originAct != null) {
+                Edge initialEdge = graphManager.lookupEdge(originAct, act, ie ->
+                        ie.setAttribute("layout.ignored", true)
+                );
+                initialEdge.setAttribute("ui.style", "fill-color: rgb(200,200,200);");
+            }
+
+            initActivationNode(
+                    n,
+                    e.getActId(),
+                    originAct != null ? e.getOriginActId() : null,
+                    e.isInputNeuron(),
+                    e.isPatternNeuron(),
+                    e.getFiredInputTimestamp(),
+                    e.getOriginFiredInputTimestamp(),
+                    e.getLabel(),
+                    scaleCharsToTokens
+            );
+
+            Consumer<Node> neuronTypeModifier = neuronTypeModifiers.get(e.getNeuronType());
+            if (neuronTypeModifier != null) {
+                neuronTypeModifier.accept(n);
+            }
+        });
+    }
+
+    @Override
+    public void onLinkCreationEvent(Link l, Visitor v) {
+        EventSnapshot e = EventSnapshot.linkCreated(l, v);
+        if(e.getInputActId() < 0 || e.getOutputActId() < 0)
+            return;
+
+        Edge edge = graphManager.lookupEdge(l, ie -> {});
+        edge.setAttribute("layout.ignored", !e.isAttracting());
+
+        BiConsumer<AttributeWriter, Synapse> synapseTypeModifier = synapseTypeModifiers.get(e.getSynapse().getClass());
+        if (synapseTypeModifier != null) {
+            synapseTypeModifier.accept(edge::setAttribute, e.getSynapse());
+        }
+    }
+
+    @Override
+    public void beforeProcessedEvent(QueueEntry qe) {
+    }
+
+    @Override
+    public void afterProcessedEvent(QueueEntry qe) {
+    }
+
+    /**
+     * Runs the {@link ActivationLayout} on the calling thread until it is stable, at most
+     * {@link #MAX_LAYOUT_STEPS} steps.
+     *
+     * @return the number of layout steps.
+     */
+    public int layout() {
+        ActivationLayout layout = new ActivationLayout(graphManager);
+
+        // The finished graph is replayed, so that the particles are created from the node attributes.
+        GraphReplay replay = new GraphReplay("export");
+        replay.addSink(layout);
+        replay.replay(graph);
+
+        while(layout.getComputeStep() < MAX_LAYOUT_STEPS && layout.getState() != LayoutState.STABLE)
+            layout.compute();
+
+        return layout.getComputeStep();
+    }
+
+    /**
+     * Lays out the graph and writes it as SVG if the file name ends with .svg, as PNG otherwise.
+     */
+    public void write(Path file, int width, int height) throws IOException {
+        graph.nodes().forEach(n -> {
+            Activation act = graphManager.getAikaNode(n);
+            if(act != null)
+                n.setAttribute("ui.label", act.getLabel());
+        });
+
+        layout();
+
+        GraphSnapshot s = GraphSnapshot.capture(graphManager, new GraphStyle(AbstractViewManager.STYLESHEET));
+        GraphImageExporter exporter = new GraphImageExporter(s, width, height);
+        if(file.getFileName().toString().toLowerCase().endsWith(".svg"))
+            exporter.writeSvg(file);
+        else
+            exporter.writePng(file);
+    }
+}
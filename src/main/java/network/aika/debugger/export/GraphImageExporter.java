@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.export;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Renders a {@link GraphSnapshot} with plain Java2D, without a viewer or any window, so that it
+ * also works with java.awt.headless=true. Large images are split into tiles which are culled and
+ * rendered in parallel.
+ */
+public class GraphImageExporter {
+
+    public static int TILE_SIZE = 1024;
+    public static double PADDING = 40.0;
+
+    private static final Font LABEL_FONT = new Font(Font.SANS_SERIF, Font.BOLD, 1);
+
+    private final GraphSnapshot s;
+    private final int width;
+    private final int height;
+
+    private final double scale;
+    private final double offsetX;
+    private final double offsetY;
+
+    // Screen coordinates, computed once and shared by all tiles.
+    private final float[] px;
+    private final float[] py;
+
+    // Strokes are immutable, hence edges of the same width share one.
+    private final BasicStroke[] edgeStroke;
+
+    // How far nodes and edges outside of a tile may still reach into it.
+    private final float maxRadius;
+    private final float nodeMarginX;
+    private final float nodeMarginY;
+    private final float edgeMargin;
+
+    public GraphImageExporter(GraphSnapshot s, int width, int height) {
+        this.s = s;
+        this.width = width;
+        this.height = height;
+
+        double w = Math.max(s.maxX - s.minX, 1e-9);
+        double h = Math.max(s.maxY - s.minY, 1e-9);
+        scale = s.nodeCount > 0 ?
+                Math.min((width - 2 * PADDING) / w, (height - 2 * PADDING) / h) :
+                1.0;
+
+        offsetX = (width - w * scale) / 2.0;
+        offsetY = (height - h * scale) / 2.0;
+
+        px = new float[s.nodeCount];
+        py = new float[s.nodeCount];
+        for(int i = 0; i < s.nodeCount; i++) {
+            px[i] = (float) (offsetX + (s.nodeX[i] - s.minX) * scale);
+            py[i] = (float) (height - (offsetY + (s.nodeY[i] - s.minY) * scale));
+        }
+
+        Map<Float, BasicStroke> strokes = new HashMap<>();
+        edgeStroke = new BasicStroke[s.edgeCount];
+        float maxEdgeSize = 0.0f;
+        for(int i = 0; i < s.edgeCount; i++) {
+            edgeStroke[i] = strokes.computeIfAbsent(s.edgeSize[i], BasicStroke::new);
+            maxEdgeSize = Math.max(maxEdgeSize, s.edgeSize[i]);
+        }
+        edgeMargin = s.arrowSize + maxEdgeSize;
+
+        // The labels are centered below the nodes, measured with the font used for drawing.
+        Font font = LABEL_FONT.deriveFont(s.labelSize);
+        FontRenderContext frc = new FontRenderContext(null, true, false);
+        float maxR = 0.0f;
+        float maxLabelWidth = 0.0f;
+        for(int i = 0; i < s.nodeCount; i++) {
+            maxR = Math.max(maxR, s.nodeSize[i] / 2.0f);
+            if(s.nodeLabel[i] != null)
+                maxLabelWidth = Math.max(maxLabelWidth, (float) font.getStringBounds(s.nodeLabel[i], frc).getWidth());
+        }
+        LineMetrics lm = font.getLineMetrics("Ag", frc);
+        maxRadius = maxR + 1.0f;
+        nodeMarginX = Math.max(maxRadius, maxLabelWidth / 2.0f) + 1.0f;
+        nodeMarginY = maxRadius + 2.0f + lm.getAscent() + lm.getDescent() + 1.0f;
+    }
+
+    public BufferedImage render() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        int cols = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+
+        // The sub images share the raster of the full image, but not their pixels.
+        IntStream.range(0, cols * rows).parallel().forEach(t -> {
+            int x = (t % cols) * TILE_SIZE;
+            int y = (t / cols) * TILE_SIZE;
+            renderTile(
+                    image.getSubimage(x, y, Math.min(TILE_SIZE, width - x), Math.min(TILE_SIZE, height - y)),
+                    x,
+                    y
+            );
+        });
+        return image;
+    }
+
+    public void writePng(Path file) throws IOException {
+        ImageIO.write(render(), "png", file.toFile());
+    }
+
+    /**
+     * Writes the image as separate tiles named tile_&lt;col&gt;_&lt;row&gt;.png, so that the full
+     * image never has to be held in memory.
+     */
+    public void writeTiles(Path dir, int tileSize) throws IOException {
+        Files.createDirectories(dir);
+
+        int cols = (width + tileSize - 1) / tileSize;
+        int rows = (height + tileSize - 1) / tileSize;
+
+        try {
+            IntStream.range(0, cols * rows).parallel().forEach(t -> {
+                int col = t % cols;
+                int row = t / cols;
+                int x = col * tileSize;
+                int y = row * tileSize;
+
+                BufferedImage tile = new BufferedImage(
+                        Math.min(tileSize, width - x),
+                        Math.min(tileSize, height - y),
+                        BufferedImage.TYPE_INT_ARGB
+                );
+                renderTile(tile, x, y);
+
+                try {
+                    ImageIO.write(tile, "png", dir.resolve("tile_" + col + "_" + row + ".png").toFile());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void renderTile(BufferedImage tile, int tileX, int tileY) {
+        int tw = tile.getWidth();
+        int th = tile.getHeight();
+
+        Graphics2D g = tile.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, tw, th);
+            g.translate(-tileX, -tileY);
+
+            Line2D.Float line = new Line2D.Float();
+            for(int i = 0; i < s.edgeCount; i++) {
+                int a = s.edgeFrom[i];
+                int b = s.edgeTo[i];
+                if(Math.max(px[a], px[b]) < tileX - edgeMargin || Math.min(px[a], px[b]) > tileX + tw + edgeMargin ||
+                        Math.max(py[a], py[b]) < tileY - edgeMargin || Math.min(py[a], py[b]) > tileY + th + edgeMargin)
+                    continue;
+
+                g.setColor(s.edgeColor[i]);
+                g.setStroke(edgeStroke[i]);
+                line.setLine(px[a], py[a], px[b], py[b]);
+                g.draw(line);
+                drawArrow(g, a, b);
+            }
+
+            g.setFont(LABEL_FONT.deriveFont(s.labelSize));
+            FontMetrics fm = g.getFontMetrics();
+            for(int i = 0; i < s.nodeCount; i++) {
+                // Labels only extend below the node.
+                if(px[i] < tileX - nodeMarginX || px[i] > tileX + tw + nodeMarginX ||
+                        py[i] < tileY - nodeMarginY || py[i] > tileY + th + maxRadius)
+                    continue;
+
+                float r = s.nodeSize[i] / 2.0f;
+                g.setColor(s.nodeColor[i]);
+                g.fill(new Ellipse2D.Float(px[i] - r, py[i] - r, 2 * r, 2 * r));
+
+                if(s.nodeLabel[i] != null) {
+                    g.setColor(Color.BLACK);
+                    g.drawString(
+                            s.nodeLabel[i],
+                            px[i] - fm.stringWidth(s.nodeLabel[i]) / 2.0f,
+                            py[i] + r + 2 + fm.getAscent()
+                    );
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void drawArrow(Graphics2D g, int from, int to) {
+        double dx = px[to] - px[from];
+        double dy = py[to] - py[from];
+        double len = Math.sqrt(dx * dx + dy * dy);
+        double r = s.nodeSize[to] / 2.0;
+        if(len <= r)
+            return;
+
+        AffineTransform t = g.getTransform();
+        g.translate(px[to] - dx / len * r, py[to] - dy / len * r);
+        g.rotate(Math.atan2(dy, dx));
+
+        Path2D.Float arrow = new Path2D.Float();
+        arrow.moveTo(0, 0);
+        arrow.lineTo(-s.arrowSize, -s.arrowSize * 0.6);
+        arrow.lineTo(-s.arrowSize, s.arrowSize * 0.6);
+        arrow.closePath();
+        g.fill(arrow);
+
+        g.setTransform(t);
+    }
+
+    /**
+     * Java2D has no SVG backend, so the document is written directly.
+     */
+    public void writeSvg(Path file) throws IOException {
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height + "\">\n");
+            w.write("<defs><marker id=\"arrow\" viewBox=\"0 0 10 10\" refX=\"10\" refY=\"5\" markerWidth=\"" + s.arrowSize +
+                    "\" markerHeight=\"" + s.arrowSize + "\" markerUnits=\"userSpaceOnUse\" orient=\"auto\">" +
+                    "<path d=\"M0,0 L10,5 L0,10 z\"/></marker></defs>\n");
+            w.write("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+
+            for(int i = 0; i < s.edgeCount; i++) {
+                int a = s.edgeFrom[i];
+                int b = s.edgeTo[i];
+                double dx = px[b] - px[a];
+                double dy = py[b] - py[a];
+                double len = Math.max(Math.sqrt(dx * dx + dy * dy), 1e-9);
+                double r = Math.min(s.nodeSize[b] / 2.0, len);
+
+                w.write("<line x1=\"" + px[a] + "\" y1=\"" + py[a] +
+                        "\" x2=\"" + (px[b] - dx / len * r) + "\" y2=\"" + (py[b] - dy / len * r) +
+                        "\" stroke=\"" + toSvg(s.edgeColor[i]) + "\"" + opacity("stroke-opacity", s.edgeColor[i]) +
+                        " stroke-width=\"" + s.edgeSize[i] + "\" marker-end=\"url(#arrow)\"/>\n");
+            }
+
+            for(int i = 0; i < s.nodeCount; i++) {
+                w.write("<circle cx=\"" + px[i] + "\" cy=\"" + py[i] + "\" r=\"" + s.nodeSize[i] / 2.0f +
+                        "\" fill=\"" + toSvg(s.nodeColor[i]) + "\"" + opacity("fill-opacity", s.nodeColor[i]) + "/>\n");
+
+                if(s.nodeLabel[i] != null)
+                    w.write("<text x=\"" + px[i] + "\" y=\"" + (py[i] + s.nodeSize[i] / 2.0f + 2 + s.labelSize) +
+                            "\" font-family=\"sans-serif\" font-weight=\"bold\" font-size=\"" + s.labelSize +
+                            "\" text-anchor=\"middle\">" + escape(s.nodeLabel[i]) + "</text>\n");
+            }
+            w.write("</svg>\n");
+        }
+    }
+
+    private static String toSvg(Color c) {
+        return String.format("#%02x%02x%02x", c.getRed(), c.getGreen(), c.getBlue());
+    }
+
+    private static String opacity(String attr, Color c) {
+        return c.getAlpha() < 255 ? " " + attr + "=\"" + (c.getAlpha() / 255.0f) + "\"" : "";
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.export;
+
+import network.aika.debugger.AbstractGraphManager;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Flat copy of the drawable state of a graph: positions, sizes, colors and labels of the
+ * visible nodes and edges. Capturing has to happen on the thread that mutates the graph,
+ * rendering the snapshot can then happen on any number of threads.
+ */
+public class GraphSnapshot {
+
+    private static final Color DEFAULT_NODE_COLOR = Color.BLACK;
+    private static final Color DEFAULT_EDGE_COLOR = Color.BLACK;
+
+    int nodeCount;
+    double[] nodeX;
+    double[] nodeY;
+    float[] nodeSize;
+    Color[] nodeColor;
+    String[] nodeLabel;
+    float labelSize;
+
+    int edgeCount;
+    int[] edgeFrom;
+    int[] edgeTo;
+    float[] edgeSize;
+    Color[] edgeColor;
+    float arrowSize;
+
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+
+    private GraphSnapshot(int nodeCapacity, int edgeCapacity) {
+        nodeX = new double[nodeCapacity];
+        nodeY = new double[nodeCapacity];
+        nodeSize = new float[nodeCapacity];
+        nodeColor = new Color[nodeCapacity];
+        nodeLabel = new String[nodeCapacity];
+
+        edgeFrom = new int[edgeCapacity];
+        edgeTo = new int[edgeCapacity];
+        edgeSize = new float[edgeCapacity];
+        edgeColor = new Color[edgeCapacity];
+    }
+
+    public static GraphSnapshot capture(AbstractGraphManager<?, ?, ?> gm, GraphStyle style) {
+        Graph graph = gm.getGraph();
+        GraphSnapshot s = new GraphSnapshot(graph.getNodeCount(), graph.getEdgeCount());
+
+        s.labelSize = (float) style.getSize("node", null, "text-size", 20.0);
+        s.arrowSize = (float) style.getSize("edge", null, "arrow-size", 8.0);
+
+        Map<Node, Integer> indices = new HashMap<>();
+        double[] pos = new double[2];
+        for(Node n: (Iterable<Node>) graph.nodes()::iterator) {
+            if(n.hasAttribute("ui.hide") || !getPosition(gm, n, pos))
+                continue;
+
+            Map<String, String> es = GraphStyle.parseDeclarations((String) n.getAttribute("ui.style"));
+
+            int i = s.nodeCount++;
+            indices.put(n, i);
+            s.nodeX[i] = pos[0];
+            s.nodeY[i] = pos[1];
+            s.nodeSize[i] = (float) style.getSize("node", es, "size", 10.0);
+            s.nodeColor[i] = style.getColor("node", es, "fill-color", DEFAULT_NODE_COLOR);
+            Object label = n.getAttribute("ui.label");
+            s.nodeLabel[i] = label != null ? label.toString() : null;
+
+            s.minX = Math.min(s.minX, pos[0]);
+            s.minY = Math.min(s.minY, pos[1]);
+            s.maxX = Math.max(s.maxX, pos[0]);
+            s.maxY = Math.max(s.maxY, pos[1]);
+        }
+
+        for(Edge e: (Iterable<Edge>) graph.edges()::iterator) {
+            Integer from = indices.get(e.getSourceNode());
+            Integer to = indices.get(e.getTargetNode());
+            if(e.hasAttribute("ui.hide") || from == null || to == null)
+                continue;
+
+            Map<String, String> es = GraphStyle.parseDeclarations((String) e.getAttribute("ui.style"));
+
+            int i = s.edgeCount++;
+            s.edgeFrom[i] = from;
+            s.edgeTo[i] = to;
+            s.edgeSize[i] = (float) style.getSize("edge", es, "size", 1.0);
+            s.edgeColor[i] = style.getColor("edge", es, "fill-color", DEFAULT_EDGE_COLOR);
+        }
+
+        return s;
+    }
+
+    private static boolean getPosition(AbstractGraphManager<?, ?, ?> gm, Node n, double[] pos) {
+        if(gm.getPosition(AbstractGraphManager.parseNodeId(n.getId()), pos))
+            return true;
+
+        Object xyz = n.getAttribute("xyz");
+        if(xyz instanceof Object[]) {
+            Object[] values = (Object[]) xyz;
+            pos[0] = ((Number) values[0]).doubleValue();
+            pos[1] = ((Number) values[1]).doubleValue();
+            return true;
+        }
+
+        Object x = n.getAttribute("x");
+        if(!(x instanceof Number))
+            return false;
+
+        Object y = n.getAttribute("y");
+        pos[0] = ((Number) x).doubleValue();
+        pos[1] = y instanceof Number ? ((Number) y).doubleValue() : 0.0;
+        return true;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public String toString() {
+        return "nodes:" + nodeCount + " edges:" + edgeCount + " bounds:" + Arrays.toString(new double[] {minX, minY, maxX, maxY});
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.export;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The subset of the GraphStream stylesheet that the headless exporter understands: sizes,
+ * fill and text colors and text sizes of the plain node, edge and sprite selectors, optionally
+ * overridden by the ui.style attribute of an element.
+ */
+public class GraphStyle {
+
+    private final Map<String, Map<String, String>> rules = new HashMap<>();
+
+    public GraphStyle(String stylesheet) {
+        for(String rule: stylesheet.split("}")) {
+            int i = rule.indexOf('{');
+            if(i < 0)
+                continue;
+
+            String selector = rule.substring(0, i).trim();
+            rules.computeIfAbsent(selector, s -> new HashMap<>())
+                    .putAll(parseDeclarations(rule.substring(i + 1)));
+        }
+    }
+
+    public static Map<String, String> parseDeclarations(String declarations) {
+        Map<String, String> result = new HashMap<>();
+        if(declarations == null)
+            return result;
+
+        for(String decl: declarations.split(";")) {
+            int i = decl.indexOf(':');
+            if(i > 0)
+                result.put(decl.substring(0, i).trim(), decl.substring(i + 1).trim());
+        }
+        return result;
+    }
+
+    public String get(String selector, Map<String, String> elementStyle, String property) {
+        String v = elementStyle != null ? elementStyle.get(property) : null;
+        if(v != null)
+            return v;
+
+        Map<String, String> rule = rules.get(selector);
+        return rule != null ? rule.get(property) : null;
+    }
+
+    public double getSize(String selector, Map<String, String> elementStyle, String property, double defaultValue) {
+        return parseSize(get(selector, elementStyle, property), defaultValue);
+    }
+
+    public Color getColor(String selector, Map<String, String> elementStyle, String property, Color defaultValue) {
+        Color c = parseColor(get(selector, elementStyle, property));
+        return c != null ? c : defaultValue;
+    }
+
+    /**
+     * Only the first value of a list is used, units are ignored.
+     */
+    public static double parseSize(String v, double defaultValue) {
+        if(v == null)
+            return defaultValue;
+
+        String first = v.split(",")[0].trim().replaceAll("[a-z%]+$", "");
+        try {
+            return Double.parseDouble(first);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public static Color parseColor(String v) {
+        if(v == null)
+            return null;
+
+        v = v.trim();
+        try {
+            if(v.startsWith("rgb")) {
+                String[] p = v.substring(v.indexOf('(') + 1, v.indexOf(')')).split(",");
+                int r = Integer.parseInt(p[0].trim());
+                int g = Integer.parseInt(p[1].trim());
+                int b = Integer.parseInt(p[2].trim());
+                int a = p.length > 3 ? Integer.parseInt(p[3].trim()) : 255;
+                return new Color(r, g, b, a);
+            }
+            if(v.startsWith("#") && v.length() == 4)
+                return Color.decode("#" + v.charAt(1) + v.charAt(1) + v.charAt(2) + v.charAt(2) + v.charAt(3) + v.charAt(3));
+            if(v.startsWith("#"))
+                return Color.decode(v);
+        } catch (RuntimeException e) {
+            return null;
+        }
+
+        return switch (v) {
+            case "black" -> Color.BLACK;
+            case "white" -> Color.WHITE;
+            case "red" -> Color.RED;
+            case "green" -> Color.GREEN;
+            case "blue" -> Color.BLUE;
+            case "gray", "grey" -> Color.GRAY;
+            default -> null;
+        };
+    }
+}
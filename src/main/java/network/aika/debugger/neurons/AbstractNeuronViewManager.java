@@ -18,11 +18,14 @@ package network.aika.debugger.neurons;
 
 import network.aika.Model;
 import network.aika.debugger.AbstractViewManager;
+import network.aika.debugger.AttributeWriter;
 import network.aika.neuron.Neuron;
 import network.aika.neuron.Synapse;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -30,6 +33,8 @@ public abstract class AbstractNeuronViewManager extends AbstractViewManager<Neur
 
     private Model model;
 
+    private NeuronPositionCache positionCache;
+
     public AbstractNeuronViewManager(Model model) {
         super();
         this.model = model;
@@ -39,6 +44,39 @@ public abstract class AbstractNeuronViewManager extends AbstractViewManager<Neur
         return model;
     }
 
+    public NeuronPositionCache getPositionCache() {
+        return positionCache;
+    }
+
+    /**
+     * Restores the neuron positions from the given file and keeps it up to date. Has to be
+     * set before the neurons are drawn.
+     */
+    public void setPositionCache(Path file) {
+        try {
+            positionCache = new NeuronPositionCache(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the cached positions back to disk and releases the file. Called when the view
+     * is closed.
+     */
+    @Override
+    public void close() {
+        super.close();
+        if(positionCache == null)
+            return;
+
+        try {
+            positionCache.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     public abstract void initGraphNeurons();
 
     protected void drawNeuron(Neuron<?> n, double x, double y) {
@@ -79,9 +117,9 @@ public abstract class AbstractNeuronViewManager extends AbstractViewManager<Neur
 
         Edge edge = graphManager.lookupEdge(s, e -> {});
 
-        BiConsumer<Edge, Synapse> synapseTypeModifier = synapseTypeModifiers.get(s.getClass());
+        BiConsumer<AttributeWriter, Synapse> synapseTypeModifier = synapseTypeModifiers.get(s.getClass());
         if(synapseTypeModifier != null) {
-            synapseTypeModifier.accept(edge, s);
+            synapseTypeModifier.accept(edge::setAttribute, s);
         }
         return edge;
     }
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.neurons;
+
+import network.aika.debugger.LongObjectMap;
+
+import java.util.*;
+import java.util.function.LongPredicate;
+
+/**
+ * Bookkeeping of the neurons reactivated by the {@link NeuronExpansion}. A loaded neuron is
+ * only given back for suspension once it is neither kept by the last expansion, nor shown by
+ * the view, nor used by the document.
+ */
+class LoadedNeurons<P> {
+
+    private final LongPredicate usedByDocument;
+
+    private final LongObjectMap<P> loaded = new LongObjectMap<>();
+
+    // Ids of the neurons shown by the view.
+    private final Set<Long> retained = new HashSet<>();
+
+    // Result and prefetch of the last expansion.
+    private Set<Long> kept = Collections.emptySet();
+
+    LoadedNeurons(LongPredicate usedByDocument) {
+        this.usedByDocument = usedByDocument;
+    }
+
+    synchronized void add(long id, P p) {
+        loaded.put(id, p);
+    }
+
+    /**
+     * Replaces the neurons kept by the previous expansion.
+     */
+    synchronized void keep(Set<Long> ids) {
+        kept = new HashSet<>(ids);
+    }
+
+    synchronized void retain(long id) {
+        retained.add(id);
+    }
+
+    synchronized void release(long id) {
+        retained.remove(id);
+    }
+
+    synchronized boolean isLoaded(long id) {
+        return loaded.containsKey(id);
+    }
+
+    /**
+     * @return the loaded neurons no longer in use, they are forgotten by this bookkeeping.
+     */
+    synchronized List<P> removeUnused() {
+        List<Long> unused = new ArrayList<>();
+        loaded.forEachEntry((p, id) -> {
+            if(!kept.contains(id) && !retained.contains(id) && !usedByDocument.test(id))
+                unused.add(id);
+        });
+
+        List<P> result = new ArrayList<>(unused.size());
+        for(long id: unused)
+            result.add(loaded.remove(id));
+        return result;
+    }
+}
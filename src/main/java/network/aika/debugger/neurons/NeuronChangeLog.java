@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.neurons;
+
+import network.aika.callbacks.EventListener;
+import network.aika.neuron.Neuron;
+import network.aika.neuron.Synapse;
+import network.aika.neuron.activation.Activation;
+import network.aika.neuron.activation.Element;
+import network.aika.neuron.activation.Link;
+import network.aika.neuron.activation.QueueEntry;
+import network.aika.neuron.activation.visitor.Visitor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the neurons and synapses touched by the document on the processing thread, so
+ * that the neuron view only has to apply the delta when it is displayed. Neurons show up
+ * when they are activated and again after a step, which covers induced neurons.
+ */
+public class NeuronChangeLog implements EventListener {
+
+    private Set<Neuron<?>> neurons = new LinkedHashSet<>();
+    private Set<Synapse> synapses = new LinkedHashSet<>();
+
+    // Ids of all neurons the document has touched, kept across drains.
+    private Set<Long> touchedIds = new HashSet<>();
+
+    @Override
+    public void onActivationCreationEvent(Activation act, Activation originAct, Visitor v) {
+        addNeuron(act.getNeuron());
+    }
+
+    @Override
+    public void onLinkCreationEvent(Link l, Visitor v) {
+        Synapse s = l.getSynapse();
+        if(s != null)
+            addSynapse(s);
+    }
+
+    @Override
+    public void beforeProcessedEvent(QueueEntry qe) {
+    }
+
+    @Override
+    public void afterProcessedEvent(QueueEntry qe) {
+        Element e = qe.getElement();
+        if(e instanceof Activation)
+            addNeuron(((Activation) e).getNeuron());
+    }
+
+    private synchronized void addNeuron(Neuron<?> n) {
+        neurons.add(n);
+        touchedIds.add(n.getId());
+    }
+
+    private synchronized void addSynapse(Synapse s) {
+        synapses.add(s);
+        addNeuron(s.getOutput());
+    }
+
+    /**
+     * @return true if the document has used the neuron, it must then not be suspended by the
+     * debugger.
+     */
+    public synchronized boolean isTouched(long neuronId) {
+        return touchedIds.contains(neuronId);
+    }
+
+    public synchronized boolean isEmpty() {
+        return neurons.isEmpty() && synapses.isEmpty();
+    }
+
+    /**
+     * Drops the pending changes, the touched neurons are kept.
+     */
+    public synchronized void clear() {
+        neurons.clear();
+        synapses.clear();
+    }
+
+    public synchronized List<Neuron<?>> drainNeurons() {
+        List<Neuron<?>> result = new ArrayList<>(neurons);
+        neurons.clear();
+        return result;
+    }
+
+    public synchronized List<Synapse> drainSynapses() {
+        List<Synapse> result = new ArrayList<>(synapses);
+        synapses.clear();
+        return result;
+    }
+}
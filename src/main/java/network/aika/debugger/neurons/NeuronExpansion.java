@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.neurons;
+
+import network.aika.Model;
+import network.aika.debugger.LongObjectMap;
+import network.aika.debugger.StepManager;
+import network.aika.neuron.Neuron;
+import network.aika.neuron.NeuronProvider;
+import network.aika.neuron.Synapse;
+
+import javax.swing.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Loads the k-hop synapse neighbourhood of a neuron on a background thread, so that
+ * suspended neurons are only reactivated when the user actually browses to them. After
+ * each expansion the next hop is prefetched, which makes the following click cheap.
+ * <p>
+ * The model is not thread-safe, hence the loading only runs while processing is paused at a
+ * stop, see {@link StepManager#runWhilePaused}. A request made while processing runs is
+ * carried out at the next stop. Neurons reactivated by the expansion are suspended again once
+ * they are neither shown nor prefetched, nor used by the document.
+ */
+public class NeuronExpansion {
+
+    public static int HOPS = 1;
+    public static int PREFETCH_HOPS = 1;
+
+    /**
+     * Neighbourhoods of hub neurons are truncated to this many neurons.
+     */
+    public static int MAX_NEURONS_PER_EXPANSION = 500;
+
+    public static class Result {
+        final Neuron<?> center;
+        final List<Neuron<?>> neurons = new ArrayList<>();
+        final List<Synapse> synapses = new ArrayList<>();
+
+        Result(Neuron<?> center) {
+            this.center = center;
+        }
+    }
+
+    /**
+     * The synapse graph as seen by the expansion.
+     */
+    interface Topology<N, S> {
+        long getId(N n);
+
+        void visitSynapses(N n, Consumer<S> action);
+
+        N getInput(S s);
+
+        N getOutput(S s);
+    }
+
+    private static final Topology<Neuron<?>, Synapse> NEURONS = new Topology<>() {
+        @Override
+        public long getId(Neuron<?> n) {
+            return n.getId();
+        }
+
+        @Override
+        public void visitSynapses(Neuron<?> n, Consumer<Synapse> action) {
+            n.getInputSynapses().forEach(action);
+            n.getOutputSynapses().forEach(action);
+        }
+
+        @Override
+        public Neuron<?> getInput(Synapse s) {
+            return s.getInput();
+        }
+
+        @Override
+        public Neuron<?> getOutput(Synapse s) {
+            return s.getOutput();
+        }
+    };
+
+    private final Model model;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "aika-debugger-expansion");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile StepManager stepManager;
+
+    private long generation;
+    private Runnable pending;
+
+    private final LoadedNeurons<NeuronProvider> loaded;
+
+    /**
+     * @param usedByDocument tells the neurons the document has used, they are never suspended.
+     */
+    public NeuronExpansion(Model model, LongPredicate usedByDocument) {
+        this.model = model;
+        this.loaded = new LoadedNeurons<>(usedByDocument);
+    }
+
+    /**
+     * Without a step manager the model is accessed right away, which is only safe as long as no
+     * document is processed.
+     */
+    public void setStepManager(StepManager stepManager) {
+        this.stepManager = stepManager;
+        stepManager.addPauseListener(this::submitPending);
+    }
+
+    /**
+     * @param onLoaded invoked on the event dispatch thread, unless a newer expansion has been
+     *                 requested in the meantime.
+     */
+    public synchronized void expand(long neuronId, Consumer<Result> onLoaded) {
+        long gen = ++generation;
+        pending = () -> {
+            if(!isCurrent(gen))
+                return;
+
+            LongObjectMap<NeuronProvider> active = getActiveNeurons();
+
+            Result r = load(neuronId, HOPS);
+            if(r == null)
+                return;
+
+            // Kept before the view is handed the result, which it only retains later on.
+            Set<Long> keep = new HashSet<>();
+            r.neurons.forEach(n -> keep.add(n.getId()));
+            loaded.keep(keep);
+
+            SwingUtilities.invokeLater(() -> {
+                if(isCurrent(gen))
+                    onLoaded.accept(r);
+            });
+
+            prefetch(NEURONS, r.neurons, PREFETCH_HOPS, 2 * MAX_NEURONS_PER_EXPANSION, keep, () -> isCurrent(gen));
+            loaded.keep(keep);
+
+            recordLoaded(active);
+            suspendUnused();
+        };
+        submitPending();
+    }
+
+    /**
+     * Called by the view for the neurons it shows.
+     */
+    public void retain(long neuronId) {
+        loaded.retain(neuronId);
+    }
+
+    /**
+     * Called by the view for the neurons it no longer shows. If the expansion has reactivated
+     * them, they are suspended by {@link #suspendReleased()}.
+     */
+    public void release(long neuronId) {
+        loaded.release(neuronId);
+    }
+
+    /**
+     * Suspends the released neurons now, or at the next stop if processing is running.
+     */
+    public void suspendReleased() {
+        submitPending();
+    }
+
+    private synchronized boolean isCurrent(long gen) {
+        return gen == generation;
+    }
+
+    private void submitPending() {
+        executor.submit(() -> {
+            Runnable task;
+            synchronized (this) {
+                task = pending;
+            }
+
+            boolean done = runGuarded(task != null ? task : this::suspendUnused);
+
+            synchronized (this) {
+                if(done && pending == task)
+                    pending = null;
+            }
+        });
+    }
+
+    private boolean runGuarded(Runnable task) {
+        StepManager sm = stepManager;
+        try {
+            if(sm == null) {
+                task.run();
+                return true;
+            }
+            return sm.runWhilePaused(task);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return true;
+        }
+    }
+
+    private LongObjectMap<NeuronProvider> getActiveNeurons() {
+        Collection<NeuronProvider> active = model.getActiveNeurons();
+        LongObjectMap<NeuronProvider> result = new LongObjectMap<>(active.size());
+        active.forEach(p -> result.put(p.getId(), p));
+        return result;
+    }
+
+    /**
+     * Remembers the neurons that have been activated since the given snapshot. Nothing else
+     * activates neurons meanwhile, since processing is paused.
+     */
+    private void recordLoaded(LongObjectMap<NeuronProvider> activeBefore) {
+        model.getActiveNeurons().forEach(p -> {
+            if(!activeBefore.containsKey(p.getId()))
+                loaded.add(p.getId(), p);
+        });
+    }
+
+    /**
+     * The neurons of the last expansion, including its prefetch, stay loaded until the next
+     * expansion.
+     */
+    private void suspendUnused() {
+        loaded.removeUnused().forEach(NeuronProvider::suspend);
+    }
+
+    private Result load(long neuronId, int hops) {
+        NeuronProvider np = model.lookupNeuron(neuronId);
+        if(np == null)
+            return null;
+
+        Result r = new Result(np.getNeuron());
+        collect(NEURONS, r.center, hops, MAX_NEURONS_PER_EXPANSION, r.neurons, r.synapses);
+        return r;
+    }
+
+    /**
+     * Collects the neurons up to the given number of hops around the center, but at most
+     * {@code limit} of them, and the synapses visited on the way.
+     */
+    static <N, S> void collect(Topology<N, S> t, N center, int hops, int limit, List<N> neurons, List<S> synapses) {
+        Set<Long> visited = new HashSet<>();
+        visited.add(t.getId(center));
+        neurons.add(center);
+
+        List<N> frontier = List.of(center);
+        for(int h = 0; h < hops && !frontier.isEmpty(); h++) {
+            List<N> next = new ArrayList<>();
+            for(N n: frontier) {
+                t.visitSynapses(n, s -> {
+                    synapses.add(s);
+                    addNeuron(t, t.getInput(s), limit, visited, neurons, next);
+                    addNeuron(t, t.getOutput(s), limit, visited, neurons, next);
+                });
+            }
+            frontier = next;
+        }
+    }
+
+    private static <N> void addNeuron(Topology<N, ?> t, N n, int limit, Set<Long> visited, List<N> neurons, List<N> next) {
+        if(neurons.size() >= limit || !visited.add(t.getId(n)))
+            return;
+
+        neurons.add(n);
+        next.add(n);
+    }
+
+    /**
+     * Loads the neurons up to the given number of hops beyond the expansion, without handing
+     * them to the view. Their ids are added to the given set, which holds at most
+     * {@code limit} ids.
+     */
+    static <N, S> void prefetch(Topology<N, S> t, List<N> from, int hops, int limit, Set<Long> keep, BooleanSupplier current) {
+        List<N> frontier = new ArrayList<>(from);
+        for(int h = 0; h < hops && !frontier.isEmpty(); h++) {
+            List<N> next = new ArrayList<>();
+            for(N n: frontier) {
+                if(!current.getAsBoolean() || keep.size() >= limit)
+                    return;
+
+                t.visitSynapses(n, s -> {
+                    addKept(t, t.getInput(s), limit, keep, next);
+                    addKept(t, t.getOutput(s), limit, keep, next);
+                });
+            }
+            frontier = next;
+        }
+    }
+
+    private static <N> void addKept(Topology<N, ?> t, N n, int limit, Set<Long> keep, List<N> next) {
+        if(keep.size() < limit && keep.add(t.getId(n)))
+            next.add(n);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
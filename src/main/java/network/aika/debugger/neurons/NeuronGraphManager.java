@@ -32,12 +32,17 @@ public class NeuronGraphManager extends AbstractGraphManager<Neuron, Synapse, Ne
     }
 
     @Override
-    protected Long getAikaNodeId(Neuron n) {
+    protected long getAikaNodeId(Neuron n) {
         return n.getId();
     }
 
+    @Override
+    protected String getLabel(Neuron n) {
+        return n.getLabel();
+    }
+
 
-    public Edge lookupEdge(Synapse s, Consumer<Node> onCreate) {
+    public Edge lookupEdge(Synapse s, Consumer<Edge> onCreate) {
         return lookupEdge(s.getInput(), s.getOutput(), onCreate);
     }
 
@@ -23,6 +23,8 @@ import org.graphstream.graph.Node;
 import org.graphstream.ui.layout.springbox.NodeParticle;
 import org.miv.pherd.geom.Point3;
 
+import static network.aika.debugger.AbstractGraphManager.parseNodeId;
+
 public class NeuronLayout extends AbstractLayout<NeuronGraphManager> {
     AbstractNeuronViewManager nvm;
 
@@ -36,6 +38,11 @@ public class NeuronLayout extends AbstractLayout<NeuronGraphManager> {
         K2 = 0.005f;
     }
 
+    @Override
+    protected ArrayAttraction getArrayAttraction() {
+        return ArrayAttraction.NONE;
+    }
+
     @Override
     public NodeParticle newNodeParticle(String id) {
         Model model = nvm.getModel();
@@ -48,8 +55,15 @@ public class NeuronLayout extends AbstractLayout<NeuronGraphManager> {
         Double x;
         Double y;
 
+        NeuronPositionCache cache = nvm.getPositionCache();
+        double[] cached = new double[2];
+        boolean restored = cache != null && cache.get(parseNodeId(id), cached);
+
         NeuronParticle particle;
-        if(originNeuronId != null) {
+        if(restored) {
+            x = cached[0];
+            y = cached[1];
+        } else if(originNeuronId != null) {
             NeuronParticle originParticle = graphManager.getParticle(originNeuronId);
             Point3 originPos = originParticle.getPosition();
 
@@ -66,13 +80,26 @@ public class NeuronLayout extends AbstractLayout<NeuronGraphManager> {
                 y = 0.0;
         }
 
-        x += (random.nextDouble() - 0.5) * 0.1;
-        y += (random.nextDouble() - 0.5) * 0.1;
+        if(!restored) {
+            x += (random.nextDouble() - 0.5) * 0.1;
+            y += (random.nextDouble() - 0.5) * 0.1;
+        }
 
         particle = new NeuronParticle(this, id, np.getNeuron(), x, y, 0);
+        if(restored)
+            particle.restore();
 
         graphManager.setParticle(np.getNeuron(), particle);
 
         return particle;
     }
+
+    @Override
+    public void particleMoved(Object id, double x, double y, double z) {
+        super.particleMoved(id, x, y, z);
+
+        NeuronPositionCache cache = nvm.getPositionCache();
+        if(cache != null)
+            cache.put(parseNodeId((String) id), x, y);
+    }
 }
@@ -39,7 +39,7 @@ public class NeuronParticle extends AbstractParticle {
     }
 
     @Override
-    protected void attraction(Vector3 delta) {
+    protected void computeAttraction(Vector3 delta) {
         SpringBox box = (SpringBox) this.box;
         Energies energies = box.getEnergies();
 
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.neurons;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Persists the layout positions of neurons, keyed by neuron id, in a memory-mapped file. The
+ * file is a header followed by an open addressing hash table of (id + 1, x, y) entries, 16
+ * bytes each, so lookups and updates are plain memory accesses and the operating system
+ * writes the dirty pages back to disk.
+ *
+ * Written by the layout thread and closed by the Swing thread. If the file cannot be grown,
+ * the cache is disabled and behaves as if it were empty.
+ */
+public class NeuronPositionCache implements Closeable {
+
+    private static final int MAGIC = 0x414c5043;
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int size;
+    private boolean closed;
+
+    public NeuronPositionCache(Path file) throws IOException {
+        channel = FileChannel.open(file, CREATE, READ, WRITE);
+
+        long fileSize = channel.size();
+        if(fileSize >= HEADER_SIZE) {
+            map(fileSize);
+            int c = buffer.getInt(4);
+            int s = buffer.getInt(8);
+            if(buffer.getInt(0) == MAGIC && c > 0 && Integer.bitCount(c) == 1 && fileSize == getFileSize(c) && s >= 0 && 2 * s <= c) {
+                capacity = c;
+                size = s;
+                return;
+            }
+        }
+
+        channel.truncate(0);
+        init(INITIAL_CAPACITY);
+    }
+
+    private static long getFileSize(int capacity) {
+        return HEADER_SIZE + (long) capacity * ENTRY_SIZE;
+    }
+
+    private void map(long fileSize) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void init(int capacity) throws IOException {
+        map(getFileSize(capacity));
+        this.capacity = capacity;
+        this.size = 0;
+
+        for(int i = 0; i < capacity; i++)
+            buffer.putLong(getOffset(i), 0L);
+
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, capacity);
+        buffer.putInt(8, 0);
+    }
+
+    public synchronized int size() {
+        return closed ? 0 : size;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public synchronized boolean get(long neuronId, double[] pos) {
+        if(closed)
+            return false;
+
+        int offset = getOffset(find(neuronId));
+        if(buffer.getLong(offset) == 0L)
+            return false;
+
+        pos[0] = buffer.getFloat(offset + 8);
+        pos[1] = buffer.getFloat(offset + 12);
+        return true;
+    }
+
+    public synchronized void put(long neuronId, double x, double y) {
+        if(closed)
+            return;
+
+        int offset = getOffset(find(neuronId));
+        if(buffer.getLong(offset) == 0L && 2 * (size + 1) > capacity) {
+            try {
+                grow();
+            } catch (IOException e) {
+                e.printStackTrace();
+                disable();
+                return;
+            }
+            offset = getOffset(find(neuronId));
+        }
+
+        if(buffer.getLong(offset) == 0L) {
+            buffer.putLong(offset, neuronId + 1);
+            buffer.putInt(8, ++size);
+        }
+        buffer.putFloat(offset + 8, (float) x);
+        buffer.putFloat(offset + 12, (float) y);
+    }
+
+    private int find(long neuronId) {
+        long key = neuronId + 1;
+        int mask = capacity - 1;
+        int i = hash(key) & mask;
+        while(true) {
+            long k = buffer.getLong(getOffset(i));
+            if(k == 0L || k == key)
+                return i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void grow() throws IOException {
+        int oldCapacity = capacity;
+        long[] keys = new long[size];
+        float[] xs = new float[size];
+        float[] ys = new float[size];
+
+        int n = 0;
+        for(int i = 0; i < oldCapacity; i++) {
+            int offset = getOffset(i);
+            long k = buffer.getLong(offset);
+            if(k != 0L) {
+                keys[n] = k;
+                xs[n] = buffer.getFloat(offset + 8);
+                ys[n] = buffer.getFloat(offset + 12);
+                n++;
+            }
+        }
+
+        init(oldCapacity * 2);
+
+        for(int i = 0; i < n; i++) {
+            int offset = getOffset(find(keys[i] - 1));
+            buffer.putLong(offset, keys[i]);
+            buffer.putFloat(offset + 8, xs[i]);
+            buffer.putFloat(offset + 12, ys[i]);
+        }
+        size = n;
+        buffer.putInt(8, size);
+    }
+
+    private void disable() {
+        try {
+            close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static int getOffset(int i) {
+        return HEADER_SIZE + i * ENTRY_SIZE;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if(closed)
+            return;
+
+        closed = true;
+        try {
+            buffer.force();
+        } finally {
+            buffer = null;
+            channel.close();
+        }
+    }
+}
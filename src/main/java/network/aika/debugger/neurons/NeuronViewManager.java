@@ -17,7 +17,10 @@
 package network.aika.debugger.neurons;
 
 import network.aika.Model;
+import network.aika.debugger.LongObjectMap;
+import network.aika.debugger.StepManager;
 import network.aika.neuron.Neuron;
+import network.aika.neuron.Synapse;
 import network.aika.neuron.activation.Activation;
 import network.aika.text.Document;
 import org.graphstream.graph.Node;
@@ -25,7 +28,12 @@ import org.graphstream.ui.graphicGraph.GraphicElement;
 
 import javax.swing.*;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import static network.aika.debugger.AbstractLayout.STANDARD_DISTANCE_X;
@@ -33,14 +41,37 @@ import static network.aika.debugger.AbstractLayout.STANDARD_DISTANCE_X;
 
 public class NeuronViewManager extends AbstractNeuronViewManager {
 
+    /**
+     * Upper bound for the neurons that were added by expanding a neighbourhood. The least
+     * recently expanded ones are removed from the view first.
+     */
+    public static int MAX_EXPANDED_NEURONS = 2000;
+
+    /**
+     * Number of drawn neurons checked for suspension per display of the view.
+     */
+    public static int SUSPENSION_CHECKS_PER_UPDATE = 256;
+
     private Document document;
 
+    private NeuronChangeLog changeLog = new NeuronChangeLog();
+    private LongObjectMap<Neuron<?>> drawnNeurons = new LongObjectMap<>();
+    private ArrayDeque<Long> suspensionChecks = new ArrayDeque<>();
+    private double nextX;
+    private boolean initialized;
+
+    private NeuronExpansion expansion;
+    private LinkedHashMap<Long, Neuron<?>> expandedNeurons = new LinkedHashMap<>(16, 0.75f, true);
+
     public NeuronViewManager(Model m, Document document) {
         super(m);
         graphManager = new NeuronGraphManager(graph);
         this.document = document;
+        if(document != null)
+            document.addEventListener(changeLog);
         mainConsole = new NeuronConsole();
-        viewer.enableAutoLayout(new NeuronLayout(this, graphManager));
+        expansion = new NeuronExpansion(m, changeLog::isTouched);
+        enableAutoLayout(new NeuronLayout(this, graphManager));
 
         splitPane = initSplitPane();
     }
@@ -56,6 +87,8 @@ public class NeuronViewManager extends AbstractNeuronViewManager {
             mainConsole.render(sDoc ->
                     mainConsole.renderNeuronConsoleOutput(sDoc, neuron, null)
             );
+
+            expansion.expand(neuron.getId(), r -> showExpansion(r));
         }
     }
 
@@ -72,7 +105,42 @@ public class NeuronViewManager extends AbstractNeuronViewManager {
     public void click(int x, int y) {
     }
 
+    /**
+     * Lets the neuron expansion access the model only while processing is paused.
+     */
+    public void setStepManager(StepManager stepManager) {
+        expansion.setStepManager(stepManager);
+    }
+
+    @Override
+    public void close() {
+        expansion.shutdown();
+        super.close();
+    }
+
+    public NeuronChangeLog getChangeLog() {
+        return changeLog;
+    }
+
+    /**
+     * Draws all active neurons on the first call. Afterwards only the changes recorded in
+     * the change log since the last call are applied.
+     */
     public void initGraphNeurons() {
+        if(!initialized) {
+            changeLog.clear();
+            drawAllNeurons();
+            initialized = true;
+            return;
+        }
+
+        if(!changeLog.isEmpty())
+            applyChanges();
+
+        removeSuspendedNeurons();
+    }
+
+    private void drawAllNeurons() {
 /*        Collection<Neuron> neurons = document.getActivations()
                 .stream()
                 .map(Activation::getNeuron)
@@ -86,16 +154,117 @@ public class NeuronViewManager extends AbstractNeuronViewManager {
                 .map(p -> p.getNeuron())
                 .collect(Collectors.toList());
 
-        double[] x = new double[] {0.0};
-
-        neurons.forEach(n -> {
-                    drawNeuron(n, x[0], 0.0);
-                    x[0] += STANDARD_DISTANCE_X;
-                });
+        neurons.forEach(n -> addNeuron(n));
 
         neurons.forEach(n -> {
             drawInputSynapses(n);
 //            drawOutputSynapses(n);
         });
     }
+
+    private void addNeuron(Neuron<?> n) {
+        drawNeuron(n, nextX, 0.0);
+        nextX += STANDARD_DISTANCE_X;
+        drawnNeurons.put(n.getId(), n);
+        suspensionChecks.add(n.getId());
+        expansion.retain(n.getId());
+    }
+
+    private void applyChanges() {
+        List<Neuron<?>> touched = changeLog.drainNeurons();
+        List<Synapse> synapses = changeLog.drainSynapses();
+
+        List<Neuron<?>> added = new ArrayList<>();
+        for(Neuron<?> n: touched) {
+            if(!drawnNeurons.containsKey(n.getId())) {
+                addNeuron(n);
+                added.add(n);
+            }
+        }
+
+        for(Neuron<?> n: added) {
+            drawInputSynapses(n);
+            drawOutputSynapses(n);
+        }
+
+        synapses.forEach(s -> drawSynapse(s));
+
+        touched.forEach(n -> removeStaleSynapses(n));
+    }
+
+    private void showExpansion(NeuronExpansion.Result r) {
+        Node center = graphManager.getNode(r.center);
+        for(Neuron<?> n: r.neurons) {
+            expandedNeurons.put(n.getId(), n);
+            expansion.retain(n.getId());
+            if(graphManager.getNode(n) != null)
+                continue;
+
+            graphManager.lookupNode(n, node -> {
+                if(center != null)
+                    node.setAttribute("aika.originNeuronId", r.center.getId());
+                drawNeuron(n, nextX, 0.0, node);
+            });
+        }
+
+        r.synapses.forEach(s -> drawSynapse(s));
+
+        evictExpandedNeurons();
+    }
+
+    private void evictExpandedNeurons() {
+        boolean released = false;
+        Iterator<Neuron<?>> it = expandedNeurons.values().iterator();
+        while(expandedNeurons.size() > MAX_EXPANDED_NEURONS && it.hasNext()) {
+            Neuron<?> n = it.next();
+            it.remove();
+            if(!drawnNeurons.containsKey(n.getId())) {
+                graphManager.removeNode(n);
+                expansion.release(n.getId());
+                released = true;
+            }
+        }
+
+        if(released)
+            expansion.suspendReleased();
+    }
+
+    /**
+     * Neurons are suspended outside of the document and neither the document nor the model
+     * report it. Instead of comparing all drawn neurons with the active ones, the drawn
+     * neurons are checked round robin, at most {@link #SUSPENSION_CHECKS_PER_UPDATE} per
+     * display. A suspended neuron may hence stay visible for a few displays.
+     */
+    private void removeSuspendedNeurons() {
+        int checks = Math.min(SUSPENSION_CHECKS_PER_UPDATE, suspensionChecks.size());
+        for(int i = 0; i < checks; i++) {
+            long id = suspensionChecks.poll();
+            Neuron<?> n = drawnNeurons.get(id);
+            if(n == null)
+                continue;
+
+            if(!n.getProvider().isSuspended()) {
+                suspensionChecks.add(id);
+                continue;
+            }
+
+            graphManager.removeNode(n);
+            drawnNeurons.remove(id);
+            if(!expandedNeurons.containsKey(id))
+                expansion.release(id);
+        }
+    }
+
+    private void removeStaleSynapses(Neuron<?> n) {
+        Node node = graphManager.getNode(n);
+        if(node == null)
+            return;
+
+        List<Neuron> staleInputs = node.enteringEdges()
+                .map(e -> graphManager.getInputKey(e))
+                .filter(in -> in != null && n.getInputSynapse(in.getProvider()) == null)
+                .collect(Collectors.toList());
+
+        staleInputs.forEach(in -> graphManager.removeEdge(in, n));
+    }
 }
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.neurons.templates;
+
+import network.aika.Model;
+import network.aika.debugger.LongObjectMap;
+import network.aika.debugger.neurons.NeuronGraphManager;
+import network.aika.neuron.Neuron;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Node;
+
+import java.util.*;
+
+import static network.aika.debugger.AbstractGraphManager.parseNodeId;
+
+/**
+ * Immutable copy of the drawn template graph of a model. The templates and their positions
+ * do not change for a model version, so the graph is drawn once and then only replayed into
+ * the graphs of further template views. The copy only holds the ids of the templates and
+ * plain attribute values, a cached graph must not keep its model reachable.
+ */
+public class TemplateGraph {
+
+    private static final Map<Model, TemplateGraph> CACHE = new WeakHashMap<>();
+
+    private static class NodeEntry {
+        final long neuronId;
+        final Map<String, Object> attributes;
+
+        NodeEntry(long neuronId, Map<String, Object> attributes) {
+            this.neuronId = neuronId;
+            this.attributes = attributes;
+        }
+    }
+
+    private static class EdgeEntry {
+        final long inputId;
+        final long outputId;
+        final Map<String, Object> attributes;
+
+        EdgeEntry(long inputId, long outputId, Map<String, Object> attributes) {
+            this.inputId = inputId;
+            this.outputId = outputId;
+            this.attributes = attributes;
+        }
+    }
+
+    private final List<NodeEntry> nodes;
+    private final List<EdgeEntry> edges;
+
+    private TemplateGraph(List<NodeEntry> nodes, List<EdgeEntry> edges) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.edges = Collections.unmodifiableList(edges);
+    }
+
+    public static synchronized TemplateGraph lookup(Model m) {
+        return CACHE.get(m);
+    }
+
+    public static synchronized void register(Model m, TemplateGraph tg) {
+        CACHE.putIfAbsent(m, tg);
+    }
+
+    public static TemplateGraph capture(NeuronGraphManager gm) {
+        List<NodeEntry> nodes = new ArrayList<>();
+        gm.getGraph().nodes().forEach(n ->
+                nodes.add(new NodeEntry(parseNodeId(n.getId()), copyAttributes(n)))
+        );
+
+        List<EdgeEntry> edges = new ArrayList<>();
+        gm.getGraph().edges().forEach(e ->
+                edges.add(new EdgeEntry(
+                        parseNodeId(e.getSourceNode().getId()),
+                        parseNodeId(e.getTargetNode().getId()),
+                        copyAttributes(e)
+                ))
+        );
+
+        return new TemplateGraph(nodes, edges);
+    }
+
+    /**
+     * Only copies plain values, others may refer to the model or to the view that drew them.
+     */
+    private static Map<String, Object> copyAttributes(Element e) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        e.attributeKeys().forEach(k -> {
+            Object v = e.getAttribute(k);
+            if(isPlainValue(v))
+                attributes.put(k, v);
+        });
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    private static boolean isPlainValue(Object v) {
+        if(v instanceof Object[]) {
+            for(Object o: (Object[]) v) {
+                if(!isPlainValue(o))
+                    return false;
+            }
+            return true;
+        }
+        return v == null ||
+                v instanceof String ||
+                v instanceof Number ||
+                v instanceof Boolean ||
+                v instanceof Enum ||
+                (v.getClass().isArray() && v.getClass().getComponentType().isPrimitive());
+    }
+
+    /**
+     * Resolves the template ids against the templates of the given model.
+     */
+    public void replay(Model m, NeuronGraphManager gm) {
+        LongObjectMap<Neuron<?>> templates = new LongObjectMap<>();
+        m.getTemplates()
+                .getAllTemplates()
+                .forEach(tn -> templates.put(tn.getId(), tn));
+
+        nodes.forEach(ne -> {
+            Neuron<?> n = templates.get(ne.neuronId);
+            if(n != null)
+                gm.lookupNode(n, node -> setAttributes(node, ne.attributes));
+        });
+
+        edges.forEach(ee -> {
+            Neuron<?> in = templates.get(ee.inputId);
+            Neuron<?> out = templates.get(ee.outputId);
+            if(in != null && out != null)
+                gm.lookupEdge(in, out, e -> setAttributes(e, ee.attributes));
+        });
+    }
+
+    private static void setAttributes(Element e, Map<String, Object> attributes) {
+        attributes.forEach((k, v) -> e.setAttribute(k, v));
+    }
+
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    public int getEdgeCount() {
+        return edges.size();
+    }
+}
@@ -21,7 +21,6 @@ import network.aika.neuron.Neuron;
 import network.aika.debugger.neurons.AbstractNeuronViewManager;
 import network.aika.debugger.neurons.NeuronConsole;
 import network.aika.debugger.neurons.NeuronGraphManager;
-import network.aika.debugger.neurons.NeuronLayout;
 import network.aika.neuron.Synapse;
 import network.aika.neuron.excitatory.PatternNeuron;
 import org.graphstream.graph.Edge;
@@ -34,12 +33,17 @@ import java.util.function.BiConsumer;
 
 public class TemplateViewManager extends AbstractNeuronViewManager {
 
+    private boolean initialized;
+
+    /**
+     * The templates are drawn at the fixed coordinates of their template info, so this view
+     * has no layout thread.
+     */
     public TemplateViewManager(Model m) {
         super(m);
         graphManager = new NeuronGraphManager(graph);
 
         mainConsole = new NeuronConsole();
-        viewer.enableAutoLayout(new NeuronLayout(this, graphManager));
 
         splitPane = initSplitPane();
     }
@@ -110,7 +114,21 @@ public class TemplateViewManager extends AbstractNeuronViewManager {
 
     }
 
+    /**
+     * Draws the template graph on the first call only. If another view of the same model has
+     * already drawn it, its cached copy is replayed instead.
+     */
     public void initGraphNeurons() {
+        if(initialized)
+            return;
+        initialized = true;
+
+        TemplateGraph tg = TemplateGraph.lookup(getModel());
+        if(tg != null) {
+            tg.replay(getModel(), graphManager);
+            return;
+        }
+
         getModel()
                 .getTemplates()
                 .getAllTemplates()
@@ -122,5 +140,7 @@ public class TemplateViewManager extends AbstractNeuronViewManager {
                 .forEach(tn -> {
                     drawInputSynapses(tn);
                 });
+
+        TemplateGraph.register(getModel(), TemplateGraph.capture(graphManager));
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.replay;
+
+import static network.aika.debugger.trace.TraceFormat.*;
+
+public class ActivationRecord {
+
+    private final int index;
+    private final int id;
+    private final int originId;
+    private final String neuronType;
+    private final byte flags;
+    private final long firedInputTimestamp;
+    private final long originFiredInputTimestamp;
+    private final String label;
+
+    public ActivationRecord(int index, int id, int originId, String neuronType, byte flags, long firedInputTimestamp, long originFiredInputTimestamp, String label) {
+        this.index = index;
+        this.id = id;
+        this.originId = originId;
+        this.neuronType = neuronType;
+        this.flags = flags;
+        this.firedInputTimestamp = firedInputTimestamp;
+        this.originFiredInputTimestamp = originFiredInputTimestamp;
+        this.label = label;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getOriginId() {
+        return originId;
+    }
+
+    public String getNeuronType() {
+        return neuronType;
+    }
+
+    public Class<?> getNeuronClass() {
+        return TraceReplay.resolveClass(neuronType);
+    }
+
+    public boolean isInputNeuron() {
+        return (flags & FLAG_INPUT_NEURON) != 0;
+    }
+
+    public boolean isPatternNeuron() {
+        return (flags & FLAG_PATTERN_NEURON) != 0;
+    }
+
+    public long getFiredInputTimestamp() {
+        return firedInputTimestamp;
+    }
+
+    public long getOriginFiredInputTimestamp() {
+        return originFiredInputTimestamp;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String toShortString() {
+        return id + ":" + label;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.replay;
+
+import network.aika.neuron.excitatory.BindingNeuronSynapse;
+import network.aika.neuron.excitatory.SameBNSynapse;
+import network.aika.neuron.inhibitory.InhibitoryNeuron;
+
+import static network.aika.debugger.trace.TraceFormat.FLAG_RECURRENT;
+
+public class LinkRecord {
+
+    private final int index;
+    private final ActivationRecord input;
+    private final ActivationRecord output;
+    private final String synapseType;
+    private final byte flags;
+    private final double weight;
+
+    private final boolean attracting;
+
+    public LinkRecord(int index, ActivationRecord input, ActivationRecord output, String synapseType, byte flags, double weight) {
+        this.index = index;
+        this.input = input;
+        this.output = output;
+        this.synapseType = synapseType;
+        this.flags = flags;
+        this.weight = weight;
+
+        attracting = computeAttracting();
+    }
+
+    private boolean computeAttracting() {
+        Class<?> sc = getSynapseClass();
+        if (sc == null || !BindingNeuronSynapse.class.isAssignableFrom(sc))
+            return true;
+
+        if (isRecurrent() && !output.isInputNeuron())
+            return false;
+
+        Class<?> ic = input.getNeuronClass();
+        if (output.isInputNeuron() && ic != null && InhibitoryNeuron.class.isAssignableFrom(ic))
+            return false;
+
+        return !SameBNSynapse.class.isAssignableFrom(sc);
+    }
+
+    public static long getKey(int inputId, int outputId) {
+        return ((long) inputId << 32) | (outputId & 0xFFFFFFFFL);
+    }
+
+    public long getKey() {
+        return getKey(input.getId(), output.getId());
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public ActivationRecord getInput() {
+        return input;
+    }
+
+    public ActivationRecord getOutput() {
+        return output;
+    }
+
+    public String getSynapseType() {
+        return synapseType;
+    }
+
+    public Class<?> getSynapseClass() {
+        return TraceReplay.resolveClass(synapseType);
+    }
+
+    public boolean isRecurrent() {
+        return (flags & FLAG_RECURRENT) != 0;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public boolean isAttracting() {
+        return attracting;
+    }
+
+    public String toShortString() {
+        return input.toShortString() + " --> " + output.toShortString();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.replay;
+
+public class QueueEntryRecord {
+
+    private final int id;
+    private final String phase;
+    private final String step;
+    private final long timestamp;
+    private final String fired;
+    private final String elementShortString;
+
+    public QueueEntryRecord(int id, String phase, String step, long timestamp, String fired, String elementShortString) {
+        this.id = id;
+        this.phase = phase;
+        this.step = step;
+        this.timestamp = timestamp;
+        this.fired = fired;
+        this.elementShortString = elementShortString;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getElementShortString() {
+        return elementShortString;
+    }
+
+    public String getSortKeyDescription() {
+        return phase + "-" + fired + "-" + timestamp + " " + step + " ";
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.replay;
+
+import network.aika.debugger.AbstractConsole;
+import network.aika.utils.Utils;
+
+import javax.swing.text.StyledDocument;
+import java.util.BitSet;
+
+import static network.aika.debugger.trace.TraceFormat.*;
+
+
+public class ReplayConsole extends AbstractConsole {
+
+    public void renderEventConsoleOutput(StyledDocument sDoc, TraceReplay replay, ReplayState state) {
+        appendText(sDoc, "Event " + state.getPosition() + " of " + replay.getNumberOfEvents() + "\n", "regular");
+        if(state.getPosition() == 0)
+            return;
+
+        String headline = getHeadline(state);
+
+        if(state.getCurrentElementKind() == ELEMENT_ACTIVATION) {
+            ActivationRecord act = replay.getActivation(state.getCurrentId1());
+            if(act != null)
+                renderActivationConsoleOutput(sDoc, act, state, headline);
+        } else if(state.getCurrentElementKind() == ELEMENT_LINK) {
+            LinkRecord l = replay.getLink(state.getCurrentId1(), state.getCurrentId2());
+            if(l != null)
+                renderLinkConsoleOutput(sDoc, l, headline);
+        }
+    }
+
+    private static String getHeadline(ReplayState state) {
+        return switch (state.getCurrentType()) {
+            case ACTIVATION_CREATED, LINK_CREATED -> "New";
+            case BEFORE_PROCESSED -> "Before " + state.getCurrentDetail();
+            case AFTER_PROCESSED -> "After " + state.getCurrentDetail();
+            case VISITOR -> "Visitor " + (state.getCurrentVisitorEvent() == VISITOR_AFTER ? "after" : "before");
+            case VISITOR_CANDIDATE -> "Visitor Candidate " + state.getCurrentDetail();
+            default -> null;
+        };
+    }
+
+    public void renderActivationConsoleOutput(StyledDocument sDoc, ActivationRecord act, ReplayState state, String headline) {
+        if(headline != null)
+            addHeadline(sDoc, headline);
+
+        appendText(sDoc, "Activation " + "\n", "headline");
+        appendEntry(sDoc, "Id: ", "" + act.getId());
+        appendEntry(sDoc, "Label: ", act.getLabel());
+        appendEntry(sDoc, "Neuron Type: ", act.getNeuronType());
+        appendEntry(sDoc, "Is Input Neuron: ", "" + act.isInputNeuron());
+
+        double value = state.getValue(act);
+        appendEntry(sDoc, "Value: ", !Double.isNaN(value) ? "" + Utils.round(value) : "X");
+        appendEntry(sDoc, "net: ", "" + Utils.round(state.getNet(act)));
+        appendEntry(sDoc, "Fired (Input-Timestamp): ", act.getFiredInputTimestamp() != NOT_FIRED_TIMESTAMP ? "" + act.getFiredInputTimestamp() : "X");
+        appendEntry(sDoc, "Origin: ", act.getOriginId() >= 0 ? "" + act.getOriginId() : "X");
+    }
+
+    public void renderLinkConsoleOutput(StyledDocument sDoc, LinkRecord l, String headline) {
+        if(headline != null)
+            addHeadline(sDoc, headline);
+
+        appendText(sDoc, "Link\n", "headline");
+
+        appendEntry(sDoc, "Input: ", l.getInput().toShortString());
+        appendEntry(sDoc, "Output: ", l.getOutput().toShortString());
+        appendEntry(sDoc, "Synapse Type: ", l.getSynapseType());
+        appendEntry(sDoc, "Weight: ", "" + Utils.round(l.getWeight()));
+        appendEntry(sDoc, "Recurrent: ", "" + l.isRecurrent());
+    }
+
+    public void renderQueue(StyledDocument sDoc, TraceReplay replay, ReplayState state) {
+        QueueEntryRecord processed = replay.getQueueEntry(state.getProcessedEntryId());
+        long currentTimestamp = processed != null ? processed.getTimestamp() : 0;
+
+        QueueEntryRecord current = replay.getQueueEntry(state.getCurrentEntryId());
+        if(current != null)
+            renderQueueEntry(sDoc, current, currentTimestamp);
+
+        appendText(sDoc, "---------------------------------------------------------------------------------------------------------------------------------------------------------------------\n", "regular");
+
+        BitSet queue = state.getQueue();
+        for(int id = queue.nextSetBit(0); id >= 0; id = queue.nextSetBit(id + 1)) {
+            QueueEntryRecord qe = replay.getQueueEntry(id);
+            if(qe != null)
+                renderQueueEntry(sDoc, qe, currentTimestamp);
+        }
+
+        appendText(sDoc, "\n\n\n", "regular");
+    }
+
+    private static void renderQueueEntry(StyledDocument sDoc, QueueEntryRecord qe, long currentTimestamp) {
+        boolean isGreen = currentTimestamp <= qe.getTimestamp();
+        appendEntry(
+                sDoc,
+                qe.getSortKeyDescription(),
+                qe.getElementShortString(),
+                isGreen ? "boldGreen" : "bold",
+                isGreen ? "regularGreen" : "regular"
+        );
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.replay;
+
+import network.aika.debugger.AbstractGraphManager;
+import network.aika.debugger.activations.ActivationParticle;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+import java.util.function.Consumer;
+
+public class ReplayGraphManager extends AbstractGraphManager<ActivationRecord, LinkRecord, ActivationParticle> {
+
+    private TraceReplay replay;
+
+    public ReplayGraphManager(Graph graph, TraceReplay replay) {
+        super(graph);
+        this.replay = replay;
+    }
+
+    @Override
+    protected long getAikaNodeId(ActivationRecord act) {
+        return act.getId();
+    }
+
+    @Override
+    protected String getLabel(ActivationRecord act) {
+        return act.getLabel();
+    }
+
+    @Override
+    public Edge lookupEdge(LinkRecord l, Consumer<Edge> onCreate) {
+        return lookupEdge(l.getInput(), l.getOutput(), onCreate);
+    }
+
+    @Override
+    public Edge getEdge(LinkRecord l) {
+        return getEdge(l.getInput(), l.getOutput());
+    }
+
+    @Override
+    public LinkRecord getLink(Edge e) {
+        ActivationRecord iAct = getAikaNode(e.getSourceNode());
+        ActivationRecord oAct = getAikaNode(e.getTargetNode());
+        if(iAct == null || oAct == null)
+            return null;
+
+        return replay.getLink(iAct.getId(), oAct.getId());
+    }
+
+    public LinkRecord getLink(ActivationRecord actA, ActivationRecord actB) {
+        LinkRecord l = replay.getLink(actA.getId(), actB.getId());
+        if(l != null)
+            return l;
+        return replay.getLink(actB.getId(), actA.getId());
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.replay;
+
+import network.aika.debugger.trace.TraceRecord;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static network.aika.debugger.trace.TraceFormat.*;
+
+/**
+ * The replayed state at a given position of the trace. Activations, links and queue entries are
+ * append-only, so apart from the counters only the activation values and the set of queued entries
+ * need to be captured by a checkpoint. Only keyframe checkpoints copy them completely, the others
+ * hold the activations and queue entries changed since the previous checkpoint.
+ */
+public class ReplayState {
+
+    private int position;
+
+    private int numberOfActivations;
+    private int numberOfLinks;
+
+    private double[] values = new double[1024];
+    private double[] nets = new double[1024];
+
+    private BitSet queue = new BitSet();
+
+    private final BitSet changedActivations = new BitSet();
+    private final BitSet changedEntries = new BitSet();
+
+    private byte currentType;
+    private String currentDetail;
+    private byte currentElementKind = -1;
+    private int currentId1 = -1;
+    private int currentId2 = -1;
+    private int currentEntryId = -1;
+    private int processedEntryId = -1;
+    private byte currentVisitorEvent = -1;
+
+    public static class Checkpoint {
+        private final int position;
+        private final int numberOfActivations;
+        private final int numberOfLinks;
+
+        private final boolean keyframe;
+
+        /**
+         * The activation indices the values belong to, null for keyframes which hold all values.
+         */
+        private final int[] activations;
+        private final double[] values;
+        private final double[] nets;
+
+        /**
+         * The queue entries whose state is stored, null for keyframes which hold the whole queue.
+         */
+        private final BitSet entries;
+        private final BitSet queue;
+
+        private final byte currentType;
+        private final String currentDetail;
+        private final byte currentElementKind;
+        private final int currentId1;
+        private final int currentId2;
+        private final int currentEntryId;
+        private final int processedEntryId;
+        private final byte currentVisitorEvent;
+
+        private Checkpoint(ReplayState s, boolean keyframe) {
+            position = s.position;
+            numberOfActivations = s.numberOfActivations;
+            numberOfLinks = s.numberOfLinks;
+            this.keyframe = keyframe;
+
+            if(keyframe) {
+                activations = null;
+                values = Arrays.copyOf(s.values, s.numberOfActivations);
+                nets = Arrays.copyOf(s.nets, s.numberOfActivations);
+                entries = null;
+                queue = (BitSet) s.queue.clone();
+            } else {
+                activations = s.changedActivations.stream().toArray();
+                values = new double[activations.length];
+                nets = new double[activations.length];
+                for(int i = 0; i < activations.length; i++) {
+                    values[i] = s.values[activations[i]];
+                    nets[i] = s.nets[activations[i]];
+                }
+                entries = (BitSet) s.changedEntries.clone();
+                queue = (BitSet) s.queue.clone();
+                queue.and(entries);
+            }
+
+            currentType = s.currentType;
+            currentDetail = s.currentDetail;
+            currentElementKind = s.currentElementKind;
+            currentId1 = s.currentId1;
+            currentId2 = s.currentId2;
+            currentEntryId = s.currentEntryId;
+            processedEntryId = s.processedEntryId;
+            currentVisitorEvent = s.currentVisitorEvent;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public boolean isKeyframe() {
+            return keyframe;
+        }
+    }
+
+    /**
+     * Starts a new delta, the next checkpoint only contains the changes made after this one.
+     */
+    public Checkpoint checkpoint(boolean keyframe) {
+        Checkpoint cp = new Checkpoint(this, keyframe);
+        changedActivations.clear();
+        changedEntries.clear();
+        return cp;
+    }
+
+    public void restore(Checkpoint cp) {
+        if(!cp.keyframe)
+            throw new IllegalArgumentException("Only keyframes can be restored, deltas need to be applied on top of them.");
+
+        ensureCapacity(cp.numberOfActivations);
+        System.arraycopy(cp.values, 0, values, 0, cp.numberOfActivations);
+        System.arraycopy(cp.nets, 0, nets, 0, cp.numberOfActivations);
+        queue = (BitSet) cp.queue.clone();
+
+        restoreCurrent(cp);
+    }
+
+    /**
+     * Applies a delta checkpoint to the state restored from the preceding checkpoint.
+     */
+    public void applyDelta(Checkpoint cp) {
+        if(cp.keyframe) {
+            restore(cp);
+            return;
+        }
+
+        ensureCapacity(cp.numberOfActivations);
+        for(int i = 0; i < cp.activations.length; i++) {
+            values[cp.activations[i]] = cp.values[i];
+            nets[cp.activations[i]] = cp.nets[i];
+        }
+        for(int id = cp.entries.nextSetBit(0); id >= 0; id = cp.entries.nextSetBit(id + 1))
+            queue.set(id, cp.queue.get(id));
+
+        restoreCurrent(cp);
+    }
+
+    private void restoreCurrent(Checkpoint cp) {
+        position = cp.position;
+        numberOfActivations = cp.numberOfActivations;
+        numberOfLinks = cp.numberOfLinks;
+
+        currentType = cp.currentType;
+        currentDetail = cp.currentDetail;
+        currentElementKind = cp.currentElementKind;
+        currentId1 = cp.currentId1;
+        currentId2 = cp.currentId2;
+        currentEntryId = cp.currentEntryId;
+        processedEntryId = cp.processedEntryId;
+        currentVisitorEvent = cp.currentVisitorEvent;
+
+        changedActivations.clear();
+        changedEntries.clear();
+    }
+
+    public void apply(TraceRecord r, TraceReplay replay) {
+        position++;
+        currentType = r.getType();
+        currentDetail = null;
+        currentEntryId = -1;
+        currentVisitorEvent = -1;
+
+        switch (r.getType()) {
+            case ACTIVATION_CREATED -> {
+                int id = r.readInt();
+                r.readInt();
+                r.readInt();
+                r.readByte();
+                r.readLong();
+                r.readLong();
+                r.readString();
+
+                int idx = numberOfActivations++;
+                ensureCapacity(numberOfActivations);
+                values[idx] = r.readDouble();
+                nets[idx] = r.readDouble();
+                changedActivations.set(idx);
+
+                setCurrentElement(ELEMENT_ACTIVATION, id, -1);
+            }
+            case LINK_CREATED -> {
+                setCurrentElement(ELEMENT_LINK, r.readInt(), r.readInt());
+
+                LinkRecord l = replay.getLink(currentId1, currentId2);
+                if(l != null && l.getIndex() == numberOfLinks)
+                    numberOfLinks++;
+            }
+            case BEFORE_PROCESSED, AFTER_PROCESSED -> {
+                currentEntryId = r.readInt();
+                processedEntryId = currentEntryId;
+                currentDetail = r.readStringRef();
+                byte kind = r.readByte();
+                setCurrentElement(kind, r.readInt(), r.readInt());
+
+                if(kind == ELEMENT_ACTIVATION) {
+                    ActivationRecord act = replay.getActivation(currentId1);
+                    if(act != null) {
+                        values[act.getIndex()] = r.readDouble();
+                        nets[act.getIndex()] = r.readDouble();
+                        changedActivations.set(act.getIndex());
+                    }
+                }
+            }
+            case QUEUE_ENTRY_ADDED -> {
+                int entryId = r.readInt();
+                queue.set(entryId);
+                changedEntries.set(entryId);
+            }
+            case QUEUE_ENTRY_REMOVED -> {
+                int entryId = r.readInt();
+                queue.clear(entryId);
+                changedEntries.set(entryId);
+            }
+            case VISITOR -> {
+                currentVisitorEvent = r.readByte();
+                r.readInt();
+                setCurrentElement(r.readByte(), r.readInt(), r.readInt());
+            }
+            case VISITOR_CANDIDATE -> {
+                r.readInt();
+                currentDetail = r.readStringRef();
+                setCurrentElement(r.readByte(), r.readInt(), r.readInt());
+            }
+            default -> setCurrentElement((byte) -1, -1, -1);
+        }
+    }
+
+    private void setCurrentElement(byte kind, int id1, int id2) {
+        currentElementKind = kind;
+        currentId1 = id1;
+        currentId2 = id2;
+    }
+
+    private void ensureCapacity(int n) {
+        if(n <= values.length)
+            return;
+
+        int size = Math.max(n, values.length * 2);
+        values = Arrays.copyOf(values, size);
+        nets = Arrays.copyOf(nets, size);
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public int getNumberOfActivations() {
+        return numberOfActivations;
+    }
+
+    public int getNumberOfLinks() {
+        return numberOfLinks;
+    }
+
+    public double getValue(ActivationRecord act) {
+        return values[act.getIndex()];
+    }
+
+    public double getNet(ActivationRecord act) {
+        return nets[act.getIndex()];
+    }
+
+    public BitSet getQueue() {
+        return queue;
+    }
+
+    public byte getCurrentType() {
+        return currentType;
+    }
+
+    public String getCurrentDetail() {
+        return currentDetail;
+    }
+
+    public byte getCurrentElementKind() {
+        return currentElementKind;
+    }
+
+    public int getCurrentId1() {
+        return currentId1;
+    }
+
+    public int getCurrentId2() {
+        return currentId2;
+    }
+
+    public int getCurrentEntryId() {
+        return currentEntryId;
+    }
+
+    public int getProcessedEntryId() {
+        return processedEntryId;
+    }
+
+    public byte getCurrentVisitorEvent() {
+        return currentVisitorEvent;
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.replay;
+
+import network.aika.debugger.AbstractViewManager;
+import network.aika.debugger.AttributeWriter;
+import network.aika.debugger.activations.ActivationLayout;
+import network.aika.debugger.activations.LevelOfDetail;
+import network.aika.neuron.Synapse;
+import network.aika.neuron.excitatory.SameBNSynapse;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Node;
+import org.graphstream.ui.graphicGraph.GraphicElement;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static network.aika.debugger.AbstractLayout.STANDARD_DISTANCE_X;
+import static network.aika.debugger.AbstractLayout.STANDARD_DISTANCE_Y;
+import static network.aika.debugger.activations.ActivationViewManager.initActivationNode;
+import static network.aika.debugger.trace.TraceFormat.*;
+
+/**
+ * Activations view for a recorded trace. The slider scrubs forward and backward through the events;
+ * the graph is updated by adding or removing the activations and links created in between. Uses the
+ * layout, level of detail and culling of the live activations view. Unlike there, all graph changes
+ * are made on the Swing thread.
+ */
+public class ReplayViewManager extends AbstractViewManager<ReplayConsole, ReplayGraphManager> {
+
+    private TraceReplay replay;
+
+    private ReplayConsole queueConsole;
+
+    private JTabbedPane replayViewTabbedPane;
+
+    private JSlider slider;
+
+    private LevelOfDetail levelOfDetail;
+
+    private int shownActivations;
+    private int shownLinks;
+
+    public ReplayViewManager(TraceReplay replay) {
+        super();
+        this.replay = replay;
+
+        double width = replay.getNumberOfInputTokens() * STANDARD_DISTANCE_X;
+        double height = 3 * STANDARD_DISTANCE_Y;
+
+        getCamera().setGraphViewport(-(width / 2), -(height / 2), (width / 2), (height / 2));
+        getCamera().setViewCenter(0.20, 0.20, 0.0);
+
+        graphManager = new ReplayGraphManager(graph, replay);
+        levelOfDetail = new LevelOfDetail(this);
+
+        mainConsole = new ReplayConsole();
+        selectedConsole = new ReplayConsole();
+        queueConsole = new ReplayConsole();
+
+        enableAutoLayout(new ActivationLayout(graphManager));
+
+        splitPane = initSplitPane();
+
+        seek(0);
+
+        new Timer((int) (LevelOfDetail.UPDATE_NANOS / 1_000_000L), e -> updateLevelOfDetail())
+                .start();
+    }
+
+    public TraceReplay getReplay() {
+        return replay;
+    }
+
+    public JSlider getSlider() {
+        return slider;
+    }
+
+    public void seek(int position) {
+        ReplayState state = replay.seek(position);
+
+        if(lastHighlighted != null) {
+            unhighlightElement(lastHighlighted);
+            lastHighlighted = null;
+        }
+
+        syncGraph(state);
+        highlightCurrent(state);
+
+        mainConsole.renderLazily(sDoc ->
+                mainConsole.renderEventConsoleOutput(sDoc, replay, state)
+        );
+        queueConsole.renderLazily(sDoc ->
+                queueConsole.renderQueue(sDoc, replay, state)
+        );
+
+        pump();
+    }
+
+    private void updateLevelOfDetail() {
+        levelOfDetail.update(getPixelsPerGU(), getViewportGU());
+
+        if(mutations.hasPendingMutations())
+            pump();
+    }
+
+    private void syncGraph(ReplayState state) {
+        List<ActivationRecord> acts = replay.getActivations();
+        List<LinkRecord> links = replay.getLinks();
+
+        if(shownActivations - state.getNumberOfActivations() > state.getNumberOfActivations()) {
+            // Cheaper to redraw the remaining activations than to remove the others one by one.
+            clearGraph();
+            shownActivations = 0;
+            shownLinks = 0;
+        }
+
+        // The links between removed activations disappear along with them.
+        while(shownActivations > state.getNumberOfActivations())
+            graphManager.removeNode(acts.get(--shownActivations));
+
+        while(shownLinks > state.getNumberOfLinks())
+            removeLink(links.get(--shownLinks));
+
+        while(shownActivations < state.getNumberOfActivations())
+            drawActivation(acts.get(shownActivations++));
+
+        while(shownLinks < state.getNumberOfLinks())
+            drawLink(links.get(shownLinks++));
+    }
+
+    private void drawActivation(ActivationRecord act) {
+        ActivationRecord originAct = replay.getActivation(act.getOriginId());
+
+        Node node = graphManager.lookupNode(act, n -> {
+            levelOfDetail.addNode(act.getId(), n, act.getNeuronClass());
+
+            if(originAct != null && graphManager.getNode(originAct) != null) {
+                Edge initialEdge = graphManager.lookupEdge(originAct, act, ie -> {
+                    ie.setAttribute("layout.ignored", true);
+                    levelOfDetail.addEdge(ie);
+                });
+                initialEdge.setAttribute("ui.style", "fill-color: rgb(200,200,200);");
+            }
+
+            initActivationNode(
+                    n,
+                    act.getId(),
+                    originAct != null ? originAct.getId() : null,
+                    act.isInputNeuron(),
+                    act.isPatternNeuron(),
+                    act.getFiredInputTimestamp(),
+                    act.getOriginFiredInputTimestamp(),
+                    act.getLabel(),
+                    scaleCharsToTokens()
+            );
+
+            Consumer<Node> neuronTypeModifier = neuronTypeModifiers.get(act.getNeuronClass());
+            if (neuronTypeModifier != null) {
+                neuronTypeModifier.accept(n);
+            }
+        });
+
+        node.setAttribute("ui.label", act.getLabel());
+    }
+
+    private void drawLink(LinkRecord l) {
+        if(graphManager.getNode(l.getInput()) == null || graphManager.getNode(l.getOutput()) == null)
+            return;
+
+        Edge edge = graphManager.lookupEdge(l, levelOfDetail::addEdge);
+        mutations.setAttribute(edge, "layout.ignored", !l.isAttracting());
+
+        Class<?> synapseClass = l.getSynapseClass();
+        if(synapseClass != null && SameBNSynapse.class.isAssignableFrom(synapseClass)) {
+            applySameBNStyle(mutations.writerFor(edge), l.isRecurrent());
+            return;
+        }
+
+        BiConsumer<AttributeWriter, Synapse> synapseTypeModifier = synapseTypeModifiers.get(synapseClass);
+        if(synapseTypeModifier != null) {
+            synapseTypeModifier.accept(mutations.writerFor(edge), null);
+        }
+    }
+
+    private void removeLink(LinkRecord l) {
+        Edge edge = graphManager.getEdge(l);
+        if(edge == null)
+            return;
+
+        if(l.getOutput().getOriginId() == l.getInput().getId()) {
+            edge.setAttribute("ui.style", "fill-color: rgb(200,200,200);");
+            edge.setAttribute("layout.ignored", true);
+            return;
+        }
+
+        graphManager.removeEdge(l.getInput(), l.getOutput());
+    }
+
+    private void highlightCurrent(ReplayState state) {
+        Element e = null;
+        if(state.getCurrentElementKind() == ELEMENT_ACTIVATION) {
+            ActivationRecord act = replay.getActivation(state.getCurrentId1());
+            if(act != null)
+                e = graphManager.getNode(act);
+        } else if(state.getCurrentElementKind() == ELEMENT_LINK) {
+            LinkRecord l = replay.getLink(state.getCurrentId1(), state.getCurrentId2());
+            if(l != null)
+                e = graphManager.getEdge(l);
+        }
+
+        if(e != null) {
+            lastHighlighted = e;
+            highlightElement(e);
+        }
+    }
+
+    private double scaleCharsToTokens() {
+        return replay.getDocumentLength() > 0 ?
+                (double) replay.getNumberOfInputTokens() / (double) replay.getDocumentLength() :
+                1.0;
+    }
+
+    @Override
+    public void showElementContext(GraphicElement ge) {
+        replayViewTabbedPane.setSelectedIndex(1);
+
+        ReplayState state = replay.getState();
+        if(ge instanceof Node) {
+            ActivationRecord act = graphManager.getAikaNode((Node) ge);
+            if(act == null)
+                return;
+
+            selectedConsole.render(sDoc ->
+                    selectedConsole.renderActivationConsoleOutput(sDoc, act, state, null)
+            );
+        } else if(ge instanceof Edge) {
+            LinkRecord l = graphManager.getLink((Edge) ge);
+            if(l == null)
+                return;
+
+            selectedConsole.render(sDoc ->
+                    selectedConsole.renderLinkConsoleOutput(sDoc, l, null)
+            );
+        }
+    }
+
+    @Override
+    public JComponent getConsolePane() {
+        slider = new JSlider(0, replay.getNumberOfEvents(), 0);
+        slider.setMajorTickSpacing(Math.max(1, replay.getNumberOfEvents() / 10));
+        slider.setPaintTicks(true);
+        slider.addChangeListener(e -> seek(slider.getValue()));
+
+        replayViewTabbedPane = new JTabbedPane();
+        replayViewTabbedPane.addTab("Main", null, getScrollPane(mainConsole), "Shows the current event");
+        replayViewTabbedPane.addTab("Selected", null, getScrollPane(selectedConsole), "Shows the selected graph element");
+
+        JSplitPane sp = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                replayViewTabbedPane,
+                getScrollPane(queueConsole)
+        );
+        sp.setResizeWeight(0.65);
+        sp.setDoubleBuffered(false);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(slider, BorderLayout.NORTH);
+        panel.add(sp, BorderLayout.CENTER);
+        return panel;
+    }
+
+    @Override
+    public void click(int x, int y) {
+    }
+}
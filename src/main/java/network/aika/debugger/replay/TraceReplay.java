@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.replay;
+
+import network.aika.debugger.trace.TraceReader;
+import network.aika.debugger.trace.TraceRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static network.aika.debugger.trace.TraceFormat.*;
+
+/**
+ * Offline replay of a recorded trace. Opening the trace indexes all activations, links and queue
+ * entries of the selected document and takes a checkpoint of the {@link ReplayState} every
+ * {@code checkpointInterval} events. Every {@link #KEYFRAME_INTERVAL}th checkpoint is a complete
+ * copy, the ones in between only hold the changes. Seeking to an event restores the preceding
+ * keyframe, applies the deltas up to the closest checkpoint and replays at most
+ * {@code checkpointInterval} events.
+ */
+public class TraceReplay implements Closeable {
+
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 4096;
+
+    public static final int KEYFRAME_INTERVAL = 16;
+
+    private static final Map<String, Optional<Class<?>>> classCache = new ConcurrentHashMap<>();
+
+    private final TraceReader reader;
+    private final int checkpointInterval;
+
+    private int firstEvent;
+    private int numberOfEvents;
+
+    private long documentLength;
+    private long numberOfInputTokens;
+    private String content;
+
+    private final List<ActivationRecord> activations = new ArrayList<>();
+    private final Map<Integer, ActivationRecord> activationsById = new HashMap<>();
+    private final List<LinkRecord> links = new ArrayList<>();
+    private final Map<Long, LinkRecord> linksByKey = new HashMap<>();
+    private final List<QueueEntryRecord> queueEntries = new ArrayList<>();
+
+    private final List<ReplayState.Checkpoint> checkpoints = new ArrayList<>();
+
+    private final ReplayState state = new ReplayState();
+
+    public TraceReplay(Path path) throws IOException {
+        this(path, 0, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    public TraceReplay(Path path, int documentIndex, int checkpointInterval) throws IOException {
+        this.checkpointInterval = checkpointInterval;
+        reader = new TraceReader(path);
+
+        selectDocument(documentIndex);
+        index();
+    }
+
+    private void selectDocument(int documentIndex) throws IOException {
+        int docCount = 0;
+        for(int i = 0; i < reader.getNumberOfEvents(); i++) {
+            TraceRecord r = reader.getEvent(i);
+            if(r.getType() != DOCUMENT_BEGIN)
+                continue;
+
+            if(docCount++ < documentIndex)
+                continue;
+
+            documentLength = r.readLong();
+            numberOfInputTokens = r.readLong();
+            content = r.readString();
+
+            firstEvent = i + 1;
+            int end = firstEvent;
+            while(end < reader.getNumberOfEvents()) {
+                byte type = reader.getEvent(end).getType();
+                if(type == DOCUMENT_END || type == DOCUMENT_BEGIN)
+                    break;
+                end++;
+            }
+            numberOfEvents = end - firstEvent;
+            return;
+        }
+        throw new IOException("Trace does not contain document " + documentIndex);
+    }
+
+    private void index() {
+        checkpoints.add(state.checkpoint(true));
+
+        for(int i = 0; i < numberOfEvents; i++) {
+            register(reader.getEvent(firstEvent + i));
+            state.apply(reader.getEvent(firstEvent + i), this);
+
+            if(state.getPosition() % checkpointInterval == 0)
+                checkpoints.add(state.checkpoint(checkpoints.size() % KEYFRAME_INTERVAL == 0));
+        }
+    }
+
+    private void register(TraceRecord r) {
+        switch (r.getType()) {
+            case ACTIVATION_CREATED -> {
+                int id = r.readInt();
+                int originId = r.readInt();
+                String neuronType = r.readStringRef();
+                byte flags = r.readByte();
+                long firedTs = r.readLong();
+                long originFiredTs = r.readLong();
+                String label = r.readString();
+
+                ActivationRecord act = new ActivationRecord(activations.size(), id, originId, neuronType, flags, firedTs, originFiredTs, label);
+                activations.add(act);
+                activationsById.put(id, act);
+            }
+            case LINK_CREATED -> {
+                ActivationRecord iAct = activationsById.get(r.readInt());
+                ActivationRecord oAct = activationsById.get(r.readInt());
+                String synapseType = r.readStringRef();
+                byte flags = r.readByte();
+                double weight = r.readDouble();
+
+                if(iAct == null || oAct == null || linksByKey.containsKey(LinkRecord.getKey(iAct.getId(), oAct.getId())))
+                    return;
+
+                LinkRecord l = new LinkRecord(links.size(), iAct, oAct, synapseType, flags, weight);
+                links.add(l);
+                linksByKey.put(l.getKey(), l);
+            }
+            case QUEUE_ENTRY_ADDED -> {
+                int entryId = r.readInt();
+                QueueEntryRecord qe = new QueueEntryRecord(
+                        entryId,
+                        r.readStringRef(),
+                        r.readStringRef(),
+                        r.readLong(),
+                        r.readString(),
+                        r.readString()
+                );
+                while(queueEntries.size() <= entryId)
+                    queueEntries.add(null);
+                queueEntries.set(entryId, qe);
+            }
+        }
+    }
+
+    public ReplayState seek(int position) {
+        position = Math.max(0, Math.min(position, numberOfEvents));
+
+        int cpIndex = Math.min(position / checkpointInterval, checkpoints.size() - 1);
+        ReplayState.Checkpoint cp = checkpoints.get(cpIndex);
+        if(position < state.getPosition() || cp.getPosition() > state.getPosition()) {
+            int keyframeIndex = cpIndex - cpIndex % KEYFRAME_INTERVAL;
+            state.restore(checkpoints.get(keyframeIndex));
+            for(int i = keyframeIndex + 1; i <= cpIndex; i++)
+                state.applyDelta(checkpoints.get(i));
+        }
+
+        while(state.getPosition() < position)
+            state.apply(reader.getEvent(firstEvent + state.getPosition()), this);
+
+        return state;
+    }
+
+    public ReplayState getState() {
+        return state;
+    }
+
+    public int getNumberOfEvents() {
+        return numberOfEvents;
+    }
+
+    public long getDocumentLength() {
+        return documentLength;
+    }
+
+    public long getNumberOfInputTokens() {
+        return numberOfInputTokens;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public List<ActivationRecord> getActivations() {
+        return activations;
+    }
+
+    public ActivationRecord getActivation(int id) {
+        return activationsById.get(id);
+    }
+
+    public List<LinkRecord> getLinks() {
+        return links;
+    }
+
+    public LinkRecord getLink(int inputId, int outputId) {
+        return linksByKey.get(LinkRecord.getKey(inputId, outputId));
+    }
+
+    public QueueEntryRecord getQueueEntry(int entryId) {
+        return entryId >= 0 && entryId < queueEntries.size() ? queueEntries.get(entryId) : null;
+    }
+
+    public static Class<?> resolveClass(String name) {
+        if(name == null)
+            return null;
+
+        return classCache.computeIfAbsent(name, n -> {
+            try {
+                return Optional.of(Class.forName(n));
+            } catch (ClassNotFoundException e) {
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.scopes;
+
+import network.aika.debugger.LongObjectMap;
+import network.aika.debugger.LongPairObjectMap;
+import network.aika.neuron.activation.scopes.Scope;
+import network.aika.neuron.activation.scopes.Transition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Scopes and transitions of a model, indexed once so that the transition belonging to an
+ * edge can be looked up by the ids of its endpoints.
+ */
+public class ScopeIndex {
+
+    private final LongObjectMap<Scope> scopes = new LongObjectMap<>();
+    private final LongPairObjectMap<Transition> transitions = new LongPairObjectMap<>();
+
+    private final LongObjectMap<List<Transition>> inputs = new LongObjectMap<>();
+    private final LongObjectMap<List<Transition>> outputs = new LongObjectMap<>();
+
+    public ScopeIndex(Collection<Scope> scopes, Collection<Transition> transitions) {
+        scopes.forEach(s -> this.scopes.put(s.getId(), s));
+
+        for(Transition t: transitions) {
+            long in = t.getInput().getId();
+            long out = t.getOutput().getId();
+
+            this.transitions.put(in, out, t);
+            getOrCreate(outputs, in).add(t);
+            getOrCreate(inputs, out).add(t);
+        }
+    }
+
+    private static List<Transition> getOrCreate(LongObjectMap<List<Transition>> map, long scopeId) {
+        List<Transition> ts = map.get(scopeId);
+        if(ts == null) {
+            ts = new ArrayList<>();
+            map.put(scopeId, ts);
+        }
+        return ts;
+    }
+
+    public Scope getScope(long id) {
+        return scopes.get(id);
+    }
+
+    public Collection<Scope> getScopes() {
+        List<Scope> result = new ArrayList<>(scopes.size());
+        scopes.forEachValue(result::add);
+        return result;
+    }
+
+    public Transition getTransition(long inputId, long outputId) {
+        return transitions.get(inputId, outputId);
+    }
+
+    /**
+     * @return the transition between both scopes, regardless of its direction.
+     */
+    public Transition getTransitionBetween(long scopeIdA, long scopeIdB) {
+        Transition t = getTransition(scopeIdA, scopeIdB);
+        return t != null ? t : getTransition(scopeIdB, scopeIdA);
+    }
+
+    public List<Transition> getInputs(long scopeId) {
+        List<Transition> ts = inputs.get(scopeId);
+        return ts != null ? ts : Collections.emptyList();
+    }
+
+    public List<Transition> getOutputs(long scopeId) {
+        List<Transition> ts = outputs.get(scopeId);
+        return ts != null ? ts : Collections.emptyList();
+    }
+
+    public int getTransitionCount() {
+        return transitions.size();
+    }
+}
@@ -19,8 +19,6 @@ package network.aika.debugger.scopes;
 
 import network.aika.debugger.AbstractLayout;
 import network.aika.debugger.AbstractParticle;
-import network.aika.neuron.Neuron;
-import network.aika.neuron.Synapse;
 import network.aika.neuron.activation.scopes.Scope;
 import network.aika.neuron.activation.scopes.Transition;
 import org.graphstream.ui.geom.Vector3;
@@ -32,39 +30,30 @@ import org.graphstream.ui.layout.springbox.implementations.SpringBox;
 public class ScopeParticle extends AbstractParticle {
 
     Scope scope;
+    ScopeIndex index;
 
-    public ScopeParticle(AbstractLayout layout, String id, Scope s, double x, double y, double z) {
+    public ScopeParticle(AbstractLayout layout, String id, Scope s, ScopeIndex index, double x, double y, double z) {
         super(layout, id, x, y, z);
 
         scope = s;
+        this.index = index;
     }
 
     @Override
-    protected void attraction(Vector3 delta) {
+    protected void computeAttraction(Vector3 delta) {
         SpringBox box = (SpringBox) this.box;
         Energies energies = box.getEnergies();
 
         for (EdgeSpring edge : neighbours) {
             if (!edge.ignored) {
-                Transition t = lookupTransition(edge);
-
-//                System.out.println("Layout synapse " + s.toString());
-
-               // edgeAttraction(delta, edge, energies);
+                if(lookupTransition(edge) != null)
+                    edgeAttraction(delta, edge, energies);
             }
         }
     }
 
     private Transition lookupTransition(EdgeSpring edge) {
-        ScopeParticle linkedNP = (ScopeParticle) edge.getOpposite(this);
-/*
-        Synapse os = scope.getOutputSynapse(linkedNP.neuron.getProvider());
-        if(os != null)
-            return os;
-
-        return neuron.getInputSynapse(linkedNP.neuron.getProvider());
-
- */
-        return null;
+        ScopeParticle linkedSP = (ScopeParticle) edge.getOpposite(this);
+        return index.getTransitionBetween(scope.getId(), linkedSP.scope.getId());
     }
 }
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.scopes;
+
+import network.aika.callbacks.VisitorEvent;
+import network.aika.callbacks.VisitorEventListener;
+import network.aika.debugger.LongObjectMap;
+import network.aika.debugger.LongPairObjectMap;
+import network.aika.neuron.Synapse;
+import network.aika.neuron.activation.Activation;
+import network.aika.neuron.activation.scopes.Scope;
+import network.aika.neuron.activation.scopes.Transition;
+import network.aika.neuron.activation.visitor.ActVisitor;
+import network.aika.neuron.activation.visitor.LinkVisitor;
+import network.aika.neuron.activation.visitor.Visitor;
+
+import java.util.*;
+
+/**
+ * Counts on the processing thread how often visitors passed through each scope and
+ * transition, and from which origin activations they started. Records regardless of the
+ * view that is shown, since processing is stepped from the activations view. The memory is
+ * bounded by {@link #MAX_ORIGINS_PER_SCOPE}.
+ */
+public class ScopeVisitRecorder implements VisitorEventListener {
+
+    /**
+     * Upper bound for the origin activations listed per scope. Visits from further origins
+     * are only counted in the total.
+     */
+    public static int MAX_ORIGINS_PER_SCOPE = 1000;
+
+    private static class ScopeVisits {
+        int total;
+        final LongObjectMap<int[]> origins = new LongObjectMap<>();
+    }
+
+    private final LongObjectMap<ScopeVisits> scopeVisits = new LongObjectMap<>();
+    private final LongPairObjectMap<int[]> transitionVisits = new LongPairObjectMap<>();
+
+    // Labels of the listed origin activations, taken once per activation.
+    private final LongObjectMap<String> originLabels = new LongObjectMap<>();
+
+    @Override
+    public void onVisitorEvent(Visitor v, VisitorEvent ve) {
+        if(ve == VisitorEvent.AFTER)
+            return;
+
+        if(v instanceof ActVisitor) {
+            Activation origin = v.getOriginAct();
+            for(Scope s: ((ActVisitor) v).getScopes())
+                recordScope(s.getId(), origin);
+        } else if(v instanceof LinkVisitor) {
+            for(Transition t: ((LinkVisitor) v).getTransitions())
+                recordTransition(t.getInput().getId(), t.getOutput().getId());
+        }
+    }
+
+    @Override
+    public void onVisitorCandidateEvent(Visitor v, Synapse s) {
+    }
+
+    private synchronized void recordScope(long scopeId, Activation origin) {
+        ScopeVisits visits = scopeVisits.get(scopeId);
+        if(visits == null) {
+            visits = new ScopeVisits();
+            scopeVisits.put(scopeId, visits);
+        }
+        visits.total++;
+
+        long originId = origin.getId();
+        int[] count = visits.origins.get(originId);
+        if(count == null) {
+            if(visits.origins.size() >= MAX_ORIGINS_PER_SCOPE)
+                return;
+
+            count = new int[1];
+            visits.origins.put(originId, count);
+            if(!originLabels.containsKey(originId))
+                originLabels.put(originId, origin.toShortString());
+        }
+        count[0]++;
+    }
+
+    private synchronized void recordTransition(long inputId, long outputId) {
+        int[] count = transitionVisits.get(inputId, outputId);
+        if(count == null) {
+            count = new int[1];
+            transitionVisits.put(inputId, outputId, count);
+        }
+        count[0]++;
+    }
+
+    /**
+     * @return the number of visits per origin activation, most frequent first.
+     */
+    public synchronized List<Map.Entry<String, Integer>> getVisitors(long scopeId) {
+        ScopeVisits visits = scopeVisits.get(scopeId);
+        if(visits == null)
+            return Collections.emptyList();
+
+        List<Map.Entry<String, Integer>> result = new ArrayList<>();
+        visits.origins.forEachEntry((count, originId) ->
+                result.add(new AbstractMap.SimpleEntry<>(originLabels.get(originId), count[0]))
+        );
+        result.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        return result;
+    }
+
+    public synchronized int getVisitCount(long scopeId) {
+        ScopeVisits visits = scopeVisits.get(scopeId);
+        return visits != null ? visits.total : 0;
+    }
+
+    public synchronized int getTransitionVisitCount(Transition t) {
+        int[] count = transitionVisits.get(t.getInput().getId(), t.getOutput().getId());
+        return count != null ? count[0] : 0;
+    }
+}
@@ -18,10 +18,44 @@ package network.aika.debugger.scopes;
 
 
 import network.aika.debugger.AbstractConsole;
+import network.aika.neuron.activation.scopes.Scope;
+import network.aika.neuron.activation.scopes.Transition;
 
 import javax.swing.text.StyledDocument;
+import java.util.List;
+import java.util.Map;
 
 public class ScopesConsole extends AbstractConsole {
 
+    public static int MAX_LISTED_VISITORS = 50;
 
+    public void renderScopeConsoleOutput(StyledDocument sDoc, Scope s, ScopeIndex index, ScopeVisitRecorder visits) {
+        appendText(sDoc, "Scope\n", "headline");
+
+        appendEntry(sDoc, "Id: ", "" + s.getId());
+        appendEntry(sDoc, "Label: ", s.getLabel());
+        appendEntry(sDoc, "Visits: ", "" + visits.getVisitCount(s.getId()));
+
+        appendText(sDoc, "\nInput Transitions\n", "bold");
+        renderTransitions(sDoc, index.getInputs(s.getId()), visits, true);
+
+        appendText(sDoc, "\nOutput Transitions\n", "bold");
+        renderTransitions(sDoc, index.getOutputs(s.getId()), visits, false);
+
+        appendText(sDoc, "\nVisitors\n", "bold");
+        List<Map.Entry<String, Integer>> visitors = visits.getVisitors(s.getId());
+        visitors.stream()
+                .limit(MAX_LISTED_VISITORS)
+                .forEach(e -> appendEntry(sDoc, e.getValue() + "x ", e.getKey()));
+
+        if(visitors.size() > MAX_LISTED_VISITORS)
+            appendText(sDoc, "... " + (visitors.size() - MAX_LISTED_VISITORS) + " more\n", "italic");
+    }
+
+    private void renderTransitions(StyledDocument sDoc, List<Transition> transitions, ScopeVisitRecorder visits, boolean input) {
+        for(Transition t: transitions) {
+            Scope other = input ? t.getInput() : t.getOutput();
+            appendEntry(sDoc, other.getLabel() + ": ", visits.getTransitionVisitCount(t) + " visits");
+        }
+    }
 }
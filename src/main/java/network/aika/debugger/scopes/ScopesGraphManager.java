@@ -35,12 +35,17 @@ public class ScopesGraphManager extends AbstractGraphManager<Scope, Transition,
     }
 
     @Override
-    protected Long getAikaNodeId(Scope s) {
-        return (long) s.getId();
+    protected long getAikaNodeId(Scope s) {
+        return s.getId();
+    }
+
+    @Override
+    protected String getLabel(Scope s) {
+        return s.getLabel();
     }
 
 
-    public Edge lookupEdge(Transition t, Consumer<Node> onCreate) {
+    public Edge lookupEdge(Transition t, Consumer<Edge> onCreate) {
         return lookupEdge(t.getInput(), t.getOutput(), onCreate);
     }
 
@@ -16,7 +16,6 @@
  */
 package network.aika.debugger.scopes;
 
-import network.aika.Model;
 import network.aika.debugger.AbstractLayout;
 import network.aika.debugger.neurons.AbstractNeuronViewManager;
 import network.aika.debugger.neurons.NeuronGraphManager;
@@ -47,16 +46,16 @@ public class ScopesLayout extends AbstractLayout<ScopesGraphManager> {
 
     @Override
     public NodeParticle newNodeParticle(String id) {
-        Model model = svm.getModel();
+        ScopeIndex index = svm.getScopeIndex();
         Node n = graphManager.getNode(id);
 
         Integer scopeId = n.getAttribute("aika.scopeId", Integer.class);
-        Scope scope = model.getScopes().getScopes().get(scopeId);
+        Scope scope = index.getScope(scopeId);
 
         ScopeParticle particle = graphManager.getParticle(scope);
 
         if(particle == null) {
-            particle = new ScopeParticle(this, id, scope, scope.getXCoord(), scope.getYCoord(), 0);
+            particle = new ScopeParticle(this, id, scope, index, scope.getXCoord(), scope.getYCoord(), 0);
 
             graphManager.setParticle(scope, particle);
         }
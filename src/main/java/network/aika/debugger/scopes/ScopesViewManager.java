@@ -7,6 +7,7 @@ import network.aika.debugger.neurons.NeuronGraphManager;
 import network.aika.debugger.neurons.NeuronLayout;
 import network.aika.neuron.activation.scopes.Scope;
 import network.aika.neuron.activation.scopes.Transition;
+import network.aika.text.Document;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
 import org.graphstream.ui.graphicGraph.GraphicElement;
@@ -17,7 +18,11 @@ public class ScopesViewManager extends AbstractViewManager<ScopesConsole, Scopes
 
     private Model model;
 
-    private ScopesConsole console = new ScopesConsole();
+    private ScopeIndex scopeIndex;
+
+    private ScopeVisitRecorder visitRecorder = new ScopeVisitRecorder();
+
+    private Scope selectedScope;
 
     public ScopesViewManager(Model model) {
         super();
@@ -25,7 +30,7 @@ public class ScopesViewManager extends AbstractViewManager<ScopesConsole, Scopes
 
         graphManager = new ScopesGraphManager(graph);
         mainConsole = new ScopesConsole();
-        viewer.enableAutoLayout(new ScopesLayout(this, graphManager));
+        enableAutoLayout(new ScopesLayout(this, graphManager));
 
         splitPane = initSplitPane();
     }
@@ -34,9 +39,37 @@ public class ScopesViewManager extends AbstractViewManager<ScopesConsole, Scopes
         return model;
     }
 
+    public ScopeIndex getScopeIndex() {
+        return scopeIndex;
+    }
+
+    /**
+     * Counts the visitors of the given document per scope, so that they can be shown when a
+     * scope is selected.
+     */
+    public void recordVisitors(Document doc) {
+        doc.addVisitorEventListener(visitRecorder);
+    }
+
     @Override
     public void showElementContext(GraphicElement ge) {
+        if (ge instanceof Node) {
+            Scope s = graphManager.getAikaNode((Node) ge);
+            if (s == null)
+                return;
+
+            selectedScope = s;
+            renderSelectedScope();
+        }
+    }
 
+    private void renderSelectedScope() {
+        if(selectedScope == null)
+            return;
+
+        mainConsole.render(sDoc ->
+                mainConsole.renderScopeConsoleOutput(sDoc, selectedScope, scopeIndex, visitRecorder)
+        );
     }
 
 
@@ -65,7 +98,7 @@ public class ScopesViewManager extends AbstractViewManager<ScopesConsole, Scopes
 
     @Override
     public JComponent getConsolePane() {
-        return console;
+        return mainConsole;
     }
 
     @Override
@@ -73,11 +106,22 @@ public class ScopesViewManager extends AbstractViewManager<ScopesConsole, Scopes
 
     }
 
+    /**
+     * The scopes of a model do not change while debugging, so the graph is only built on the
+     * first call. Later calls merely refresh the visitor counts of the selected scope.
+     */
     public void initScopes() {
-        getModel()
-                .getScopes()
-                .getScopes()
-                .values()
+        if(scopeIndex != null) {
+            renderSelectedScope();
+            return;
+        }
+
+        scopeIndex = new ScopeIndex(
+                getModel().getScopes().getScopes().values(),
+                getModel().getScopes().getTransitions()
+        );
+
+        scopeIndex.getScopes()
                 .forEach(s -> drawScope(s, s.getXCoord(), s.getYCoord()));
 
         getModel()
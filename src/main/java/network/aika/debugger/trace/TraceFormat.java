@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.trace;
+
+/**
+ * Layout of the binary event trace. Every record is framed as
+ * [type: byte][payload length: int][payload] so that readers can skip or index records.
+ */
+public final class TraceFormat {
+
+    public static final long MAGIC = 0x41494B4154524331L; // "AIKATRC1"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int RECORD_HEADER_SIZE = 5;
+
+    public static final byte STRING_DEF = 1;
+    public static final byte DOCUMENT_BEGIN = 2;
+    public static final byte DOCUMENT_END = 3;
+    public static final byte ACTIVATION_CREATED = 4;
+    public static final byte LINK_CREATED = 5;
+    public static final byte BEFORE_PROCESSED = 6;
+    public static final byte AFTER_PROCESSED = 7;
+    public static final byte QUEUE_ENTRY_ADDED = 8;
+    public static final byte QUEUE_ENTRY_REMOVED = 9;
+    public static final byte VISITOR = 10;
+    public static final byte VISITOR_CANDIDATE = 11;
+
+    public static final byte ELEMENT_ACTIVATION = 0;
+    public static final byte ELEMENT_LINK = 1;
+
+    public static final byte FLAG_INPUT_NEURON = 1;
+    public static final byte FLAG_PATTERN_NEURON = 2;
+    public static final byte FLAG_RECURRENT = 4;
+
+    public static final byte VISITOR_BEFORE = 0;
+    public static final byte VISITOR_AFTER = 1;
+
+    public static final long NOT_FIRED_TIMESTAMP = -1;
+
+    private TraceFormat() {
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static network.aika.debugger.trace.TraceFormat.*;
+
+/**
+ * Reads a trace written by the {@link TraceWriter}. Opening the trace indexes the offsets of all
+ * event records and resolves the string table, so that records can be accessed by event number.
+ */
+public class TraceReader implements Closeable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private final List<String> strings = new ArrayList<>();
+
+    private long[] eventOffsets = new long[1024];
+    private int numberOfEvents;
+
+    public TraceReader(Path path) throws IOException {
+        channel = FileChannel.open(path, READ);
+        if(channel.size() > Integer.MAX_VALUE)
+            throw new IOException("Trace file exceeds 2GB: " + path);
+
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        if(buffer.limit() < HEADER_SIZE || buffer.getLong(0) != MAGIC)
+            throw new IOException("Not an aika trace file: " + path);
+        if(buffer.getInt(8) != VERSION)
+            throw new IOException("Unsupported trace version " + buffer.getInt(8) + ": " + path);
+
+        index();
+    }
+
+    private void index() {
+        int pos = HEADER_SIZE;
+        while(pos + RECORD_HEADER_SIZE <= buffer.limit()) {
+            byte type = buffer.get(pos);
+            int length = buffer.getInt(pos + 1);
+
+            if(type == 0)
+                break; // unused tail of a trace that has not been closed
+
+            if(type == STRING_DEF) {
+                TraceRecord r = read(pos);
+                int ref = r.readInt();
+                while(strings.size() <= ref)
+                    strings.add(null);
+                strings.set(ref, r.readString());
+            } else {
+                if(numberOfEvents == eventOffsets.length)
+                    eventOffsets = Arrays.copyOf(eventOffsets, eventOffsets.length * 2);
+                eventOffsets[numberOfEvents++] = pos;
+            }
+
+            pos += RECORD_HEADER_SIZE + length;
+        }
+    }
+
+    public int getNumberOfEvents() {
+        return numberOfEvents;
+    }
+
+    public TraceRecord getEvent(int i) {
+        return read(eventOffsets[i]);
+    }
+
+    public String getString(int ref) {
+        return ref >= 0 ? strings.get(ref) : null;
+    }
+
+    public TraceRecord read(long offset) {
+        int pos = (int) offset;
+        byte type = buffer.get(pos);
+        int length = buffer.getInt(pos + 1);
+
+        ByteBuffer payload = buffer.slice(pos + RECORD_HEADER_SIZE, length);
+        return new TraceRecord(this, offset, type, payload);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
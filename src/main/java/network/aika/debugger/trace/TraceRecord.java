@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.trace;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single record of the trace. The payload is decoded sequentially in the order it was written.
+ */
+public class TraceRecord {
+
+    private final TraceReader reader;
+    private final long offset;
+    private final byte type;
+    private final ByteBuffer payload;
+
+    TraceRecord(TraceReader reader, long offset, byte type, ByteBuffer payload) {
+        this.reader = reader;
+        this.offset = offset;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public byte readByte() {
+        return payload.get();
+    }
+
+    public int readInt() {
+        return payload.getInt();
+    }
+
+    public long readLong() {
+        return payload.getLong();
+    }
+
+    public double readDouble() {
+        return payload.getDouble();
+    }
+
+    public String readString() {
+        byte[] bytes = new byte[payload.getInt()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public String readStringRef() {
+        return reader.getString(payload.getInt());
+    }
+}
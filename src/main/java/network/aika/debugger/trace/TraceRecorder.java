@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.trace;
+
+import network.aika.callbacks.EventListener;
+import network.aika.callbacks.VisitorEvent;
+import network.aika.callbacks.VisitorEventListener;
+import network.aika.neuron.Synapse;
+import network.aika.neuron.activation.*;
+import network.aika.neuron.activation.visitor.ActVisitor;
+import network.aika.neuron.activation.visitor.LinkVisitor;
+import network.aika.neuron.activation.visitor.Visitor;
+import network.aika.neuron.excitatory.BindingNeuronSynapse;
+import network.aika.neuron.excitatory.PatternNeuron;
+import network.aika.neuron.steps.Step;
+import network.aika.text.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static network.aika.debugger.trace.TraceFormat.*;
+import static network.aika.neuron.activation.Fired.NOT_FIRED;
+
+/**
+ * Headless recorder that streams the events of a document into a binary trace
+ * instead of showing them in the debugger.
+ */
+public class TraceRecorder implements EventListener, VisitorEventListener, Closeable {
+
+    private final Document doc;
+    private final TraceWriter writer;
+    private final boolean ownsWriter;
+
+    private final Map<QueueEntry, Integer> queueEntryIds = new IdentityHashMap<>();
+    // Entries queued per element when it was last touched, to notice entries that were dequeued
+    // without being processed.
+    private final Map<Element, List<QueueEntry>> queuedEntries = new IdentityHashMap<>();
+    private int nextQueueEntryId;
+    private int processedEntryId = -1;
+
+    private boolean closed;
+
+    public TraceRecorder(Document doc, TraceWriter writer) {
+        this(doc, writer, false);
+    }
+
+    private TraceRecorder(Document doc, TraceWriter writer, boolean ownsWriter) {
+        this.doc = doc;
+        this.writer = writer;
+        this.ownsWriter = ownsWriter;
+
+        writeDocumentBegin();
+
+        doc.addEventListener(this);
+        doc.addVisitorEventListener(this);
+    }
+
+    public static TraceRecorder record(Document doc, Path path) throws IOException {
+        return new TraceRecorder(doc, new TraceWriter(path), true);
+    }
+
+    private void writeDocumentBegin() {
+        long numberOfInputTokens = doc.getActivations()
+                .stream()
+                .filter(act -> act.getNeuron().isInputNeuron() && act.getNeuron() instanceof PatternNeuron)
+                .count();
+
+        writer.begin(DOCUMENT_BEGIN)
+                .writeLong(doc.length())
+                .writeLong(numberOfInputTokens)
+                .writeString(doc.getContent())
+                .end();
+    }
+
+    @Override
+    public void onActivationCreationEvent(Activation act, Activation originAct, Visitor v) {
+        if(closed)
+            return;
+
+        int neuronTypeRef = writer.stringRef(act.getNeuron().getClass().getName());
+
+        byte flags = 0;
+        if(act.getNeuron().isInputNeuron())
+            flags |= FLAG_INPUT_NEURON;
+        if(act.getNeuron() instanceof PatternNeuron)
+            flags |= FLAG_PATTERN_NEURON;
+
+        writer.begin(ACTIVATION_CREATED)
+                .writeInt(act.getId())
+                .writeInt(originAct != null ? originAct.getId() : -1)
+                .writeInt(neuronTypeRef)
+                .writeByte(flags)
+                .writeLong(getInputTimestamp(act.getFired()))
+                .writeLong(originAct != null ? getInputTimestamp(originAct.getFired()) : NOT_FIRED_TIMESTAMP)
+                .writeString(act.getLabel());
+        writeActivationState(act);
+        writer.end();
+
+        recordQueuedEntries(act);
+    }
+
+    @Override
+    public void onLinkCreationEvent(Link l, Visitor v) {
+        if(closed)
+            return;
+
+        Synapse s = l.getSynapse();
+        int synapseTypeRef = writer.stringRef(s.getClass().getName());
+
+        byte flags = 0;
+        if(s instanceof BindingNeuronSynapse && ((BindingNeuronSynapse) s).isRecurrent())
+            flags |= FLAG_RECURRENT;
+
+        writer.begin(LINK_CREATED);
+        writeLinkIds(l);
+        writer.writeInt(synapseTypeRef)
+                .writeByte(flags)
+                .writeDouble(s.getWeight())
+                .end();
+
+        recordQueuedEntries(l);
+    }
+
+    @Override
+    public void beforeProcessedEvent(QueueEntry qe) {
+        if(closed)
+            return;
+
+        processedEntryId = recordQueueEntry(qe);
+        forget(qe);
+        writeQueueEntryRemoved(processedEntryId);
+
+        writeProcessed(BEFORE_PROCESSED, qe);
+    }
+
+    @Override
+    public void afterProcessedEvent(QueueEntry qe) {
+        if(closed)
+            return;
+
+        writeProcessed(AFTER_PROCESSED, qe);
+        recordQueuedEntries(qe.getElement());
+    }
+
+    private void writeProcessed(byte type, QueueEntry qe) {
+        int stepRef = writer.stringRef(Step.toString(qe.getStep()));
+
+        writer.begin(type)
+                .writeInt(processedEntryId)
+                .writeInt(stepRef);
+        writeElement(qe.getElement());
+        if(qe.getElement() instanceof Activation)
+            writeActivationState((Activation) qe.getElement());
+        writer.end();
+    }
+
+    @Override
+    public void onVisitorEvent(Visitor v, VisitorEvent ve) {
+        if(closed)
+            return;
+
+        writer.begin(VISITOR)
+                .writeByte(ve == VisitorEvent.AFTER ? VISITOR_AFTER : VISITOR_BEFORE)
+                .writeInt(v.getOriginAct().getId());
+        writeVisitorElement(v);
+        writer.end();
+    }
+
+    @Override
+    public void onVisitorCandidateEvent(Visitor v, Synapse s) {
+        if(closed)
+            return;
+
+        int synapseTypeRef = writer.stringRef(s.getClass().getName());
+
+        writer.begin(VISITOR_CANDIDATE)
+                .writeInt(v.getOriginAct().getId())
+                .writeInt(synapseTypeRef);
+        writeVisitorElement(v);
+        writer.end();
+    }
+
+    private void recordQueuedEntries(Element e) {
+        updateQueuedEntries(e);
+
+        if(e instanceof Link) {
+            Link l = (Link) e;
+            if(l.getOutput() != null)
+                updateQueuedEntries(l.getOutput());
+        }
+    }
+
+    /**
+     * An element only has a few queued entries, hence they are compared by a linear search.
+     */
+    private void updateQueuedEntries(Element e) {
+        List<QueueEntry> queued = new ArrayList<>(e.getQueuedEntries());
+        List<QueueEntry> before = queuedEntries.get(e);
+
+        if(before != null) {
+            for(QueueEntry qe: before) {
+                if(!containsEntry(queued, qe))
+                    writeQueueEntryRemoved(queueEntryIds.remove(qe));
+            }
+        }
+
+        queued.forEach(this::recordQueueEntry);
+
+        if(queued.isEmpty())
+            queuedEntries.remove(e);
+        else
+            queuedEntries.put(e, queued);
+    }
+
+    private void forget(QueueEntry qe) {
+        queueEntryIds.remove(qe);
+
+        List<QueueEntry> entries = queuedEntries.get(qe.getElement());
+        if(entries != null && entries.removeIf(k -> k == qe) && entries.isEmpty())
+            queuedEntries.remove(qe.getElement());
+    }
+
+    private static boolean containsEntry(List<QueueEntry> entries, QueueEntry qe) {
+        for(QueueEntry k: entries) {
+            if(k == qe)
+                return true;
+        }
+        return false;
+    }
+
+    private void writeQueueEntryRemoved(int id) {
+        writer.begin(QUEUE_ENTRY_REMOVED)
+                .writeInt(id)
+                .end();
+    }
+
+    private int recordQueueEntry(QueueEntry qe) {
+        Integer id = queueEntryIds.get(qe);
+        if(id != null)
+            return id;
+
+        id = nextQueueEntryId++;
+        queueEntryIds.put(qe, id);
+
+        int phaseRef = writer.stringRef(qe.getStep().getPhase().name());
+        int stepRef = writer.stringRef(qe.getStep().toString());
+
+        writer.begin(QUEUE_ENTRY_ADDED)
+                .writeInt(id)
+                .writeInt(phaseRef)
+                .writeInt(stepRef)
+                .writeLong(qe.getTimestamp())
+                .writeString("" + qe.getFired())
+                .writeString(qe.getElement().toShortString());
+        writeElement(qe.getElement());
+        writer.end();
+
+        return id;
+    }
+
+    private void writeActivationState(Activation act) {
+        writer.writeDouble(act.getValue() != null ? act.getValue() : Double.NaN)
+                .writeDouble(act.getNet());
+    }
+
+    private void writeElement(Element e) {
+        if(e instanceof Activation) {
+            writer.writeByte(ELEMENT_ACTIVATION)
+                    .writeInt(((Activation) e).getId())
+                    .writeInt(-1);
+        } else {
+            writer.writeByte(ELEMENT_LINK);
+            writeLinkIds((Link) e);
+        }
+    }
+
+    private void writeVisitorElement(Visitor v) {
+        if(v instanceof ActVisitor) {
+            writeElement(((ActVisitor) v).getActivation());
+        } else if(v instanceof LinkVisitor && ((LinkVisitor) v).getLink() != null) {
+            writeElement(((LinkVisitor) v).getLink());
+        } else {
+            writer.writeByte(ELEMENT_LINK)
+                    .writeInt(-1)
+                    .writeInt(-1);
+        }
+    }
+
+    private void writeLinkIds(Link l) {
+        writer.writeInt(l.getInput() != null ? l.getInput().getId() : -1)
+                .writeInt(l.getOutput() != null ? l.getOutput().getId() : -1);
+    }
+
+    private static long getInputTimestamp(Fired f) {
+        return f != NOT_FIRED ? f.getInputTimestamp() : NOT_FIRED_TIMESTAMP;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(closed)
+            return;
+
+        writer.begin(DOCUMENT_END).end();
+        closed = true;
+
+        queueEntryIds.clear();
+        queuedEntries.clear();
+
+        if(ownsWriter)
+            writer.close();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.*;
+import static network.aika.debugger.trace.TraceFormat.*;
+
+/**
+ * Append-only writer for the binary trace. Records are assembled in a scratch buffer
+ * and copied into a memory-mapped region of the file, which is remapped as the file grows.
+ */
+public class TraceWriter implements Closeable {
+
+    public static final int DEFAULT_REGION_SIZE = 64 << 20;
+
+    private final FileChannel channel;
+    private final int regionSize;
+
+    private MappedByteBuffer region;
+    private long position;
+
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+
+    private final Map<String, Integer> stringRefs = new HashMap<>();
+
+    public TraceWriter(Path path) throws IOException {
+        this(path, DEFAULT_REGION_SIZE);
+    }
+
+    public TraceWriter(Path path, int regionSize) throws IOException {
+        this.regionSize = regionSize;
+        channel = FileChannel.open(path, CREATE, TRUNCATE_EXISTING, READ, WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putLong(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(0);
+        header.flip();
+        append(header);
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public int stringRef(String s) {
+        if(s == null)
+            return -1;
+
+        Integer ref = stringRefs.get(s);
+        if(ref != null)
+            return ref;
+
+        ref = stringRefs.size();
+        stringRefs.put(s, ref);
+
+        begin(STRING_DEF);
+        writeInt(ref);
+        writeString(s);
+        end();
+
+        return ref;
+    }
+
+    public TraceWriter begin(byte type) {
+        scratch.clear();
+        scratch.put(type);
+        scratch.putInt(0);
+        return this;
+    }
+
+    public TraceWriter writeByte(byte v) {
+        ensureCapacity(1);
+        scratch.put(v);
+        return this;
+    }
+
+    public TraceWriter writeInt(int v) {
+        ensureCapacity(4);
+        scratch.putInt(v);
+        return this;
+    }
+
+    public TraceWriter writeLong(long v) {
+        ensureCapacity(8);
+        scratch.putLong(v);
+        return this;
+    }
+
+    public TraceWriter writeDouble(double v) {
+        ensureCapacity(8);
+        scratch.putDouble(v);
+        return this;
+    }
+
+    public TraceWriter writeString(String s) {
+        byte[] bytes = s != null ? s.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ensureCapacity(4 + bytes.length);
+        scratch.putInt(bytes.length);
+        scratch.put(bytes);
+        return this;
+    }
+
+    public void end() {
+        scratch.putInt(1, scratch.position() - RECORD_HEADER_SIZE);
+        scratch.flip();
+        append(scratch);
+    }
+
+    private void ensureCapacity(int n) {
+        if(scratch.remaining() >= n)
+            return;
+
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + n));
+        scratch.flip();
+        larger.put(scratch);
+        scratch = larger;
+    }
+
+    private void append(ByteBuffer buf) {
+        int size = buf.remaining();
+        try {
+            if(region == null || region.remaining() < size) {
+                if(region != null)
+                    region.force();
+                region = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(regionSize, size));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        region.put(buf);
+        position += size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(region != null)
+            region.force();
+        region = null;
+
+        channel.truncate(position);
+        channel.close();
+    }
+}
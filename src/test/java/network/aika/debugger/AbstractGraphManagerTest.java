@@ -0,0 +1,22 @@
+package network.aika.debugger;
+
+import org.junit.jupiter.api.Test;
+
+import static network.aika.debugger.AbstractGraphManager.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class AbstractGraphManagerTest {
+
+    @Test
+    public void parseNodeIdIgnoresNonNumericIds() {
+        assertEquals(0, parseNodeId("0"));
+        assertEquals(4711, parseNodeId("4711"));
+        assertEquals(Long.MAX_VALUE, parseNodeId("" + Long.MAX_VALUE));
+
+        assertEquals(NO_ID, parseNodeId(""));
+        assertEquals(NO_ID, parseNodeId("lod_3_1"));
+        assertEquals(NO_ID, parseNodeId("12-13"));
+        assertEquals(NO_ID, parseNodeId("99999999999999999999"));
+    }
+}
@@ -0,0 +1,45 @@
+package network.aika.debugger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+
+public class AttractionKernelTest {
+
+    private static final double DY = 0.2;
+    private static final double K1 = 0.12;
+
+    @Test
+    public void vectorMatchesScalar() {
+        AttractionKernel vector = AttractionKernel.createVectorKernel();
+        assumeTrue(vector != null, "Vector API kernel not available");
+
+        // An odd number of springs, so that the scalar tail of the vector loop is used too.
+        ForceArrays scalarArrays = createArrays(new Random(5), 1000, 3001);
+        ForceArrays vectorArrays = createArrays(new Random(5), 1000, 3001);
+
+        new ScalarAttractionKernel().computeLayered(scalarArrays, DY, K1);
+        vector.computeLayered(vectorArrays, DY, K1);
+
+        for(int i = 0; i < scalarArrays.size(); i++) {
+            assertEquals(scalarArrays.getDisplacementY(i), vectorArrays.getDisplacementY(i), 1e-12);
+            assertEquals(scalarArrays.getAttractionEnergy(i), vectorArrays.getAttractionEnergy(i), 1e-12);
+        }
+    }
+
+    private static ForceArrays createArrays(Random r, int n, int springs) {
+        ForceArrays arrays = new ForceArrays();
+        arrays.resize(n);
+        for(int i = 0; i < n; i++)
+            arrays.set(i, r.nextDouble(), r.nextDouble(), 1.0);
+
+        for(int s = 0; s < springs; s++)
+            arrays.addSpring(r.nextInt(n), r.nextInt(n));
+
+        return arrays;
+    }
+}
@@ -0,0 +1,108 @@
+package network.aika.debugger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class LabelIndexTest {
+
+    @Test
+    public void prefixMatchesComeBeforeSubstringMatches() {
+        LabelIndex index = new LabelIndex();
+        index.add(1, "P-arbeit");
+        index.add(2, "W-arbeit");
+        index.add(3, "W-arbeitsvermittlung");
+        index.add(4, "W-fair");
+
+        assertEquals(List.of(2L, 3L), index.search("w-arb", 10));
+        assertEquals(List.of(1L, 2L, 3L), index.search("ARBEIT", 10));
+        assertEquals(List.of(3L), index.search("vermitt", 10));
+        assertEquals(List.of(4L), index.search("ai", 10));
+        assertEquals(1, index.search("arbeit", 1).size());
+    }
+
+    @Test
+    public void removedAndRelabeledElementsAreNotFound() {
+        LabelIndex index = new LabelIndex();
+        index.add(1, "W-arbeit");
+        index.add(2, "W-fair");
+
+        index.remove(1);
+        index.add(2, "W-unfair");
+
+        assertTrue(index.search("arbeit", 10).isEmpty());
+        assertTrue(index.search("w-fair", 10).isEmpty());
+        assertEquals(List.of(2L), index.search("unfair", 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void substringsMatchBruteForce() {
+        LabelIndex index = new LabelIndex();
+        Map<Long, String> labels = new HashMap<>();
+        Random r = new Random(6);
+        for(long id = 0; id < 2000; id++) {
+            String label = randomLabel(r, 4 + r.nextInt(12));
+            index.add(id, label);
+            labels.put(id, label);
+        }
+
+        for(int i = 0; i < 200; i++) {
+            // Short queries over a small alphabet, so that many labels have all trigrams apart.
+            String q = randomLabel(r, 3 + r.nextInt(3));
+
+            List<Long> expected = new ArrayList<>();
+            labels.forEach((id, label) -> {
+                if(label.contains(q))
+                    expected.add(id);
+            });
+            expected.sort(null);
+
+            List<Long> found = new ArrayList<>(index.search(q, Integer.MAX_VALUE));
+            found.sort(null);
+            assertEquals(expected, found, q);
+        }
+    }
+
+    @Test
+    public void trigramsApartDoNotMatch() {
+        LabelIndex index = new LabelIndex();
+        index.add(1, "abcxbcd");
+        index.add(2, "xabcd");
+
+        assertEquals(List.of(2L), index.search("abcd", 10));
+    }
+
+    @Test
+    public void postingsShrinkOnRemove() {
+        LabelIndex index = new LabelIndex();
+        index.add(1, "W-arbeit");
+        int size = index.getPostingsSize();
+
+        for(int i = 0; i < 10; i++) {
+            index.remove(1);
+            assertEquals(0, index.getPostingsSize());
+            index.add(1, "W-arbeit");
+        }
+        assertEquals(size, index.getPostingsSize());
+        assertEquals(List.of(1L), index.search("rbei", 10));
+
+        index.add(1, "W-fair");
+        index.add(1, "W-arbeit");
+        assertEquals(size, index.getPostingsSize());
+    }
+
+    private static String randomLabel(Random r, int length) {
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < length; i++)
+            sb.append((char) ('a' + r.nextInt(4)));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package network.aika.debugger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class LongObjectMapTest {
+
+    @Test
+    public void putOverwritesTheValueOfAKey() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+
+        assertNull(map.put(7, "a"));
+        assertEquals("a", map.put(7, "b"));
+
+        assertEquals("b", map.get(7));
+        assertEquals(1, map.size());
+        assertNull(map.get(8));
+        assertThrows(IllegalArgumentException.class, () -> map.put(9, null));
+    }
+
+    @Test
+    public void removeKeepsTheOtherKeysReachable() {
+        LongObjectMap<Long> map = new LongObjectMap<>(4);
+        for(long k = 0; k < 3; k++)
+            map.put(k << 40, k);
+
+        assertEquals(0L, (long) map.remove(0));
+        assertNull(map.remove(0));
+
+        assertFalse(map.containsKey(0));
+        assertEquals(1L, (long) map.get(1L << 40));
+        assertEquals(2L, (long) map.get(2L << 40));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void behavesLikeAHashMapWhileGrowingAndShrinking() {
+        LongObjectMap<Long> map = new LongObjectMap<>(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random r = new Random(42);
+
+        for(int i = 0; i < 20000; i++) {
+            long key = r.nextInt(2000) * 0x100000000L + r.nextInt(4);
+            if(r.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((k, v) -> assertEquals(v, map.get(k)));
+
+        int[] count = new int[1];
+        map.forEachEntry((v, k) -> {
+            assertEquals(expected.get(k), v);
+            count[0]++;
+        });
+        assertEquals(expected.size(), count[0]);
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(expected.keySet().iterator().next()));
+    }
+}
@@ -0,0 +1,55 @@
+package network.aika.debugger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class LongPairObjectMapTest {
+
+    @Test
+    public void idsWiderThan32BitsDoNotCollide() {
+        LongPairObjectMap<String> map = new LongPairObjectMap<>();
+
+        map.put(1, 2, "1-2");
+        map.put(2, 1, "2-1");
+        map.put(1L << 32, 1, "big-1");
+        map.put(0, 1, "0-1");
+        map.put(1, 1L << 32, "1-big");
+        map.put(1, 0, "1-0");
+
+        assertEquals(6, map.size());
+        assertEquals("1-2", map.get(1, 2));
+        assertEquals("2-1", map.get(2, 1));
+        assertEquals("big-1", map.get(1L << 32, 1));
+        assertEquals("0-1", map.get(0, 1));
+        assertEquals("1-big", map.get(1, 1L << 32));
+        assertEquals("1-0", map.get(1, 0));
+    }
+
+    @Test
+    public void behavesLikeAHashMapWhileGrowingAndShrinking() {
+        LongPairObjectMap<Long> map = new LongPairObjectMap<>(4);
+        Map<List<Long>, Long> expected = new HashMap<>();
+        Random r = new Random(42);
+
+        for(int i = 0; i < 20000; i++) {
+            long first = r.nextInt(200) * 0x100000000L;
+            long second = r.nextInt(20);
+            List<Long> key = List.of(first, second);
+            if(r.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(first, second));
+            } else {
+                assertEquals(expected.put(key, (long) i), map.put(first, second, (long) i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((k, v) -> assertEquals(v, map.get(k.get(0), k.get(1))));
+    }
+}
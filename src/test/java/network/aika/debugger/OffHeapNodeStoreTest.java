@@ -0,0 +1,114 @@
+package network.aika.debugger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class OffHeapNodeStoreTest {
+
+    @Test
+    public void matchesHashMapAcrossGrowth() {
+        Random r = new Random(4);
+        OffHeapNodeStore store = new OffHeapNodeStore(16);
+        Map<Long, double[]> expected = new HashMap<>();
+
+        for(int i = 0; i < 100000; i++) {
+            long id = r.nextLong() % 1_000_000L;
+            int slot = store.add(id);
+            double x = r.nextDouble();
+            double y = r.nextDouble();
+            store.setPosition(slot, x, y);
+            expected.put(id, new double[] {x, y});
+        }
+
+        assertMatches(expected, store);
+    }
+
+    @Test
+    public void matchesHashMapAcrossRemovals() {
+        Random r = new Random(4);
+        OffHeapNodeStore store = new OffHeapNodeStore(16);
+        Map<Long, double[]> expected = new HashMap<>();
+
+        for(int i = 0; i < 100000; i++) {
+            // Few distinct ids, so that probe sequences overlap and removals shift entries.
+            long id = r.nextInt(2000);
+            if(r.nextInt(3) == 0) {
+                store.remove(id);
+                expected.remove(id);
+                assertFalse(store.contains(id));
+            } else {
+                int slot = store.add(id);
+                double x = r.nextDouble();
+                double y = r.nextDouble();
+                store.setPosition(slot, x, y);
+                expected.put(id, new double[] {x, y});
+            }
+        }
+
+        assertMatches(expected, store);
+    }
+
+    @Test
+    public void removedSlotsAreReused() {
+        OffHeapNodeStore store = new OffHeapNodeStore(16);
+        List<Integer> slots = new ArrayList<>();
+        for(long id = 0; id < 1000; id++)
+            slots.add(store.add(id));
+
+        for(int round = 0; round < 10; round++) {
+            for(long id = 0; id < 1000; id++)
+                store.remove(id + 1000 * round);
+            for(long id = 0; id < 1000; id++)
+                assertTrue(store.add(id + 1000 * (round + 1)) < 1000);
+        }
+        assertEquals(1000, store.size());
+    }
+
+    @Test
+    public void readdedNodesHaveNoPosition() {
+        OffHeapNodeStore store = new OffHeapNodeStore();
+        int slot = store.add(42L);
+        store.setPosition(slot, 1.0, 2.0);
+
+        store.remove(42L);
+        assertFalse(store.contains(42L));
+        assertEquals(0, store.size());
+
+        assertEquals(slot, store.add(42L));
+        assertTrue(store.contains(42L));
+        assertFalse(store.hasPosition(slot));
+    }
+
+    @Test
+    public void clearRemovesAllNodes() {
+        OffHeapNodeStore store = new OffHeapNodeStore(16);
+        for(long id = 0; id < 100; id++)
+            store.add(id);
+
+        store.clear();
+        assertEquals(0, store.size());
+        for(long id = 0; id < 100; id++)
+            assertFalse(store.contains(id));
+        assertEquals(0, store.add(7L));
+    }
+
+    private static void assertMatches(Map<Long, double[]> expected, OffHeapNodeStore store) {
+        expected.forEach((id, pos) -> {
+            int slot = store.slotOf(id);
+            assertTrue(slot >= 0);
+            assertEquals(id.longValue(), store.getId(slot));
+            assertEquals(pos[0], store.getX(slot));
+            assertEquals(pos[1], store.getY(slot));
+            assertTrue(store.hasPosition(slot));
+        });
+        assertEquals(expected.size(), store.size());
+    }
+}
@@ -0,0 +1,132 @@
+package network.aika.debugger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class RepulsionKernel1DTest {
+
+    private static final double K = 0.2;
+
+    @Test
+    public void exactWithoutApproximation() {
+        Random r = new Random(1);
+        int n = 500;
+        double[] x = new double[n];
+        double[] w = new double[n];
+
+        RepulsionKernel1D kernel = new RepulsionKernel1D();
+        kernel.resize(n);
+        for(int i = 0; i < n; i++) {
+            // Coarse grid, so that some particles share the same position.
+            x[i] = r.nextInt(4 * n) * 0.05;
+            w[i] = 1 + r.nextInt(3);
+            kernel.set(i, x[i], w[i]);
+        }
+
+        for(int step = 0; step < 2; step++) {
+            kernel.compute(K, 0.0, false);
+
+            for(int i = 0; i < n; i++) {
+                double disp = 0.0;
+                double energy = 0.0;
+                for(int j = 0; j < n; j++) {
+                    double dx = x[j] - x[i];
+                    if(j == i || dx == 0.0)
+                        continue;
+
+                    double len = Math.max(Math.abs(dx), K);
+                    double factor = w[j] / (len * len);
+                    energy += factor;
+                    disp -= Math.signum(dx) * factor;
+                }
+
+                assertEquals(disp, kernel.getDisplacement(i), 1e-9 * energy);
+                assertEquals(energy, kernel.getEnergy(i), 1e-9 * energy);
+            }
+
+            // Move the particles a bit, the kernel has to re-sort them.
+            for(int i = 0; i < n; i++) {
+                x[i] += (r.nextDouble() - 0.5) * 0.1;
+                kernel.set(i, x[i], w[i]);
+            }
+        }
+    }
+
+    @Test
+    public void parallelMatchesSerial() {
+        Random r = new Random(2);
+        int n = 10000;
+
+        RepulsionKernel1D kernel = new RepulsionKernel1D();
+        kernel.resize(n);
+        for(int i = 0; i < n; i++)
+            kernel.set(i, r.nextDouble() * 100.0, 1.0);
+
+        kernel.compute(K, 0.7, false);
+        double[] serial = new double[n];
+        for(int i = 0; i < n; i++)
+            serial[i] = kernel.getDisplacement(i);
+
+        kernel.compute(K, 0.7, true);
+        for(int i = 0; i < n; i++)
+            assertEquals(serial[i], kernel.getDisplacement(i), 0.0);
+    }
+
+    @Test
+    public void separateSourcesMatchSingleKernel() {
+        Random r = new Random(3);
+        int n = 1000;
+        double[] x = new double[n];
+        boolean[] active = new boolean[n];
+        for(int i = 0; i < n; i++) {
+            x[i] = r.nextDouble() * 50.0;
+            active[i] = r.nextInt(10) == 0;
+        }
+        // Removed from the sources after they have been built.
+        int removed = 1;
+        active[removed] = false;
+
+        RepulsionKernel1D all = new RepulsionKernel1D();
+        all.resize(n - 1);
+        RepulsionKernel1D activeKernel = new RepulsionKernel1D();
+        RepulsionKernel1D sources = new RepulsionKernel1D();
+        int[] index = new int[n];
+        int numActive = 0;
+        int numSources = 0;
+        for(int i = 0; i < n; i++)
+            index[i] = active[i] ? numActive++ : numSources++;
+
+        activeKernel.resize(numActive);
+        sources.resize(numSources);
+        for(int i = 0, j = 0; i < n; i++) {
+            if(active[i])
+                activeKernel.set(index[i], x[i], 1.0);
+            else
+                sources.set(index[i], x[i], 1.0, false);
+
+            if(i != removed)
+                all.set(j++, x[i], 1.0, active[i]);
+        }
+
+        sources.buildSources();
+        sources.removeSource(index[removed]);
+        activeKernel.compute(K, 0.0, false);
+        activeKernel.addRepulsionFrom(sources, K, 0.0, false);
+        all.compute(K, 0.0, false);
+
+        for(int i = 0, j = 0; i < n; i++) {
+            if(i == removed)
+                continue;
+
+            if(active[i]) {
+                assertEquals(all.getDisplacement(j), activeKernel.getDisplacement(index[i]), 1e-9 * all.getEnergy(j));
+                assertEquals(all.getEnergy(j), activeKernel.getEnergy(index[i]), 1e-9 * all.getEnergy(j));
+            }
+            j++;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package network.aika.debugger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class StepManagerTest {
+
+    @Test
+    public void tasksOnlyRunWhilePaused() {
+        StepManager sm = new StepManager();
+        AtomicInteger runs = new AtomicInteger();
+
+        assertFalse(sm.runWhilePaused(runs::incrementAndGet));
+
+        sm.pause();
+        assertTrue(sm.runWhilePaused(runs::incrementAndGet));
+
+        sm.resume();
+        assertFalse(sm.runWhilePaused(runs::incrementAndGet));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void pauseListenersAreCalled() {
+        StepManager sm = new StepManager();
+        AtomicInteger pauses = new AtomicInteger();
+        sm.addPauseListener(pauses::incrementAndGet);
+
+        sm.pause();
+        sm.resume();
+        sm.pause();
+        assertEquals(2, pauses.get());
+    }
+
+    @Test
+    public void resumeWaitsForRunningTask() throws InterruptedException {
+        StepManager sm = new StepManager();
+        sm.pause();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread task = new Thread(() -> sm.runWhilePaused(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        task.start();
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        AtomicBoolean resumed = new AtomicBoolean();
+        Thread processing = new Thread(() -> {
+            sm.resume();
+            resumed.set(true);
+        });
+        processing.start();
+
+        processing.join(200);
+        assertFalse(resumed.get());
+
+        release.countDown();
+        processing.join();
+        task.join();
+        assertTrue(resumed.get());
+    }
+}
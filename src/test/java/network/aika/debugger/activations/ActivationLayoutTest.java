@@ -0,0 +1,266 @@
+package network.aika.debugger.activations;
+
+import network.aika.debugger.AbstractGraphManager;
+import network.aika.debugger.AbstractLayout;
+import network.aika.debugger.LayoutState;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.GraphReplay;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class ActivationLayoutTest {
+
+    private static final int NODES = 600;
+    private static final int STEPS = 30;
+
+    @Test
+    public void parallelForcesMatchSerialForces() {
+        boolean parallelForces = AbstractLayout.PARALLEL_FORCES;
+        int parallelThreshold = AbstractLayout.PARALLEL_THRESHOLD;
+        int parallelChunkSize = AbstractLayout.PARALLEL_CHUNK_SIZE;
+        try {
+            AbstractLayout.PARALLEL_THRESHOLD = 0;
+            AbstractLayout.PARALLEL_CHUNK_SIZE = 16;
+
+            AbstractLayout.PARALLEL_FORCES = false;
+            double[][] serial = run();
+
+            AbstractLayout.PARALLEL_FORCES = true;
+            double[][] parallel = run();
+
+            for(int i = 0; i < NODES; i++)
+                assertArrayEquals(serial[i], parallel[i], 0.0);
+        } finally {
+            AbstractLayout.PARALLEL_FORCES = parallelForces;
+            AbstractLayout.PARALLEL_THRESHOLD = parallelThreshold;
+            AbstractLayout.PARALLEL_CHUNK_SIZE = parallelChunkSize;
+        }
+    }
+
+    @Test
+    public void forceArraysMatchParticleAttraction() {
+        boolean structOfArrays = AbstractLayout.STRUCT_OF_ARRAYS_FORCES;
+        try {
+            AbstractLayout.STRUCT_OF_ARRAYS_FORCES = false;
+            double[][] particles = run();
+
+            AbstractLayout.STRUCT_OF_ARRAYS_FORCES = true;
+            double[][] arrays = run();
+
+            // The forces are only summed up in a different order.
+            for(int i = 0; i < NODES; i++)
+                assertArrayEquals(particles[i], arrays[i], 1e-9);
+        } finally {
+            AbstractLayout.STRUCT_OF_ARRAYS_FORCES = structOfArrays;
+        }
+    }
+
+    @Test
+    public void suspendedLayoutDoesNotStep() {
+        ActivationLayout layout = createLayout(createGraph(20));
+        List<LayoutState> states = new ArrayList<>();
+        layout.addStateListener(states::add);
+
+        layout.compute();
+        assertEquals(1, layout.getComputeStep());
+
+        layout.setSuspended(true);
+        layout.compute();
+        assertEquals(LayoutState.SUSPENDED, layout.getState());
+        assertEquals(1, layout.getComputeStep());
+
+        layout.setSuspended(false);
+        layout.compute();
+        assertEquals(LayoutState.RUNNING, layout.getState());
+        assertEquals(2, layout.getComputeStep());
+        assertEquals(List.of(LayoutState.SUSPENDED, LayoutState.RUNNING), states);
+    }
+
+    @Test
+    public void stableLayoutWakesOnGraphEvents() throws InterruptedException {
+        long minRunMillis = AbstractLayout.MIN_RUN_MILLIS;
+        long idleWaitMillis = AbstractLayout.IDLE_WAIT_MILLIS;
+        try {
+            AbstractLayout.MIN_RUN_MILLIS = 0;
+            AbstractLayout.IDLE_WAIT_MILLIS = 1;
+
+            Graph graph = createGraph(20);
+            ActivationLayout layout = createLayout(graph);
+            layout.wakeOnGraphEvents(graph);
+
+            for(int i = 0; i < 10000 && layout.getState() != LayoutState.STABLE; i++)
+                layout.compute();
+            assertEquals(LayoutState.STABLE, layout.getState());
+
+            // A stable layout does not step until something changes.
+            int step = layout.getComputeStep();
+            layout.compute();
+            layout.compute();
+            assertEquals(step, layout.getComputeStep());
+
+            graph.getNode("0").setAttribute("layout.frozen");
+            layout.compute();
+            assertEquals(LayoutState.RUNNING, layout.getState());
+            assertEquals(step + 1, layout.getComputeStep());
+
+            for(int i = 0; i < 10000 && layout.getState() != LayoutState.STABLE; i++)
+                layout.compute();
+            assertEquals(LayoutState.STABLE, layout.getState());
+
+            // The idle runner is notified, it does not wait out IDLE_WAIT_MILLIS.
+            AbstractLayout.IDLE_WAIT_MILLIS = 60000;
+            CountDownLatch running = new CountDownLatch(1);
+            layout.addStateListener(s -> {
+                if(s == LayoutState.RUNNING)
+                    running.countDown();
+            });
+
+            AtomicBoolean stop = new AtomicBoolean();
+            Thread runner = new Thread(() -> {
+                while(!stop.get())
+                    layout.compute();
+            });
+            runner.start();
+
+            graph.addNode("" + 20);
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+
+            stop.set(true);
+            layout.setSuspended(true);
+            runner.join();
+        } finally {
+            AbstractLayout.MIN_RUN_MILLIS = minRunMillis;
+            AbstractLayout.IDLE_WAIT_MILLIS = idleWaitMillis;
+        }
+    }
+
+    @Test
+    public void settledParticlesDoNotMove() {
+        int nodes = 200;
+        Graph graph = createGraph(nodes);
+        TestGraphManager gm = new TestGraphManager(graph);
+        ActivationLayout layout = createLayout(gm);
+
+        double[][] before = new double[nodes][];
+        for(int i = 0; i < nodes; i++) {
+            ActivationParticle p = gm.getParticle((long) i);
+            p.restore();
+            before[i] = new double[] {p.getPosition().x, p.getPosition().y};
+        }
+        assertEquals(0, layout.getNumberOfActiveParticles());
+
+        gm.getParticle(0L).activateNeighbourhood(AbstractLayout.WAKE_HOPS);
+        Set<String> woken = getNeighbourhood(graph.getNode("0"), AbstractLayout.WAKE_HOPS);
+        assertEquals(woken.size(), layout.getNumberOfActiveParticles());
+
+        for(int step = 0; step < STEPS; step++)
+            layout.compute();
+
+        for(int i = 0; i < nodes; i++) {
+            if(woken.contains("" + i))
+                continue;
+
+            ActivationParticle p = gm.getParticle((long) i);
+            assertArrayEquals(before[i], new double[] {p.getPosition().x, p.getPosition().y}, 0.0);
+        }
+    }
+
+    private static Set<String> getNeighbourhood(Node n, int hops) {
+        Set<String> result = new HashSet<>();
+        result.add(n.getId());
+        if(hops > 0)
+            n.neighborNodes().forEach(m -> result.addAll(getNeighbourhood(m, hops - 1)));
+        return result;
+    }
+
+    private static double[][] run() {
+        TestGraphManager gm = new TestGraphManager(createGraph(NODES));
+        ActivationLayout layout = createLayout(gm);
+
+        for(int step = 0; step < STEPS; step++)
+            layout.compute();
+
+        double[][] positions = new double[NODES][];
+        for(int i = 0; i < NODES; i++) {
+            ActivationParticle p = gm.getParticle((long) i);
+            positions[i] = new double[] {p.getPosition().x, p.getPosition().y};
+        }
+        return positions;
+    }
+
+    private static Graph createGraph(int nodes) {
+        Graph graph = new SingleGraph("test");
+        Random r = new Random(4);
+        for(int i = 0; i < nodes; i++) {
+            Node n = graph.addNode("" + i);
+            n.setAttribute("x", 1.0 + r.nextInt(40) * 0.1);
+            n.setAttribute("y", 1.0 + r.nextInt(10) * 0.2);
+        }
+        for(int i = 1; i < nodes; i++) {
+            int j = r.nextInt(i);
+            graph.addEdge(j + "-" + i, "" + j, "" + i, true);
+        }
+        return graph;
+    }
+
+    private static ActivationLayout createLayout(Graph graph) {
+        return createLayout(new TestGraphManager(graph));
+    }
+
+    private static ActivationLayout createLayout(TestGraphManager gm) {
+        ActivationLayout layout = new ActivationLayout(gm);
+
+        // Replays the finished graph, so that the particles are created from the node attributes.
+        GraphReplay replay = new GraphReplay("replay");
+        replay.addSink(layout);
+        replay.replay(gm.getGraph());
+        return layout;
+    }
+
+    private static class TestGraphManager extends AbstractGraphManager<Long, Long, ActivationParticle> {
+
+        TestGraphManager(Graph graph) {
+            super(graph);
+        }
+
+        @Override
+        protected long getAikaNodeId(Long key) {
+            return key;
+        }
+
+        @Override
+        protected String getLabel(Long key) {
+            return "" + key;
+        }
+
+        @Override
+        public Edge lookupEdge(Long l, Consumer<Edge> onCreate) {
+            return null;
+        }
+
+        @Override
+        public Edge getEdge(Long l) {
+            return null;
+        }
+
+        @Override
+        public Long getLink(Edge e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package network.aika.debugger.activations;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class LayeredLayoutTest {
+
+    private static final double DX = 0.2;
+    private static final double DY = 0.2;
+
+    @Test
+    public void layersFollowLongestInputPath() {
+        LayeredLayout layout = new LayeredLayout(DX, DY);
+        layout.addActivation(0, -1, 0.0);
+        layout.addActivation(1, 0, null);
+        layout.addActivation(2, 0, null);
+        layout.addActivation(3, 0, null);
+
+        layout.addLink(0, 1, true);
+        layout.addLink(1, 2, true);
+        layout.addLink(0, 3, true);
+        assertEquals(1, layout.getLayer(3));
+
+        // The longer path 0 -> 1 -> 2 -> 3 lifts 3 into layer 3.
+        layout.addLink(2, 3, true);
+        assertEquals(3, layout.getLayer(3));
+        assertEquals(3 * DY, layout.getY(3), 1e-12);
+
+        // Non-attracting links do not affect the layering.
+        layout.addLink(3, 1, false);
+        assertEquals(1, layout.getLayer(1));
+    }
+
+    @Test
+    public void lateLinksPropagateToOutputs() {
+        LayeredLayout layout = new LayeredLayout(DX, DY);
+        layout.addActivation(0, -1, 0.0);
+        layout.addActivation(1, -1, null);
+        layout.addActivation(2, -1, null);
+
+        layout.addLink(1, 2, true);
+        assertEquals(1, layout.getLayer(2));
+
+        layout.addLink(0, 1, true);
+        assertEquals(1, layout.getLayer(1));
+        assertEquals(2, layout.getLayer(2));
+    }
+
+    @Test
+    public void cellsAreOrderedByInputBarycenter() {
+        LayeredLayout layout = new LayeredLayout(DX, DY);
+        layout.addActivation(0, -1, 0.0);
+        layout.addActivation(1, -1, 0.0);
+        layout.addActivation(2, 0, null);
+        layout.addActivation(3, 0, null);
+
+        layout.addLink(0, 2, true);
+        layout.addLink(0, 3, true);
+        layout.addLink(1, 2, true);
+
+        // 3 only depends on the left input, 2 on both, hence 3 is placed left of 2.
+        assertTrue(layout.getX(0) < layout.getX(1));
+        assertTrue(layout.getX(3) < layout.getX(2));
+    }
+
+    @Test
+    public void sameEventsGiveSamePositions() {
+        Map<Integer, double[]> a = run(new LayeredLayout(DX, DY));
+        Map<Integer, double[]> b = run(new LayeredLayout(DX, DY));
+
+        assertEquals(a.size(), b.size());
+        a.forEach((id, pos) -> assertArrayEquals(pos, b.get(id), 0.0));
+    }
+
+    private static Map<Integer, double[]> run(LayeredLayout layout) {
+        Map<Integer, double[]> positions = new HashMap<>();
+        Random r = new Random(3);
+        int tokens = 20;
+        int n = 2000;
+
+        for(int i = 0; i < tokens; i++)
+            layout.addActivation(i, -1, i * DX);
+
+        for(int i = tokens; i < n; i++) {
+            layout.addActivation(i, r.nextInt(i), null);
+            for(int j = 0; j < 2; j++)
+                layout.addLink(r.nextInt(i), i, r.nextBoolean());
+        }
+
+        layout.flush((actId, x, y) -> positions.put(actId, new double[] {x, y}));
+        return positions;
+    }
+}
@@ -0,0 +1,136 @@
+package network.aika.debugger.activations;
+
+import network.aika.debugger.AbstractGraphManager;
+import network.aika.debugger.GraphMutationBatcher;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Consumer;
+
+import static network.aika.debugger.AbstractLayout.STANDARD_DISTANCE_X;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class LevelOfDetailTest {
+
+    private static final double ZOOMED_OUT = 1.0 / STANDARD_DISTANCE_X;
+    private static final double ZOOMED_IN = 100.0 / STANDARD_DISTANCE_X;
+
+    private static final double[] VIEWPORT = new double[] {-STANDARD_DISTANCE_X, -10.0, 2 * STANDARD_DISTANCE_X, 10.0};
+
+    @Test
+    public void zoomingOutAggregatesPerColumnAndType() {
+        long updateNanos = LevelOfDetail.UPDATE_NANOS;
+        try {
+            LevelOfDetail.UPDATE_NANOS = 0;
+
+            Graph graph = new SingleGraph("test");
+            GraphMutationBatcher mutations = new GraphMutationBatcher(graph);
+            LevelOfDetail lod = new LevelOfDetail(graph, mutations, new TestGraphManager(graph));
+
+            // Three pattern and two binding activations in the first column, one pattern
+            // activation in the second.
+            addNode(graph, lod, 0, 0.0, String.class);
+            addNode(graph, lod, 1, 0.0, String.class);
+            addNode(graph, lod, 2, 0.0, String.class);
+            addNode(graph, lod, 3, 0.0, Integer.class);
+            addNode(graph, lod, 4, 0.0, Integer.class);
+            addNode(graph, lod, 5, STANDARD_DISTANCE_X, String.class);
+
+            lod.update(ZOOMED_IN, VIEWPORT);
+            mutations.flush();
+            assertFalse(lod.isAggregated());
+            assertNull(graph.getAttribute("ui.sprite.lod_0_0"));
+
+            lod.update(ZOOMED_OUT, VIEWPORT);
+            mutations.flush();
+            assertTrue(lod.isAggregated());
+            assertEquals("3", graph.getAttribute("ui.sprite.lod_0_0.ui.label"));
+            assertEquals("2", graph.getAttribute("ui.sprite.lod_0_1.ui.label"));
+            assertEquals("1", graph.getAttribute("ui.sprite.lod_1_0.ui.label"));
+            graph.nodes().forEach(n -> assertTrue(n.hasAttribute("ui.hide")));
+
+            // Removed nodes leave their super-node.
+            graph.removeNode("0");
+            lod.update(ZOOMED_OUT, VIEWPORT);
+            mutations.flush();
+            assertEquals("2", graph.getAttribute("ui.sprite.lod_0_0.ui.label"));
+
+            lod.update(ZOOMED_IN, VIEWPORT);
+            mutations.flush();
+            assertFalse(lod.isAggregated());
+            assertNull(graph.getAttribute("ui.sprite.lod_0_0"));
+            assertNull(graph.getAttribute("ui.sprite.lod_1_0.ui.label"));
+            graph.nodes().forEach(n -> assertFalse(n.hasAttribute("ui.hide")));
+        } finally {
+            LevelOfDetail.UPDATE_NANOS = updateNanos;
+        }
+    }
+
+    @Test
+    public void hysteresisKeepsTheAggregation() {
+        long updateNanos = LevelOfDetail.UPDATE_NANOS;
+        try {
+            LevelOfDetail.UPDATE_NANOS = 0;
+
+            Graph graph = new SingleGraph("test");
+            GraphMutationBatcher mutations = new GraphMutationBatcher(graph);
+            LevelOfDetail lod = new LevelOfDetail(graph, mutations, new TestGraphManager(graph));
+            addNode(graph, lod, 0, 0.0, String.class);
+
+            lod.update(ZOOMED_OUT, VIEWPORT);
+            assertTrue(lod.isAggregated());
+
+            // Slightly above the threshold, but below the hysteresis.
+            double pixelsPerToken = LevelOfDetail.MIN_PIXELS_PER_TOKEN * (1.0 + LevelOfDetail.EXPAND_HYSTERESIS) / 2.0;
+            lod.update(pixelsPerToken / STANDARD_DISTANCE_X, VIEWPORT);
+            assertTrue(lod.isAggregated());
+
+            lod.update(ZOOMED_IN, VIEWPORT);
+            assertFalse(lod.isAggregated());
+        } finally {
+            LevelOfDetail.UPDATE_NANOS = updateNanos;
+        }
+    }
+
+    private static void addNode(Graph graph, LevelOfDetail lod, int id, double x, Class<?> type) {
+        Node n = graph.addNode("" + id);
+        n.setAttribute("xyz", x, 0.0, 0.0);
+        lod.addNode(id, n, type);
+    }
+
+    private static class TestGraphManager extends AbstractGraphManager<Long, Long, ActivationParticle> {
+
+        TestGraphManager(Graph graph) {
+            super(graph);
+        }
+
+        @Override
+        protected long getAikaNodeId(Long key) {
+            return key;
+        }
+
+        @Override
+        protected String getLabel(Long key) {
+            return "" + key;
+        }
+
+        @Override
+        public Edge lookupEdge(Long l, Consumer<Edge> onCreate) {
+            return null;
+        }
+
+        @Override
+        public Edge getEdge(Long l) {
+            return null;
+        }
+
+        @Override
+        public Long getLink(Edge e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package network.aika.debugger.activations;
+
+import network.aika.debugger.AbstractGraphManager;
+import network.aika.debugger.GraphMutationBatcher;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class ViewportCullingTest {
+
+    private static final int NODES = 10;
+
+    // One node per grid cell along the x axis.
+    private static final double STEP = ViewportCulling.CELL_SIZE;
+
+    private Graph graph;
+    private TestGraphManager gm;
+    private GraphMutationBatcher mutations;
+    private ViewportCulling culling;
+
+    @Test
+    public void onlyTheViewportIsShown() {
+        run(() -> {
+            cull(-0.5, 2.5);
+
+            assertVisible(0, 1, 2);
+            assertFalse(isHidden(graph.getEdge("1-2")));
+            // One visible end is enough to draw an edge.
+            assertFalse(isHidden(graph.getEdge("2-3")));
+            assertTrue(isHidden(graph.getEdge("3-4")));
+        });
+    }
+
+    @Test
+    public void panningShowsAndHidesTheDifference() {
+        run(() -> {
+            cull(-0.5, 2.5);
+            cull(1.5, 4.5);
+
+            assertVisible(2, 3, 4);
+            assertTrue(isHidden(graph.getEdge("0-1")));
+            assertFalse(isHidden(graph.getEdge("1-2")));
+            assertFalse(isHidden(graph.getEdge("4-5")));
+            assertTrue(isHidden(graph.getEdge("5-6")));
+        });
+    }
+
+    @Test
+    public void movedNodesChangeTheirCell() {
+        run(() -> {
+            cull(-0.5, 2.5);
+
+            gm.updatePosition(9, STEP, 0.0);
+            gm.flushPositions();
+            culling.updatePositions();
+            cull(-0.5, 2.5);
+
+            assertVisible(0, 1, 2, 9);
+            assertFalse(isHidden(graph.getEdge("8-9")));
+            assertTrue(isHidden(graph.getEdge("7-8")));
+        });
+    }
+
+    @Test
+    public void removedNodesAreForgotten() {
+        run(() -> {
+            cull(-0.5, 2.5);
+
+            culling.removeNode(1);
+            graph.removeNode("1");
+            cull(-0.5, 0.5);
+
+            assertEquals(NODES - 1, culling.getMembers().size());
+            assertFalse(isHidden(graph.getNode("0")));
+            assertTrue(isHidden(graph.getNode("2")));
+        });
+    }
+
+    private void run(Runnable test) {
+        double marginRatio = ViewportCulling.MARGIN_RATIO;
+        try {
+            ViewportCulling.MARGIN_RATIO = 0.0;
+            init();
+            test.run();
+        } finally {
+            ViewportCulling.MARGIN_RATIO = marginRatio;
+        }
+    }
+
+    private void init() {
+        graph = new SingleGraph("test");
+        gm = new TestGraphManager(graph);
+        mutations = new GraphMutationBatcher(graph);
+        culling = new ViewportCulling(mutations, gm);
+
+        for(int i = 0; i < NODES; i++) {
+            Node n = graph.addNode("" + i);
+            n.setAttribute("xyz", i * STEP, 0.0, 0.0);
+            culling.addNode(i, n, 0);
+        }
+        for(int i = 1; i < NODES; i++) {
+            Edge e = graph.addEdge((i - 1) + "-" + i, "" + (i - 1), "" + i, true);
+            culling.addEdge(e);
+        }
+        culling.updatePositions();
+    }
+
+    /**
+     * @param minX left border of the viewport in grid cells
+     * @param maxX right border of the viewport in grid cells
+     */
+    private void cull(double minX, double maxX) {
+        culling.cull(new double[] {minX * STEP, -1.0, maxX * STEP, 1.0});
+        mutations.flush();
+    }
+
+    private void assertVisible(int... ids) {
+        boolean[] visible = new boolean[NODES];
+        for(int id: ids)
+            visible[id] = true;
+
+        for(int i = 0; i < NODES; i++) {
+            Node n = graph.getNode("" + i);
+            if(n != null)
+                assertEquals(!visible[i], isHidden(n), "node " + i);
+        }
+    }
+
+    private static boolean isHidden(Element e) {
+        return e.hasAttribute("ui.hide");
+    }
+
+    private static class TestGraphManager extends AbstractGraphManager<Long, Long, ActivationParticle> {
+
+        TestGraphManager(Graph graph) {
+            super(graph);
+        }
+
+        @Override
+        protected long getAikaNodeId(Long key) {
+            return key;
+        }
+
+        @Override
+        protected String getLabel(Long key) {
+            return "" + key;
+        }
+
+        @Override
+        public Edge lookupEdge(Long l, Consumer<Edge> onCreate) {
+            return null;
+        }
+
+        @Override
+        public Edge getEdge(Long l) {
+            return null;
+        }
+
+        @Override
+        public Long getLink(Edge e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package network.aika.debugger.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class EventRingBufferTest {
+
+    @Test
+    public void offerAndDrain() {
+        EventRingBuffer<Integer> buffer = new EventRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+
+        for(int i = 0; i < 4; i++)
+            assertTrue(buffer.offer(i));
+        assertFalse(buffer.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, buffer.drain(drained::add, 2));
+        assertEquals(List.of(0, 1), drained);
+
+        assertTrue(buffer.offer(4));
+        assertEquals(3, buffer.drain(drained::add, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void concurrentProducerConsumer() throws InterruptedException {
+        EventRingBuffer<Long> buffer = new EventRingBuffer<>(64);
+        long n = 1_000_000;
+        long[] received = new long[] {0, -1};
+        boolean[] ordered = new boolean[] {true};
+
+        Thread consumer = new Thread(() -> {
+            while(received[0] < n) {
+                buffer.drain(x -> {
+                    if(x != received[1] + 1)
+                        ordered[0] = false;
+                    received[1] = x;
+                    received[0]++;
+                }, 16);
+            }
+        });
+        consumer.start();
+
+        for(long i = 0; i < n; i++)
+            buffer.put(i);
+
+        consumer.join();
+
+        assertTrue(ordered[0]);
+        assertEquals(n - 1, received[1]);
+    }
+}
@@ -0,0 +1,118 @@
+package network.aika.debugger.export;
+
+import network.aika.debugger.AbstractGraphManager;
+import network.aika.debugger.AbstractParticle;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class GraphImageExporterTest {
+
+    private static final GraphStyle STYLE = new GraphStyle(
+            "node {size: 20px; text-size: 20px;} " +
+            "edge {size: 2px; arrow-size: 8px, 5px;}"
+    );
+
+    static {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    @Test
+    public void nodesAreDrawnAtTheirPosition() {
+        Graph graph = new SingleGraph("test");
+        addNode(graph, "0", 0.0, 0.0, null).setAttribute("ui.style", "fill-color: rgb(255,0,0);");
+        addNode(graph, "1", 1.0, 1.0, null).setAttribute("ui.style", "fill-color: rgb(0,0,255);");
+
+        GraphSnapshot s = GraphSnapshot.capture(new TestGraphManager(graph), STYLE);
+        assertEquals(2, s.getNodeCount());
+
+        // The padding keeps the nodes away from the border, y points upwards.
+        BufferedImage image = new GraphImageExporter(s, 200, 200).render();
+        assertEquals(Color.RED.getRGB(), image.getRGB(40, 160));
+        assertEquals(Color.BLUE.getRGB(), image.getRGB(160, 40));
+        assertEquals(Color.WHITE.getRGB(), image.getRGB(100, 190));
+    }
+
+    @Test
+    public void tilesMatchSingleImage() {
+        Graph graph = new SingleGraph("test");
+        Random r = new Random(5);
+        for(int i = 0; i < 200; i++) {
+            // Long labels, so that they cross several tiles.
+            String label = i % 10 == 0 ? "a rather long label of node " + i : "n" + i;
+            addNode(graph, "" + i, r.nextDouble(), r.nextDouble(), label);
+        }
+        for(int i = 1; i < 200; i++) {
+            int j = r.nextInt(i);
+            graph.addEdge(j + "-" + i, "" + j, "" + i, true);
+        }
+
+        GraphSnapshot s = GraphSnapshot.capture(new TestGraphManager(graph), STYLE);
+
+        int tileSize = GraphImageExporter.TILE_SIZE;
+        try {
+            GraphImageExporter.TILE_SIZE = 4096;
+            BufferedImage single = new GraphImageExporter(s, 1000, 800).render();
+
+            GraphImageExporter.TILE_SIZE = 64;
+            BufferedImage tiled = new GraphImageExporter(s, 1000, 800).render();
+
+            for(int y = 0; y < 800; y++)
+                for(int x = 0; x < 1000; x++)
+                    assertEquals(single.getRGB(x, y), tiled.getRGB(x, y), "pixel " + x + "," + y);
+        } finally {
+            GraphImageExporter.TILE_SIZE = tileSize;
+        }
+    }
+
+    private static Node addNode(Graph graph, String id, double x, double y, String label) {
+        Node n = graph.addNode(id);
+        n.setAttribute("x", x);
+        n.setAttribute("y", y);
+        if(label != null)
+            n.setAttribute("ui.label", label);
+        return n;
+    }
+
+    private static class TestGraphManager extends AbstractGraphManager<Long, Long, AbstractParticle> {
+
+        TestGraphManager(Graph graph) {
+            super(graph);
+        }
+
+        @Override
+        protected long getAikaNodeId(Long key) {
+            return key;
+        }
+
+        @Override
+        protected String getLabel(Long key) {
+            return "" + key;
+        }
+
+        @Override
+        public Edge lookupEdge(Long l, Consumer<Edge> onCreate) {
+            return null;
+        }
+
+        @Override
+        public Edge getEdge(Long l) {
+            return null;
+        }
+
+        @Override
+        public Long getLink(Edge e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package network.aika.debugger.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class GraphStyleTest {
+
+    @Test
+    public void elementStyleOverridesStylesheet() {
+        GraphStyle style = new GraphStyle(
+                "node {size: 20px; fill-color: #777;} " +
+                "node:selected {size: 40px;} " +
+                "edge {size: 2px; arrow-size: 8px, 5px;}"
+        );
+
+        assertEquals(20.0, style.getSize("node", null, "size", 0.0));
+        assertEquals(8.0, style.getSize("edge", null, "arrow-size", 0.0));
+        assertEquals(new Color(0x77, 0x77, 0x77), style.getColor("node", null, "fill-color", null));
+
+        Color c = style.getColor("node", GraphStyle.parseDeclarations("fill-color: rgba(10, 20, 30, 40);"), "fill-color", null);
+        assertEquals(new Color(10, 20, 30, 40), c);
+    }
+}
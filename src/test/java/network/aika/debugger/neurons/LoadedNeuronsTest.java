@@ -0,0 +1,63 @@
+package network.aika.debugger.neurons;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class LoadedNeuronsTest {
+
+    private static List<String> sorted(List<String> l) {
+        List<String> result = new ArrayList<>(l);
+        result.sort(null);
+        return result;
+    }
+
+    @Test
+    public void onlyNeuronsNotInUseAreSuspended() {
+        Set<Long> usedByDocument = Set.of(4L, 42L);
+        LoadedNeurons<String> loaded = new LoadedNeurons<>(usedByDocument::contains);
+        for(long id = 0; id < 10; id++)
+            loaded.add(id, "n" + id);
+
+        loaded.retain(1L);
+        loaded.retain(2L);
+        loaded.keep(Set.of(3L));
+
+        assertEquals(List.of("n0", "n5", "n6", "n7", "n8", "n9"), sorted(loaded.removeUnused()));
+        assertTrue(loaded.removeUnused().isEmpty());
+        assertFalse(loaded.isLoaded(0L));
+        assertTrue(loaded.isLoaded(3L));
+    }
+
+    @Test
+    public void keptNeuronsStayLoadedUntilTheNextExpansion() {
+        LoadedNeurons<String> loaded = new LoadedNeurons<>(id -> false);
+
+        // The result of the first expansion, 1 and 2, and its prefetch, 3.
+        loaded.keep(Set.of(1L, 2L, 3L));
+        loaded.add(1L, "n1");
+        loaded.add(2L, "n2");
+        loaded.add(3L, "n3");
+
+        // Stops before the view has retained the result.
+        assertTrue(loaded.removeUnused().isEmpty());
+
+        loaded.retain(1L);
+        loaded.retain(2L);
+        assertTrue(loaded.removeUnused().isEmpty());
+
+        // The next expansion drops the old prefetch.
+        loaded.keep(Set.of(5L));
+        assertEquals(List.of("n3"), loaded.removeUnused());
+
+        // Neurons no longer shown are suspended at the next stop.
+        loaded.release(2L);
+        assertEquals(List.of("n2"), loaded.removeUnused());
+        assertTrue(loaded.isLoaded(1L));
+    }
+}
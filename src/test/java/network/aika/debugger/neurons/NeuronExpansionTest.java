@@ -0,0 +1,99 @@
+package network.aika.debugger.neurons;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class NeuronExpansionTest {
+
+    /**
+     * Neurons are numbered, synapses are pairs of input and output.
+     */
+    private static class TestTopology implements NeuronExpansion.Topology<Long, long[]> {
+        final Map<Long, List<long[]>> synapses = new HashMap<>();
+
+        TestTopology add(long in, long out) {
+            long[] s = new long[] {in, out};
+            synapses.computeIfAbsent(in, id -> new ArrayList<>()).add(s);
+            synapses.computeIfAbsent(out, id -> new ArrayList<>()).add(s);
+            return this;
+        }
+
+        @Override
+        public long getId(Long n) {
+            return n;
+        }
+
+        @Override
+        public void visitSynapses(Long n, Consumer<long[]> action) {
+            synapses.getOrDefault(n, List.of()).forEach(action);
+        }
+
+        @Override
+        public Long getInput(long[] s) {
+            return s[0];
+        }
+
+        @Override
+        public Long getOutput(long[] s) {
+            return s[1];
+        }
+    }
+
+    // 0 -> 1 -> 2 -> 3 -> 4
+    private static TestTopology chain() {
+        return new TestTopology()
+                .add(0, 1)
+                .add(1, 2)
+                .add(2, 3)
+                .add(3, 4);
+    }
+
+    @Test
+    public void expansionStopsAfterTheHops() {
+        List<Long> neurons = new ArrayList<>();
+        List<long[]> synapses = new ArrayList<>();
+        NeuronExpansion.collect(chain(), 2L, 1, 100, neurons, synapses);
+
+        assertEquals(Set.of(1L, 2L, 3L), new HashSet<>(neurons));
+        assertEquals(2L, (long) neurons.get(0));
+        assertEquals(2, synapses.size());
+
+        neurons.clear();
+        NeuronExpansion.collect(chain(), 0L, 3, 100, neurons, new ArrayList<>());
+        assertEquals(List.of(0L, 1L, 2L, 3L), neurons);
+    }
+
+    @Test
+    public void hubNeighbourhoodsAreTruncated() {
+        TestTopology hub = new TestTopology();
+        for(long i = 1; i <= 20; i++)
+            hub.add(i, 0);
+
+        List<Long> neurons = new ArrayList<>();
+        NeuronExpansion.collect(hub, 0L, 1, 5, neurons, new ArrayList<>());
+
+        assertEquals(5, neurons.size());
+        assertEquals(0L, (long) neurons.get(0));
+        assertEquals(5, new HashSet<>(neurons).size());
+    }
+
+    @Test
+    public void prefetchAddsTheNextHops() {
+        Set<Long> keep = new HashSet<>(Set.of(0L));
+        NeuronExpansion.prefetch(chain(), List.of(0L), 2, 100, keep, () -> true);
+        assertEquals(Set.of(0L, 1L, 2L), keep);
+
+        keep = new HashSet<>(Set.of(0L));
+        NeuronExpansion.prefetch(chain(), List.of(0L), 4, 3, keep, () -> true);
+        assertEquals(3, keep.size());
+
+        keep = new HashSet<>(Set.of(0L));
+        NeuronExpansion.prefetch(chain(), List.of(0L), 4, 100, keep, () -> false);
+        assertEquals(Set.of(0L), keep);
+    }
+}
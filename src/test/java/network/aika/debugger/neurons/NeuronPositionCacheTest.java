@@ -0,0 +1,111 @@
+package network.aika.debugger.neurons;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class NeuronPositionCacheTest {
+
+    @Test
+    public void positionsSurviveReopening() throws IOException {
+        Path file = Files.createTempFile("aika", ".layout");
+        try {
+            Map<Long, double[]> expected = new HashMap<>();
+            try (NeuronPositionCache cache = new NeuronPositionCache(file)) {
+                putRandom(cache, expected, 100);
+            }
+
+            try (NeuronPositionCache cache = new NeuronPositionCache(file)) {
+                assertMatches(expected, cache);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void growthKeepsAllPositions() throws IOException {
+        Path file = Files.createTempFile("aika", ".layout");
+        try {
+            Map<Long, double[]> expected = new HashMap<>();
+            try (NeuronPositionCache cache = new NeuronPositionCache(file)) {
+                // Several times the initial capacity, with updates of existing entries.
+                putRandom(cache, expected, 20000);
+                assertMatches(expected, cache);
+            }
+
+            try (NeuronPositionCache cache = new NeuronPositionCache(file)) {
+                assertMatches(expected, cache);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void corruptFileStartsEmpty() throws IOException {
+        Path file = Files.createTempFile("aika", ".layout");
+        try {
+            byte[] garbage = new byte[4096];
+            new Random(3).nextBytes(garbage);
+            Files.write(file, garbage);
+
+            try (NeuronPositionCache cache = new NeuronPositionCache(file)) {
+                assertEquals(0, cache.size());
+                assertFalse(cache.get(1L, new double[2]));
+
+                cache.put(1L, 2.0, 3.0);
+                double[] pos = new double[2];
+                assertTrue(cache.get(1L, pos));
+                assertArrayEquals(new double[] {2.0, 3.0}, pos, 0.0);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void closedCacheIsEmpty() throws IOException {
+        Path file = Files.createTempFile("aika", ".layout");
+        try {
+            NeuronPositionCache cache = new NeuronPositionCache(file);
+            cache.put(1L, 2.0, 3.0);
+            cache.close();
+
+            assertTrue(cache.isClosed());
+            assertFalse(cache.get(1L, new double[2]));
+            cache.put(2L, 2.0, 3.0);
+            cache.close();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void putRandom(NeuronPositionCache cache, Map<Long, double[]> expected, int n) {
+        Random r = new Random(4);
+        for(int i = 0; i < n; i++) {
+            long id = r.nextInt(n / 2 + 1);
+            // Floats, since the cache stores single precision.
+            double[] pos = {r.nextFloat(), r.nextFloat()};
+            cache.put(id, pos[0], pos[1]);
+            expected.put(id, pos);
+        }
+    }
+
+    private static void assertMatches(Map<Long, double[]> expected, NeuronPositionCache cache) {
+        assertEquals(expected.size(), cache.size());
+        double[] pos = new double[2];
+        expected.forEach((id, p) -> {
+            assertTrue(cache.get(id, pos));
+            assertArrayEquals(p, pos, 0.0);
+        });
+    }
+}
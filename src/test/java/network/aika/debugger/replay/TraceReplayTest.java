@@ -0,0 +1,122 @@
+package network.aika.debugger.replay;
+
+import network.aika.debugger.trace.TraceWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static network.aika.debugger.trace.TraceFormat.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class TraceReplayTest {
+
+    @Test
+    public void seekMatchesSequentialReplay() throws IOException {
+        assertSeekMatchesSequentialReplay(256);
+    }
+
+    @Test
+    public void seekAcrossDeltaCheckpoints() throws IOException {
+        // Many more checkpoints than KEYFRAME_INTERVAL, hence most seeks have to apply deltas.
+        assertSeekMatchesSequentialReplay(16);
+    }
+
+    private static void assertSeekMatchesSequentialReplay(int checkpointInterval) throws IOException {
+        Path trace = Files.createTempFile("aika", ".trace");
+        writeRandomTrace(trace, 5000);
+
+        try (TraceReplay replay = new TraceReplay(trace, 0, checkpointInterval)) {
+            Random r = new Random(2);
+            for (int i = 0; i < 50; i++) {
+                int pos = r.nextInt(replay.getNumberOfEvents() + 1);
+                ReplayState s = replay.seek(pos);
+
+                try (TraceReplay reference = new TraceReplay(trace, 0, Integer.MAX_VALUE)) {
+                    ReplayState rs = reference.seek(pos);
+
+                    assertEquals(rs.getPosition(), s.getPosition());
+                    assertEquals(rs.getNumberOfActivations(), s.getNumberOfActivations());
+                    assertEquals(rs.getNumberOfLinks(), s.getNumberOfLinks());
+                    assertEquals(rs.getQueue(), s.getQueue());
+                    assertEquals(rs.getCurrentId1(), s.getCurrentId1());
+
+                    for (ActivationRecord act : replay.getActivations().subList(0, s.getNumberOfActivations())) {
+                        assertEquals(rs.getValue(act), s.getValue(act));
+                        assertEquals(rs.getNet(act), s.getNet(act));
+                    }
+                }
+            }
+        } finally {
+            Files.delete(trace);
+        }
+    }
+
+    private static void writeRandomTrace(Path trace, int numberOfEvents) throws IOException {
+        Random r = new Random(1);
+        int acts = 0;
+        int entries = 0;
+        List<Integer> queued = new ArrayList<>();
+
+        try (TraceWriter w = new TraceWriter(trace, 1 << 16)) {
+            w.begin(DOCUMENT_BEGIN).writeLong(10).writeLong(3).writeString("A B ").end();
+
+            for (int i = 0; i < numberOfEvents; i++) {
+                int k = r.nextInt(4);
+                if (k == 0 || acts < 2) {
+                    w.begin(ACTIVATION_CREATED)
+                            .writeInt(acts)
+                            .writeInt(acts - 1)
+                            .writeInt(w.stringRef("PatternNeuron"))
+                            .writeByte((byte) 0)
+                            .writeLong(NOT_FIRED_TIMESTAMP)
+                            .writeLong(NOT_FIRED_TIMESTAMP)
+                            .writeString("A-" + acts)
+                            .writeDouble(r.nextDouble())
+                            .writeDouble(r.nextDouble())
+                            .end();
+                    acts++;
+                } else if (k == 1) {
+                    w.begin(LINK_CREATED)
+                            .writeInt(r.nextInt(acts))
+                            .writeInt(r.nextInt(acts))
+                            .writeInt(w.stringRef("PatternSynapse"))
+                            .writeByte((byte) 0)
+                            .writeDouble(1.0)
+                            .end();
+                } else if (k == 2 || queued.isEmpty()) {
+                    w.begin(QUEUE_ENTRY_ADDED)
+                            .writeInt(entries)
+                            .writeInt(w.stringRef("LINKING"))
+                            .writeInt(w.stringRef("Propagate"))
+                            .writeLong(i)
+                            .writeString("[0,0]")
+                            .writeString("A-0")
+                            .writeByte(ELEMENT_ACTIVATION)
+                            .writeInt(0)
+                            .writeInt(-1)
+                            .end();
+                    queued.add(entries++);
+                } else {
+                    int entryId = queued.remove(r.nextInt(queued.size()));
+                    w.begin(QUEUE_ENTRY_REMOVED).writeInt(entryId).end();
+                    w.begin(BEFORE_PROCESSED)
+                            .writeInt(entryId)
+                            .writeInt(w.stringRef("Propagate"))
+                            .writeByte(ELEMENT_ACTIVATION)
+                            .writeInt(r.nextInt(acts))
+                            .writeInt(-1)
+                            .writeDouble(r.nextDouble())
+                            .writeDouble(r.nextDouble())
+                            .end();
+                }
+            }
+            w.begin(DOCUMENT_END).end();
+        }
+    }
+}
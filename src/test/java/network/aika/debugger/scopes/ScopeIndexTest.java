@@ -0,0 +1,67 @@
+package network.aika.debugger.scopes;
+
+import network.aika.neuron.activation.scopes.Scope;
+import network.aika.neuron.activation.scopes.Transition;
+import network.aika.text.TextModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class ScopeIndexTest {
+
+    @Test
+    public void transitionsAreFoundByTheirScopes() {
+        TextModel m = new TextModel();
+        m.init();
+
+        Collection<Scope> scopes = m.getScopes().getScopes().values();
+        Collection<Transition> transitions = m.getScopes().getTransitions();
+        ScopeIndex index = new ScopeIndex(scopes, transitions);
+
+        assertEquals(scopes.size(), index.getScopes().size());
+        for(Scope s: scopes)
+            assertSame(s, index.getScope(s.getId()));
+
+        int inputs = 0;
+        int outputs = 0;
+        for(Scope s: scopes) {
+            for(Transition t: index.getInputs(s.getId()))
+                assertEquals(s.getId(), t.getOutput().getId());
+            for(Transition t: index.getOutputs(s.getId()))
+                assertEquals(s.getId(), t.getInput().getId());
+
+            inputs += index.getInputs(s.getId()).size();
+            outputs += index.getOutputs(s.getId()).size();
+        }
+        assertEquals(index.getTransitionCount(), inputs);
+        assertEquals(index.getTransitionCount(), outputs);
+
+        for(Transition t: transitions) {
+            long in = t.getInput().getId();
+            long out = t.getOutput().getId();
+
+            assertNotNull(index.getTransition(in, out));
+            assertNotNull(index.getTransitionBetween(out, in));
+        }
+    }
+
+    @Test
+    public void unknownScopesHaveNoTransitions() {
+        TextModel m = new TextModel();
+        m.init();
+
+        ScopeIndex index = new ScopeIndex(
+                m.getScopes().getScopes().values(),
+                m.getScopes().getTransitions()
+        );
+
+        long unknown = Integer.MAX_VALUE;
+        assertNull(index.getScope(unknown));
+        assertTrue(index.getInputs(unknown).isEmpty());
+        assertTrue(index.getOutputs(unknown).isEmpty());
+        assertNull(index.getTransitionBetween(unknown, unknown - 1));
+    }
+}
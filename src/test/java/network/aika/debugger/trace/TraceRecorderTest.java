@@ -0,0 +1,68 @@
+package network.aika.debugger.trace;
+
+import network.aika.debugger.TestConfig;
+import network.aika.debugger.replay.ActivationRecord;
+import network.aika.debugger.replay.ReplayState;
+import network.aika.debugger.replay.TraceReplay;
+import network.aika.neuron.activation.Activation;
+import network.aika.text.Document;
+import network.aika.text.TextModel;
+import network.aika.text.TextReference;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class TraceRecorderTest {
+
+    @Test
+    public void recordedDocumentIsReplayed() throws IOException {
+        TextModel m = new TextModel();
+        m.init();
+
+        Document doc = new Document("A B ");
+        doc.setConfig(new TestConfig());
+
+        Path trace = Files.createTempFile("aika", ".trace");
+        try {
+            try (TraceRecorder recorder = TraceRecorder.record(doc, trace)) {
+                int i = 0;
+                TextReference lastRef = null;
+                for(String t: doc.getContent().split(" ")) {
+                    int j = i + t.length();
+                    lastRef = doc.processToken(m, lastRef, i, j, t).getReference();
+
+                    i = j + 1;
+                }
+                doc.process(m);
+            }
+
+            Map<Integer, Activation> acts = new HashMap<>();
+            doc.getActivations().forEach(act -> acts.put(act.getId(), act));
+
+            try (TraceReplay replay = new TraceReplay(trace)) {
+                assertEquals(doc.getContent(), replay.getContent());
+                assertEquals(doc.length(), replay.getDocumentLength());
+
+                assertEquals(acts.size(), replay.getActivations().size());
+                for(ActivationRecord act: replay.getActivations())
+                    assertEquals(acts.get(act.getId()).getNeuron().getClass().getName(), act.getNeuronType());
+
+                ReplayState s = replay.seek(replay.getNumberOfEvents());
+                assertEquals(acts.size(), s.getNumberOfActivations());
+                assertEquals(replay.getLinks().size(), s.getNumberOfLinks());
+
+                // Every entry that was queued has left the queue again, processed or not.
+                assertTrue(s.getQueue().isEmpty());
+            }
+        } finally {
+            Files.delete(trace);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package network.aika.debugger;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Computes the spring forces with gathered loads of the endpoint positions. Only built with
+ * the maven profile "vector" and loaded by {@link AttractionKernel#createVectorKernel()}.
+ */
+public class VectorAttractionKernel extends AttractionKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    protected void computeSpringForces(ForceArrays a, double distanceY, double k1) {
+        int n = a.springs;
+        int[] in = a.springIn;
+        int[] out = a.springOut;
+        double[] y = a.y;
+        double[] f = a.springForce;
+
+        int s = 0;
+        for(int upper = SPECIES.loopBound(n); s < upper; s += SPECIES.length()) {
+            DoubleVector yIn = DoubleVector.fromArray(SPECIES, y, 0, in, s);
+            DoubleVector yOut = DoubleVector.fromArray(SPECIES, y, 0, out, s);
+
+            yIn.add(distanceY)
+                    .sub(yOut)
+                    .max(0.0)
+                    .mul(k1)
+                    .intoArray(f, s);
+        }
+
+        for(; s < n; s++)
+            f[s] = Math.max(0.0, y[in[s]] + distanceY - y[out[s]]) * k1;
+    }
+}